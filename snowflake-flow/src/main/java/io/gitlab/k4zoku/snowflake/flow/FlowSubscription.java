@@ -0,0 +1,25 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Exposes a {@link SnowflakeSubscription} as a {@link Flow.Subscription}.
+ */
+final class FlowSubscription implements Flow.Subscription {
+
+    private final SnowflakeSubscription subscription;
+
+    FlowSubscription(SnowflakeSubscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void request(long n) {
+        subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+        subscription.cancel();
+    }
+}
@@ -0,0 +1,74 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Publisher} of chunks of snowflake values, without a {@link io.gitlab.k4zoku.snowflake.Snowflake}
+ * object per value. Every element is a new array of {@code chunkSize} values, and a request of {@code n} elements
+ * generates exactly {@code n * chunkSize} snowflakes.
+ *
+ * @see SnowflakePublisher
+ */
+public final class SnowflakeBatchPublisher implements Flow.Publisher<long[]> {
+
+    private final SnowflakeSource source;
+    private final int chunkSize;
+
+    /**
+     * Create a publisher of chunks.
+     *
+     * @param source    The source of the snowflakes.
+     * @param chunkSize The number of values of a chunk.
+     */
+    public SnowflakeBatchPublisher(@NotNull SnowflakeSource source, @Range(from = 1, to = 1 << 24) int chunkSize) {
+        if (chunkSize < 1 || chunkSize > 1 << 24) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and 2^24.");
+        }
+        this.source = Objects.requireNonNull(source, "source");
+        this.chunkSize = chunkSize;
+    }
+
+    public SnowflakeSource getSource() {
+        return source;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super long[]> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        source.subscribe(new SnowflakeSubscriber() {
+            private SnowflakeSubscription subscription;
+
+            @Override
+            public void onSubscribe(SnowflakeSubscription subscription) {
+                this.subscription = subscription;
+                subscriber.onSubscribe(new FlowSubscription(subscription));
+            }
+
+            @Override
+            public void onNext(long[] values, int offset, int length) {
+                for (int i = offset, end = offset + length; i < end && !subscription.isCancelled(); i += chunkSize) {
+                    subscriber.onNext(Arrays.copyOfRange(values, i, i + chunkSize));
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        }, chunkSize);
+    }
+}
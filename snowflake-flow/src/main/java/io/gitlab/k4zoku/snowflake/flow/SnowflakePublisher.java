@@ -0,0 +1,62 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Flow.Publisher} of snowflakes. Every subscriber gets its own {@link SnowflakeSubscription}, which generates
+ * exactly as many snowflakes as requested, in batches on the executor of the source.
+ *
+ * <pre>{@code
+ * SnowflakePublisher publisher = new SnowflakePublisher(SnowflakeSource.of(pool));
+ * publisher.subscribe(subscriber);
+ * }</pre>
+ *
+ * @see SnowflakeBatchPublisher
+ */
+public final class SnowflakePublisher implements Flow.Publisher<Snowflake> {
+
+    private final SnowflakeSource source;
+
+    public SnowflakePublisher(@NotNull SnowflakeSource source) {
+        this.source = Objects.requireNonNull(source, "source");
+    }
+
+    public SnowflakeSource getSource() {
+        return source;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Snowflake> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        source.subscribe(new SnowflakeSubscriber() {
+            private SnowflakeSubscription subscription;
+
+            @Override
+            public void onSubscribe(SnowflakeSubscription subscription) {
+                this.subscription = subscription;
+                subscriber.onSubscribe(new FlowSubscription(subscription));
+            }
+
+            @Override
+            public void onNext(long[] values, int offset, int length) {
+                for (int i = offset, end = offset + length; i < end && !subscription.isCancelled(); i++) {
+                    subscriber.onNext(Snowflake.of(values[i]));
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        }, 1);
+    }
+}
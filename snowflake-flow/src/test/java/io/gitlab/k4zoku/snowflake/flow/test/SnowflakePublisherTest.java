@@ -0,0 +1,99 @@
+package io.gitlab.k4zoku.snowflake.flow.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakeBatchPublisher;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakePublisher;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakeSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakePublisherTest {
+
+    @Test
+    void publisherTest() throws InterruptedException {
+        SnowflakePublisher publisher = new SnowflakePublisher(SnowflakeSource.of(new SnowflakeGenerator(1, 1)));
+        RecordingSubscriber<Snowflake> subscriber = new RecordingSubscriber<>(100);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.received.await(5, TimeUnit.SECONDS));
+        Set<Snowflake> unique = new HashSet<>(subscriber.items);
+        assertEquals(100, unique.size());
+        subscriber.subscription.cancel();
+        assertNull(subscriber.error.get());
+        assertThrows(NullPointerException.class, () -> publisher.subscribe(null));
+    }
+
+    @Test
+    void batchPublisherTest() throws InterruptedException {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 100);
+        SnowflakeBatchPublisher publisher = new SnowflakeBatchPublisher(source, 16);
+        RecordingSubscriber<long[]> subscriber = new RecordingSubscriber<>(10);
+        publisher.subscribe(subscriber);
+        assertTrue(subscriber.received.await(5, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.items.size());
+        Set<Long> unique = new HashSet<>();
+        for (long[] chunk : subscriber.items) {
+            assertEquals(16, chunk.length);
+            for (long value : chunk) {
+                unique.add(value);
+            }
+        }
+        assertEquals(160, unique.size());
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeBatchPublisher(source, 0));
+    }
+
+    @Test
+    void invalidRequestTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 64);
+        RecordingSubscriber<Snowflake> subscriber = new RecordingSubscriber<>(0);
+        new SnowflakePublisher(source).subscribe(subscriber);
+        subscriber.subscription.request(-1);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error.get());
+    }
+
+    private static final class RecordingSubscriber<T> implements Flow.Subscriber<T> {
+        private final List<T> items = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private final CountDownLatch received;
+        private final int count;
+        private Flow.Subscription subscription;
+
+        RecordingSubscriber(int count) {
+            this.count = count; // requested in onSubscribe
+            this.received = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (count > 0) {
+                subscription.request(count);
+            }
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            received.countDown();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
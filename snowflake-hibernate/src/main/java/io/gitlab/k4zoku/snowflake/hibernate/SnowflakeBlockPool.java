@@ -0,0 +1,86 @@
+package io.gitlab.k4zoku.snowflake.hibernate;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+
+import java.util.function.Consumer;
+
+/**
+ * Serves snowflakes from blocks reserved in advance, so that a batched flush reserves one block instead of a
+ * snowflake per entity.
+ * <p>
+ * A block is filled at once when the previous one is used up. Snowflakes are served in the order they were
+ * generated, but their timestamps are those of the reservation of their block.
+ * </p>
+ * <p>
+ * Stale values: like {@link io.gitlab.k4zoku.snowflake.parallel.SnowflakeRingBuffer}, the rest of a block reserved
+ * more than {@code maxAge} ago is discarded when a value is taken and a new block is reserved, so every value served
+ * has a timestamp at most {@code maxAge} old. Checking the age reads the clock once per take; a {@code maxAge} of
+ * {@link Long#MAX_VALUE} skips the check.
+ * </p>
+ *
+ * @see SnowflakeHibernateGenerator#SNOWFLAKE_POOL_SIZE
+ * @see SnowflakeHibernateGenerator#SNOWFLAKE_POOL_MAX_AGE
+ */
+final class SnowflakeBlockPool implements Generator<Snowflake> {
+
+    private final Consumer<long[]> source;
+    private final TimestampProvider clock;
+    private final long maxAge; // milliseconds
+    private final long[] block;
+    private int next;
+    private long reservedAt; // clock reading before the block was filled
+    private long discarded;
+
+    /**
+     * Create a block pool.
+     *
+     * @param source Fills a whole block with new snowflake values.
+     * @param size   The number of snowflakes of a block.
+     * @param clock  The clock of the generator behind {@code source}.
+     * @param maxAge The maximum age of a value served in milliseconds, {@link Long#MAX_VALUE} for no maximum.
+     */
+    SnowflakeBlockPool(Consumer<long[]> source, int size, TimestampProvider clock, long maxAge) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be positive.");
+        }
+        if (maxAge < 1) {
+            throw new IllegalArgumentException("Maximum age must be positive.");
+        }
+        this.source = source;
+        this.clock = clock;
+        this.maxAge = maxAge;
+        this.block = new long[size];
+        this.next = size;
+    }
+
+    synchronized long nextValue() {
+        if (next < block.length && maxAge != Long.MAX_VALUE && clock.getTimestamp() - reservedAt > maxAge) {
+            discarded += block.length - next;
+            next = block.length;
+        }
+        if (next == block.length) {
+            reservedAt = clock.getTimestamp();
+            source.accept(block);
+            next = 0;
+        }
+        return block[next++];
+    }
+
+    @Override
+    public Snowflake generate() {
+        return Snowflake.of(nextValue());
+    }
+
+    int getSize() {
+        return block.length;
+    }
+
+    /**
+     * Gets the number of values discarded because their block was older than the maximum age.
+     */
+    synchronized long getDiscarded() {
+        return discarded;
+    }
+}
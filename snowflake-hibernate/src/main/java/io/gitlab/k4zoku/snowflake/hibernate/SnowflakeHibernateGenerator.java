@@ -3,22 +3,35 @@ package io.gitlab.k4zoku.snowflake.hibernate;
 import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
 import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeKeySpreader;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
 import io.gitlab.k4zoku.snowflake.common.Generator;
 import io.gitlab.k4zoku.snowflake.common.util.ProxyGenerator;
 import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeRingBuffer;
 import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
 import org.hibernate.HibernateException;
 import org.hibernate.MappingException;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.dialect.Dialect;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.BulkInsertionCapableIdentifierGenerator;
 import org.hibernate.id.IdentifierGenerator;
 import org.hibernate.service.ServiceRegistry;
 import org.hibernate.type.Type;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
-public class SnowflakeHibernateGenerator implements IdentifierGenerator {
+public class SnowflakeHibernateGenerator implements BulkInsertionCapableIdentifierGenerator {
 
     public static final String SNOWFLAKE_EPOCH = "snowflake.epoch";
     public static final String SNOWFLAKE_DATA_CENTER_ID = "snowflake.dataCenterId";
@@ -26,8 +39,49 @@ public class SnowflakeHibernateGenerator implements IdentifierGenerator {
     public static final String SNOWFLAKE_PARALLEL = "snowflake.parallel";
     public static final String SNOWFLAKE_WORKERS = "snowflake.workers";
     public static final String SNOWFLAKE_TIMESTAMP_PROVIDER = "snowflake.timestampProvider";
+    /**
+     * The number of snowflakes reserved at once and served to entities from memory, {@code 0} (default) to generate
+     * a snowflake per entity. A block is reserved with a single call of the generator, or a single task in parallel
+     * mode, so batched inserts of many entities no longer generate one by one. The timestamps of the snowflakes are
+     * those of the reservation of their block.
+     */
+    public static final String SNOWFLAKE_POOL_SIZE = "snowflake.poolSize";
+    /**
+     * The maximum age in milliseconds of a pooled snowflake, {@value SnowflakeRingBuffer#DEFAULT_MAX_AGE_MILLIS} by
+     * default. The rest of a block reserved longer ago is discarded and a new block is reserved, so that rarely used
+     * generators do not hand out identifiers far in the past.
+     */
+    public static final String SNOWFLAKE_POOL_MAX_AGE = "snowflake.poolMaxAge";
+    /**
+     * The SQL expression that assigns the identifier of a row in HQL {@code insert ... select} statements, for
+     * example <code>snowflake_next('{generator}')</code>. Bulk insertion is only supported if it is set. The
+     * {@value #BULK_GENERATOR_PLACEHOLDER} placeholder is replaced by a key of the generator that is unique across
+     * service registries. Databases that run Java functions, such as H2, can map a function to
+     * {@link #nextValue(String)}.
+     */
+    public static final String SNOWFLAKE_BULK_INSERT_SELECT = "snowflake.bulkInsertSelect";
+    public static final String BULK_GENERATOR_PLACEHOLDER = "{generator}";
+    /**
+     * The number of bits moved to the top of the stored key to spread inserts over {@code 2^n} index ranges,
+     * {@code 0} (default) to store keys in time order. Snowflake identifiers must set the same parameters on the
+     * {@link SnowflakeType} definition, which does the conversion.
+     *
+     * @see SnowflakeKeySpreader
+     */
+    public static final String SNOWFLAKE_KEY_SPREAD = "snowflake.keySpread";
+    /**
+     * The field moved by {@link #SNOWFLAKE_KEY_SPREAD}, either {@code sequence} (default) or {@code workerId}.
+     */
+    public static final String SNOWFLAKE_KEY_SPREAD_SOURCE = "snowflake.keySpreadSource";
+
+    // keys of the generators with bulk insertion, held weakly so that closed session factories are collected
+    private static final Map<String, WeakReference<LongSupplier>> BULK_GENERATORS = new ConcurrentHashMap<>();
+    private static final Map<ServiceRegistry, String> BULK_SCOPES = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final AtomicInteger NEXT_BULK_SCOPE = new AtomicInteger();
 
     private volatile Generator<Serializable> generator;
+    private volatile LongSupplier keys; // stored values of the identifiers, for bulk insertion
+    private volatile String bulkInsertSelect;
 
     @Override
     public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
@@ -43,7 +97,11 @@ public class SnowflakeHibernateGenerator implements IdentifierGenerator {
 
         // configure generator
         try {
+            if (!longValue) {
+                checkKeySpreader(type, params);
+            }
             configureGenerator(params, longValue);
+            configureBulkInsertion(params, serviceRegistry);
         } catch (IllegalArgumentException e) {
             throw new MappingException("Invalid configuration", e);
         } catch (Exception e) {
@@ -63,6 +121,12 @@ public class SnowflakeHibernateGenerator implements IdentifierGenerator {
             .map(Boolean::parseBoolean)
             .orElse(false);
         TimestampProvider timestampProvider = TimestampProvider.getInstance(params.getProperty(SNOWFLAKE_TIMESTAMP_PROVIDER));
+        int poolSize = Optional.ofNullable(params.getProperty(SNOWFLAKE_POOL_SIZE))
+            .map(Integer::parseInt)
+            .orElse(0);
+        long poolMaxAge = Optional.ofNullable(params.getProperty(SNOWFLAKE_POOL_MAX_AGE))
+            .map(Long::parseLong)
+            .orElse(SnowflakeRingBuffer.DEFAULT_MAX_AGE_MILLIS);
         Generator<Snowflake> snowflakeGenerator;
         if (parallel) {
             byte workers = Optional.ofNullable(params.getProperty(SNOWFLAKE_WORKERS))
@@ -76,19 +140,100 @@ public class SnowflakeHibernateGenerator implements IdentifierGenerator {
                 .dataCenterId(dataCenterId)
                 .timestampProvider(timestampProvider)
                 .build();
-            snowflakeGenerator = new SnowflakeParallelGenerator(factory, workers, offset);
+            SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(factory, workers, offset);
+            snowflakeGenerator = poolSize > 0
+                ? new SnowflakeBlockPool(block -> {
+                    long[] values = pool.generateAsync(block.length).join();
+                    System.arraycopy(values, 0, block, 0, values.length);
+                }, poolSize, timestampProvider, poolMaxAge)
+                : pool;
         } else {
             byte workerId = Optional.ofNullable(params.getProperty(SNOWFLAKE_WORKER_ID))
                 .map(Byte::parseByte)
                 .orElseThrow(() ->
                     new MappingException(String.format("Parameter '%s' is required", SNOWFLAKE_WORKER_ID)));
-            snowflakeGenerator = new SnowflakeGenerator(epoch, dataCenterId, workerId, timestampProvider);
+            SnowflakeGenerator single = new SnowflakeGenerator(epoch, dataCenterId, workerId, timestampProvider);
+            snowflakeGenerator = poolSize > 0
+                ? new SnowflakeBlockPool(block -> single.generate(block, 0, block.length), poolSize, timestampProvider, poolMaxAge)
+                : single;
         }
+        SnowflakeKeySpreader keySpreader = createKeySpreader(params);
         if (longValue) {
-            this.generator = ProxyGenerator.create(snowflakeGenerator, Snowflake::longValue);
+            this.generator = ProxyGenerator.create(snowflakeGenerator, snowflake -> snowflake.toKey(keySpreader));
         } else {
             this.generator = ProxyGenerator.create(snowflakeGenerator, Serializable.class);
         }
+        if (snowflakeGenerator instanceof SnowflakeBlockPool) {
+            SnowflakeBlockPool blockPool = (SnowflakeBlockPool) snowflakeGenerator;
+            this.keys = () -> keySpreader.toKey(blockPool.nextValue());
+        } else {
+            this.keys = () -> snowflakeGenerator.generate().toKey(keySpreader);
+        }
+    }
+
+    private void configureBulkInsertion(Properties params, ServiceRegistry serviceRegistry) {
+        String select = params.getProperty(SNOWFLAKE_BULK_INSERT_SELECT);
+        if (select == null || select.isEmpty()) {
+            return;
+        }
+        String name = params.getProperty(IdentifierGenerator.GENERATOR_NAME);
+        if (name == null) {
+            throw new MappingException(String.format("Parameter '%s' requires a named generator", SNOWFLAKE_BULK_INSERT_SELECT));
+        }
+        if (!select.contains(BULK_GENERATOR_PLACEHOLDER)) {
+            throw new MappingException(String.format(
+                "Parameter '%s' must contain the placeholder '%s'", SNOWFLAKE_BULK_INSERT_SELECT, BULK_GENERATOR_PLACEHOLDER));
+        }
+        String scope = BULK_SCOPES.computeIfAbsent(serviceRegistry, registry -> Integer.toString(NEXT_BULK_SCOPE.incrementAndGet()));
+        String key = name + "@" + scope;
+        BULK_GENERATORS.values().removeIf(reference -> reference.get() == null);
+        BULK_GENERATORS.put(key, new WeakReference<>(keys));
+        this.bulkInsertSelect = select.replace(BULK_GENERATOR_PLACEHOLDER, key);
+    }
+
+    /**
+     * Generates the next identifier of a configured generator, as stored in its column. Meant to be mapped to the
+     * SQL function of {@value #SNOWFLAKE_BULK_INSERT_SELECT} by databases that run Java functions.
+     *
+     * @param generatorKey The key of the generator that replaced {@value #BULK_GENERATOR_PLACEHOLDER}.
+     * @return The stored value of the identifier.
+     * @throws IllegalStateException If no live generator with this key is configured.
+     */
+    public static long nextValue(String generatorKey) {
+        WeakReference<LongSupplier> reference = BULK_GENERATORS.get(generatorKey);
+        LongSupplier next = reference == null ? null : reference.get();
+        if (next == null) {
+            throw new IllegalStateException(String.format(
+                "No SnowflakeHibernateGenerator with key '%s' and '%s' is configured", generatorKey, SNOWFLAKE_BULK_INSERT_SELECT));
+        }
+        return next.getAsLong();
+    }
+
+    static SnowflakeKeySpreader createKeySpreader(Properties params) {
+        int bits = Optional.ofNullable(params.getProperty(SNOWFLAKE_KEY_SPREAD))
+            .map(Integer::parseInt)
+            .orElse(0);
+        String source = params.getProperty(SNOWFLAKE_KEY_SPREAD_SOURCE, "sequence");
+        switch (source) {
+            case "sequence":
+                return SnowflakeKeySpreader.sequence(SnowflakeLayout.DEFAULT, bits);
+            case "workerId":
+                return SnowflakeKeySpreader.workerId(SnowflakeLayout.DEFAULT, bits);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown key spread source '%s'", source));
+        }
+    }
+
+    private static void checkKeySpreader(Type type, Properties params) {
+        SnowflakeKeySpreader keySpreader = createKeySpreader(params);
+        SnowflakeKeySpreader typeKeySpreader = type instanceof SnowflakeType
+            ? ((SnowflakeType) type).getKeySpreader()
+            : SnowflakeKeySpreader.NONE;
+        if (!keySpreader.equals(typeKeySpreader)) {
+            throw new MappingException(String.format(
+                "Key spreading of Snowflake identifiers must be configured on the type, found %s but the type uses %s",
+                keySpreader, typeKeySpreader));
+        }
     }
 
     @Override
@@ -100,5 +245,18 @@ public class SnowflakeHibernateGenerator implements IdentifierGenerator {
         }
     }
 
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return bulkInsertSelect != null;
+    }
+
+    @Override
+    public String determineBulkInsertionIdentifierGenerationSelectFragment(SqlStringGenerationContext context) {
+        return bulkInsertSelect;
+    }
 
+    @Override
+    public String determineBulkInsertionIdentifierGenerationSelectFragment(Dialect dialect) {
+        return bulkInsertSelect;
+    }
 }
@@ -1,10 +1,24 @@
 package io.gitlab.k4zoku.snowflake.hibernate;
 
 import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeKeySpreader;
 import org.hibernate.type.AbstractSingleColumnStandardBasicType;
 import org.hibernate.type.descriptor.sql.BigIntTypeDescriptor;
+import org.hibernate.usertype.ParameterizedType;
 
-public class SnowflakeType extends AbstractSingleColumnStandardBasicType<Snowflake> {
+import java.util.Properties;
+
+/**
+ * Maps {@link Snowflake} to a {@code BIGINT} column.
+ * <p>
+ * The column holds the snowflake itself unless the type definition sets
+ * {@value SnowflakeHibernateGenerator#SNOWFLAKE_KEY_SPREAD}, in which case it holds the key of a
+ * {@link SnowflakeKeySpreader} and the entity still sees the snowflake.
+ * </p>
+ */
+public class SnowflakeType extends AbstractSingleColumnStandardBasicType<Snowflake> implements ParameterizedType {
+
+    private static final long serialVersionUID = 0L;
 
     public static final SnowflakeType INSTANCE = new SnowflakeType();
 
@@ -12,6 +26,15 @@ public class SnowflakeType extends AbstractSingleColumnStandardBasicType<Snowfla
         super(BigIntTypeDescriptor.INSTANCE, SnowflakeTypeDescriptor.INSTANCE);
     }
 
+    public SnowflakeKeySpreader getKeySpreader() {
+        return ((SnowflakeTypeDescriptor) getJavaTypeDescriptor()).getKeySpreader();
+    }
+
+    @Override
+    public void setParameterValues(Properties parameters) {
+        setJavaTypeDescriptor(SnowflakeTypeDescriptor.of(SnowflakeHibernateGenerator.createKeySpreader(parameters)));
+    }
+
     @Override
     public String getName() {
         return "snowflake";
@@ -1,15 +1,35 @@
 package io.gitlab.k4zoku.snowflake.hibernate;
 
 import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeKeySpreader;
 import org.hibernate.type.descriptor.WrapperOptions;
 import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
 
 public class SnowflakeTypeDescriptor extends AbstractTypeDescriptor<Snowflake> {
 
-    public static final SnowflakeTypeDescriptor INSTANCE = new SnowflakeTypeDescriptor();
+    private static final long serialVersionUID = 0L;
 
-    private SnowflakeTypeDescriptor() {
+    public static final SnowflakeTypeDescriptor INSTANCE = new SnowflakeTypeDescriptor(SnowflakeKeySpreader.NONE);
+
+    private final SnowflakeKeySpreader keySpreader;
+
+    private SnowflakeTypeDescriptor(SnowflakeKeySpreader keySpreader) {
         super(Snowflake.class);
+        this.keySpreader = keySpreader;
+    }
+
+    /**
+     * Gets a descriptor storing snowflakes as the keys of a spreader.
+     *
+     * @param keySpreader The spreader.
+     * @return The descriptor.
+     */
+    public static SnowflakeTypeDescriptor of(SnowflakeKeySpreader keySpreader) {
+        return SnowflakeKeySpreader.NONE.equals(keySpreader) ? INSTANCE : new SnowflakeTypeDescriptor(keySpreader);
+    }
+
+    public SnowflakeKeySpreader getKeySpreader() {
+        return keySpreader;
     }
 
     @Override
@@ -32,7 +52,7 @@ public class SnowflakeTypeDescriptor extends AbstractTypeDescriptor<Snowflake> {
             return (X) value;
         }
         if (long.class.isAssignableFrom(type) || Long.class.isAssignableFrom(type)) {
-            return (X) Long.valueOf(value.longValue());
+            return (X) Long.valueOf(value.toKey(keySpreader));
         }
         if (String.class.isAssignableFrom(type)) {
             return (X) value.toString();
@@ -46,7 +66,7 @@ public class SnowflakeTypeDescriptor extends AbstractTypeDescriptor<Snowflake> {
             return null;
         }
         if (Long.class.isAssignableFrom(value.getClass())) {
-            return Snowflake.of((Long) value);
+            return Snowflake.ofKey((Long) value, keySpreader);
         }
         if (String.class.isAssignableFrom(value.getClass())) {
             return Snowflake.of((String) value);
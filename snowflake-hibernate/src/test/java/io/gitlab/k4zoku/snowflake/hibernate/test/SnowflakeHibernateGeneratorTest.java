@@ -2,7 +2,10 @@ package io.gitlab.k4zoku.snowflake.hibernate.test;
 
 import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeKeySpreader;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
 import io.gitlab.k4zoku.snowflake.hibernate.test.entity.SnowflakeEntity;
+import io.gitlab.k4zoku.snowflake.hibernate.test.entity.SpreadSnowflakeEntity;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
@@ -30,6 +33,7 @@ class SnowflakeHibernateGeneratorTest {
             .build();
         MetadataSources metadataSources = new MetadataSources(serviceRegistry);
         metadataSources.addAnnotatedClass(SnowflakeEntity.class);
+        metadataSources.addAnnotatedClass(SpreadSnowflakeEntity.class);
         Metadata metadata = metadataSources.buildMetadata();
         sessionFactory = metadata.buildSessionFactory();
         session = sessionFactory.openSession();
@@ -82,4 +86,23 @@ class SnowflakeHibernateGeneratorTest {
         }
     }
 
+    @Test
+    @Transactional
+    void testKeySpread() {
+        SnowflakeKeySpreader spreader = SnowflakeKeySpreader.sequence(SnowflakeLayout.DEFAULT, 4);
+        SpreadSnowflakeEntity entity = new SpreadSnowflakeEntity();
+        session.persist(entity);
+        session.flush();
+        Snowflake id = entity.getId();
+
+        Number key = (Number) session.createNativeQuery("select id from SpreadSnowflakeEntity").getSingleResult();
+        assertEquals(id.toKey(spreader), key.longValue());
+
+        session.clear();
+        SpreadSnowflakeEntity loaded = session.get(SpreadSnowflakeEntity.class, id);
+        assertNotNull(loaded);
+        assertEquals(id, loaded.getId());
+        assertEquals(id.getTimestamp(), loaded.getId().getTimestamp());
+    }
+
 }
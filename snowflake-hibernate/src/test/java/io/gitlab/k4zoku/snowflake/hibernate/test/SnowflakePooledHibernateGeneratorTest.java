@@ -0,0 +1,149 @@
+package io.gitlab.k4zoku.snowflake.hibernate.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator;
+import io.gitlab.k4zoku.snowflake.hibernate.test.entity.ParallelSnowflakeEntity;
+import io.gitlab.k4zoku.snowflake.hibernate.test.entity.PooledParallelSnowflakeEntity;
+import io.gitlab.k4zoku.snowflake.hibernate.test.entity.PooledSnowflakeEntity;
+import io.gitlab.k4zoku.snowflake.hibernate.test.entity.SnowflakeEntity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakePooledHibernateGeneratorTest {
+
+    static final int ENTITIES = 10_000;
+    static final int BATCH_SIZE = 50;
+
+    static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void setUp() {
+        SnowflakeGenerator.setDefaultEpoch(SnowflakeGenerator.AUTHOR_EPOCH);
+        Configuration configuration = new Configuration().configure()
+            .setProperty("hibernate.connection.url", "jdbc:h2:mem:pooled")
+            .setProperty("hibernate.show_sql", "false")
+            .setProperty("hibernate.jdbc.batch_size", Integer.toString(BATCH_SIZE))
+            .setProperty("hibernate.order_inserts", "true");
+        ServiceRegistry serviceRegistry = configuration.getStandardServiceRegistryBuilder()
+            .applySettings(configuration.getProperties())
+            .build();
+        MetadataSources metadataSources = new MetadataSources(serviceRegistry);
+        metadataSources.addAnnotatedClass(SnowflakeEntity.class);
+        metadataSources.addAnnotatedClass(PooledSnowflakeEntity.class);
+        metadataSources.addAnnotatedClass(ParallelSnowflakeEntity.class);
+        metadataSources.addAnnotatedClass(PooledParallelSnowflakeEntity.class);
+        Metadata metadata = metadataSources.buildMetadata();
+        sessionFactory = metadata.buildSessionFactory();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Test
+    void testBatchedInsert() {
+        persist(SnowflakeEntity::new); // warm up
+        persist(PooledSnowflakeEntity::new);
+        long plain = persist(SnowflakeEntity::new);
+        long pooled = persist(PooledSnowflakeEntity::new);
+        System.out.printf("Batched insert of %d entities: %.0f entities/s unpooled, %.0f entities/s pooled%n",
+            ENTITIES, ENTITIES * 1e9 / plain, ENTITIES * 1e9 / pooled);
+
+        try (Session session = sessionFactory.openSession()) {
+            long count = session.createQuery(
+                "select count(distinct e.id) from PooledSnowflakeEntity e where e.name is null", Long.class
+            ).getSingleResult();
+            assertEquals(2 * ENTITIES, count);
+        }
+    }
+
+    @Test
+    void testParallelBatchedInsert() {
+        persist(ParallelSnowflakeEntity::new); // warm up
+        persist(PooledParallelSnowflakeEntity::new);
+        long plain = persist(ParallelSnowflakeEntity::new);
+        long pooled = persist(PooledParallelSnowflakeEntity::new);
+        System.out.printf("Parallel batched insert of %d entities: %.0f entities/s unpooled, %.0f entities/s pooled%n",
+            ENTITIES, ENTITIES * 1e9 / plain, ENTITIES * 1e9 / pooled);
+
+        try (Session session = sessionFactory.openSession()) {
+            long count = session.createQuery(
+                "select count(distinct e.id) from PooledParallelSnowflakeEntity e", Long.class).getSingleResult();
+            assertEquals(2 * ENTITIES, count);
+        }
+    }
+
+    @Test
+    void testMaxAge() throws InterruptedException {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            PooledSnowflakeEntity first = new PooledSnowflakeEntity();
+            session.persist(first);
+            Thread.sleep(1100);
+            PooledSnowflakeEntity second = new PooledSnowflakeEntity();
+            session.persist(second);
+            session.getTransaction().commit();
+            // the rest of the block of the first entity is older than the default maximum age
+            Snowflake firstId = first.getId();
+            Snowflake secondId = second.getId();
+            assertTrue(secondId.getTimestamp() - firstId.getTimestamp() >= 1000L);
+        }
+    }
+
+    @Test
+    void testBulkInsert() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createNativeQuery("CREATE ALIAS IF NOT EXISTS snowflake_next FOR "
+                + "'io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.nextValue'").executeUpdate();
+            for (int i = 0; i < 100; i++) {
+                PooledSnowflakeEntity entity = new PooledSnowflakeEntity();
+                entity.setName("bulk");
+                session.persist(entity);
+            }
+            session.flush();
+            int inserted = session.createQuery(
+                "insert into PooledSnowflakeEntity (name) select e.name from PooledSnowflakeEntity e where e.name = 'bulk'"
+            ).executeUpdate();
+            assertEquals(100, inserted);
+            session.getTransaction().commit();
+
+            Set<Snowflake> ids = new HashSet<>(session.createQuery(
+                "select e.id from PooledSnowflakeEntity e where e.name = 'bulk'", Snowflake.class).getResultList());
+            assertEquals(200, ids.size());
+        }
+        // keys are scoped to the service registry, not the bare generator name
+        assertThrows(IllegalStateException.class, () -> SnowflakeHibernateGenerator.nextValue("PooledEntitySnowflake"));
+    }
+
+    private static long persist(Supplier<Object> entities) {
+        long start = System.nanoTime();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ENTITIES; i++) {
+                session.persist(entities.get());
+                if (i % BATCH_SIZE == BATCH_SIZE - 1) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,56 @@
+package io.gitlab.k4zoku.snowflake.hibernate.test.entity;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import java.util.Objects;
+
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_DATA_CENTER_ID;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_PARALLEL;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_POOL_SIZE;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_WORKERS;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_WORKER_ID;
+
+@Entity
+@Getter
+@Setter
+@GenericGenerator(
+    name = "PooledParallelEntitySnowflake",
+    strategy = "io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator",
+    parameters = {
+        @Parameter(name = SNOWFLAKE_DATA_CENTER_ID, value = "3"),
+        @Parameter(name = SNOWFLAKE_PARALLEL, value = "true"),
+        @Parameter(name = SNOWFLAKE_WORKER_ID, value = "4"),
+        @Parameter(name = SNOWFLAKE_WORKERS, value = "4"),
+        @Parameter(name = SNOWFLAKE_POOL_SIZE, value = "1000")
+    }
+)
+public class PooledParallelSnowflakeEntity {
+    @Id
+    @GeneratedValue(strategy = javax.persistence.GenerationType.AUTO, generator = "PooledParallelEntitySnowflake")
+    @Column(nullable = false)
+    @Setter(AccessLevel.NONE)
+    private Snowflake id;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        PooledParallelSnowflakeEntity that = (PooledParallelSnowflakeEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
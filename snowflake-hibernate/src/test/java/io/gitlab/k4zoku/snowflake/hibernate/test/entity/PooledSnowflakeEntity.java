@@ -0,0 +1,56 @@
+package io.gitlab.k4zoku.snowflake.hibernate.test.entity;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import java.util.Objects;
+
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_BULK_INSERT_SELECT;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_DATA_CENTER_ID;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_POOL_SIZE;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_WORKER_ID;
+
+@Entity
+@Getter
+@Setter
+@GenericGenerator(
+    name = "PooledEntitySnowflake",
+    strategy = "io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator",
+    parameters = {
+        @Parameter(name = SNOWFLAKE_DATA_CENTER_ID, value = "1"),
+        @Parameter(name = SNOWFLAKE_WORKER_ID, value = "2"),
+        @Parameter(name = SNOWFLAKE_POOL_SIZE, value = "1000"),
+        @Parameter(name = SNOWFLAKE_BULK_INSERT_SELECT, value = "snowflake_next('{generator}')")
+    }
+)
+public class PooledSnowflakeEntity {
+    @Id
+    @GeneratedValue(strategy = javax.persistence.GenerationType.AUTO, generator = "PooledEntitySnowflake")
+    @Column(nullable = false)
+    @Setter(AccessLevel.NONE)
+    private Snowflake id;
+
+    private String name;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        PooledSnowflakeEntity that = (PooledSnowflakeEntity) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
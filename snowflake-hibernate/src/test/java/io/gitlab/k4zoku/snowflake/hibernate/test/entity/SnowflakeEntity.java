@@ -16,6 +16,7 @@ import javax.persistence.Id;
 import java.util.Objects;
 
 import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_DATA_CENTER_ID;
+import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.SNOWFLAKE_WORKER_ID;
 
 @Entity
 @Getter
@@ -24,7 +25,8 @@ import static io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator.S
     name = "TestEntitySnowflake",
     strategy = "io.gitlab.k4zoku.snowflake.hibernate.SnowflakeHibernateGenerator",
     parameters = {
-        @Parameter(name = SNOWFLAKE_DATA_CENTER_ID, value = "1")
+        @Parameter(name = SNOWFLAKE_DATA_CENTER_ID, value = "1"),
+        @Parameter(name = SNOWFLAKE_WORKER_ID, value = "0")
     }
 )
 @TypeDef(
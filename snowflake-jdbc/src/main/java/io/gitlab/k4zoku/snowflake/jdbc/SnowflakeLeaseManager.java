@@ -0,0 +1,455 @@
+package io.gitlab.k4zoku.snowflake.jdbc;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Leases data center IDs and worker IDs from a database table, so that every process gets a unique slot without
+ * configuring IDs by hand.
+ * <p>
+ * Every row of the table is a slot held by an owner until it expires. A free or expired slot is claimed with a
+ * conditional insert or update, so concurrent managers never claim the same slot, and its fencing token is increased
+ * on every claim. A single heartbeat thread renews all leases of the manager in one batched update every
+ * {@code heartbeatInterval}. A lease is lost when a renewal does not find its rows anymore, and expires locally when
+ * no renewal succeeded within the time to live minus the tolerated clock skew.
+ * </p>
+ * <p>
+ * Expiry times are wall-clock milliseconds written by the managers themselves, so the clocks of all managers must
+ * agree within the tolerated clock skew.
+ * </p>
+ * <pre>{@code
+ * SnowflakeLeaseManager manager = SnowflakeLeaseManager.builder(dataSource).build();
+ * manager.createTable();
+ * SnowflakeWorkerLease lease = manager.acquire();
+ * SnowflakeGenerator generator = lease.createGenerator();
+ * }</pre>
+ *
+ * @see SnowflakeWorkerLease
+ */
+public class SnowflakeLeaseManager implements AutoCloseable {
+
+    public static final String DEFAULT_TABLE = "snowflake_worker_lease";
+
+    private final DataSource dataSource;
+    private final String table;
+    private final String owner;
+    private final long ttl; // milliseconds
+    private final long clockSkew; // milliseconds
+    private final long heartbeatInterval; // milliseconds
+    private final SnowflakeLayout layout;
+    private final int minDataCenterId;
+    private final int maxDataCenterId;
+    private final TimestampProvider clock;
+    private final @Nullable Consumer<SnowflakeWorkerLease> leaseLostListener;
+
+    private final Set<SnowflakeWorkerLease> leases = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat; // started with the first lease
+    private boolean closed;
+
+    SnowflakeLeaseManager(
+        DataSource dataSource,
+        String table,
+        String owner,
+        long ttl,
+        long clockSkew,
+        long heartbeatInterval,
+        SnowflakeLayout layout,
+        int minDataCenterId,
+        int maxDataCenterId,
+        TimestampProvider clock,
+        @Nullable Consumer<SnowflakeWorkerLease> leaseLostListener
+    ) {
+        this.dataSource = dataSource;
+        this.table = table;
+        this.owner = owner;
+        this.ttl = ttl;
+        this.clockSkew = clockSkew;
+        this.heartbeatInterval = heartbeatInterval;
+        this.layout = layout;
+        this.minDataCenterId = minDataCenterId;
+        this.maxDataCenterId = maxDataCenterId;
+        this.clock = clock;
+        this.leaseLostListener = leaseLostListener;
+    }
+
+    public static SnowflakeLeaseManagerBuilder builder(@NotNull DataSource dataSource) {
+        return new SnowflakeLeaseManagerBuilder(dataSource);
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public String getTable() {
+        return table;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Gets the leases held by this manager.
+     *
+     * @return A snapshot of the leases.
+     */
+    public List<SnowflakeWorkerLease> getLeases() {
+        return Collections.unmodifiableList(new ArrayList<>(leases));
+    }
+    // </editor-fold>
+
+    /**
+     * Creates the lease table if it does not exist.
+     *
+     * @throws SQLException If the table cannot be created.
+     */
+    public void createTable() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "data_center_id INT NOT NULL, "
+                + "worker_id INT NOT NULL, "
+                + "owner VARCHAR(64) NOT NULL, "
+                + "token BIGINT NOT NULL, "
+                + "expires_at BIGINT NOT NULL, "
+                + "PRIMARY KEY (data_center_id, worker_id))");
+        }
+    }
+
+    /**
+     * Leases a single worker ID.
+     *
+     * @return The lease.
+     * @throws SQLException          If the database fails.
+     * @throws IllegalStateException If every slot is held by another owner.
+     */
+    public SnowflakeWorkerLease acquire() throws SQLException {
+        return acquire(1);
+    }
+
+    /**
+     * Leases a contiguous range of worker IDs of a single data center.
+     *
+     * @param workers The number of worker IDs.
+     * @return The lease.
+     * @throws SQLException          If the database fails.
+     * @throws IllegalStateException If no data center has enough free worker IDs in a row.
+     */
+    public SnowflakeWorkerLease acquire(@Range(from = 1, to = Integer.MAX_VALUE) int workers) throws SQLException {
+        int workerIds = layout.getMaxWorkerId() + 1;
+        if (workers < 1 || workers > workerIds) {
+            throw new IllegalArgumentException("Number of workers must be between 1 and " + workerIds + ".");
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Lease manager is closed.");
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Long, long[]> slots = readSlots(connection); // slot -> {token, expires_at}
+            int dataCenters = maxDataCenterId - minDataCenterId + 1;
+            int windows = workerIds - workers + 1;
+            // start at a random window, so that concurrent managers rarely race for the same slots
+            int start = ThreadLocalRandom.current().nextInt(dataCenters * windows);
+            for (int i = 0; i < dataCenters * windows; i++) {
+                int window = (start + i) % (dataCenters * windows);
+                int dataCenterId = minDataCenterId + window / windows;
+                int workerIdOffset = window % windows;
+                long now = clock.getTimestamp();
+                if (isFree(slots, dataCenterId, workerIdOffset, workers, now)) {
+                    SnowflakeWorkerLease lease = claim(connection, slots, dataCenterId, workerIdOffset, workers, now);
+                    if (lease != null) {
+                        return lease;
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No free slot of " + workers + " worker IDs in data centers "
+            + minDataCenterId + " to " + maxDataCenterId + ".");
+    }
+
+    /**
+     * Renews all leases of this manager in one batched update. The heartbeat thread calls this method every
+     * heartbeat interval. Leases whose slots were taken over are marked lost, leases that could not be renewed in
+     * time expire.
+     *
+     * @throws SQLException If the database fails. Leases keep their deadline until the next successful renewal.
+     */
+    public void renew() throws SQLException {
+        List<SnowflakeWorkerLease> snapshot = new ArrayList<>(leases);
+        try {
+            if (snapshot.isEmpty()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            long now = clock.getTimestamp();
+            long expiresAt = now + ttl;
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (PreparedStatement statement = connection.prepareStatement("UPDATE " + table
+                    + " SET expires_at = ? WHERE data_center_id = ? AND worker_id = ? AND owner = ? AND token = ?")) {
+                    for (SnowflakeWorkerLease lease : snapshot) {
+                        long[] tokens = lease.getTokens();
+                        for (int i = 0; i < tokens.length; i++) {
+                            statement.setLong(1, expiresAt);
+                            statement.setInt(2, lease.getDataCenterId());
+                            statement.setInt(3, lease.getWorkerIdOffset() + i);
+                            statement.setString(4, owner);
+                            statement.setLong(5, tokens[i]);
+                            statement.addBatch();
+                        }
+                    }
+                    int[] counts = statement.executeBatch();
+                    connection.commit();
+                    int index = 0;
+                    for (SnowflakeWorkerLease lease : snapshot) {
+                        boolean renewed = true;
+                        for (int i = 0; i < lease.getWorkers(); i++) {
+                            renewed &= counts[index++] != 0;
+                        }
+                        if (renewed) {
+                            lease.renewed(expiresAt - clockSkew, startNanos + TimeUnit.MILLISECONDS.toNanos(ttl - clockSkew));
+                        } else {
+                            lost(lease);
+                        }
+                    }
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            }
+        } finally {
+            for (SnowflakeWorkerLease lease : snapshot) {
+                if (!lease.isLost() && !lease.isReleased() && !lease.isValid()) {
+                    lost(lease);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the heartbeats and releases all leases.
+     *
+     * @throws SQLException If a lease cannot be released. Its slots expire after the time to live.
+     */
+    @Override
+    public void close() throws SQLException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (heartbeat != null) {
+                heartbeat.shutdownNow();
+            }
+        }
+        SQLException failure = null;
+        for (SnowflakeWorkerLease lease : getLeases()) {
+            try {
+                lease.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    void release(SnowflakeWorkerLease lease) throws SQLException {
+        leases.remove(lease);
+        try (Connection connection = dataSource.getConnection();
+             // expire the rows instead of deleting them, so the fencing tokens of the slots keep growing, and only
+             // after the clock skew, so the slots stay quarantined for owners whose clocks are behind
+             PreparedStatement statement = connection.prepareStatement("UPDATE " + table
+                 + " SET expires_at = ? WHERE data_center_id = ? AND worker_id = ? AND owner = ? AND token = ?")) {
+            long expiresAt = clock.getTimestamp() + clockSkew;
+            long[] tokens = lease.getTokens();
+            for (int i = 0; i < tokens.length; i++) {
+                statement.setLong(1, expiresAt);
+                statement.setInt(2, lease.getDataCenterId());
+                statement.setInt(3, lease.getWorkerIdOffset() + i);
+                statement.setString(4, owner);
+                statement.setLong(5, tokens[i]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // <editor-fold desc="Claiming" defaultstate="collapsed">
+    private Map<Long, long[]> readSlots(Connection connection) throws SQLException {
+        Map<Long, long[]> slots = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT data_center_id, worker_id, token, expires_at FROM "
+            + table + " WHERE data_center_id BETWEEN ? AND ?")) {
+            statement.setInt(1, minDataCenterId);
+            statement.setInt(2, maxDataCenterId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    slots.put(slot(resultSet.getInt(1), resultSet.getInt(2)), new long[]{resultSet.getLong(3), resultSet.getLong(4)});
+                }
+            }
+        }
+        return slots;
+    }
+
+    private static boolean isFree(Map<Long, long[]> slots, int dataCenterId, int workerIdOffset, int workers, long now) {
+        for (int i = 0; i < workers; i++) {
+            long[] slot = slots.get(slot(dataCenterId, workerIdOffset + i));
+            if (slot != null && slot[1] >= now) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Claims all slots of a window in one transaction, or none of them.
+     *
+     * @return The lease, or {@code null} if another owner claimed one of the slots first.
+     */
+    private @Nullable SnowflakeWorkerLease claim(
+        Connection connection,
+        Map<Long, long[]> slots,
+        int dataCenterId,
+        int workerIdOffset,
+        int workers,
+        long now
+    ) throws SQLException {
+        long startNanos = System.nanoTime();
+        long expiresAt = now + ttl;
+        long[] tokens = new long[workers];
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (int i = 0; i < workers; i++) {
+                int workerId = workerIdOffset + i;
+                long[] slot = slots.get(slot(dataCenterId, workerId));
+                boolean claimed = slot == null
+                    ? insert(connection, dataCenterId, workerId, expiresAt)
+                    : update(connection, dataCenterId, workerId, slot[0], now, expiresAt);
+                if (!claimed) {
+                    connection.rollback();
+                    // remember the slot as taken until it expires
+                    slots.put(slot(dataCenterId, workerId), new long[]{slot == null ? 0L : slot[0], expiresAt});
+                    return null;
+                }
+                tokens[i] = slot == null ? 1L : slot[0] + 1;
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        SnowflakeWorkerLease lease = new SnowflakeWorkerLease(this, dataCenterId, workerIdOffset, tokens);
+        lease.renewed(expiresAt - clockSkew, startNanos + TimeUnit.MILLISECONDS.toNanos(ttl - clockSkew));
+        leases.add(lease);
+        startHeartbeat();
+        return lease;
+    }
+
+    private boolean insert(Connection connection, int dataCenterId, int workerId, long expiresAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO " + table
+            + " (data_center_id, worker_id, owner, token, expires_at) VALUES (?, ?, ?, 1, ?)")) {
+            statement.setInt(1, dataCenterId);
+            statement.setInt(2, workerId);
+            statement.setString(3, owner);
+            statement.setLong(4, expiresAt);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (isIntegrityConstraintViolation(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private boolean update(Connection connection, int dataCenterId, int workerId, long token, long now, long expiresAt) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("UPDATE " + table
+            + " SET owner = ?, token = ?, expires_at = ? WHERE data_center_id = ? AND worker_id = ? AND token = ? AND expires_at < ?")) {
+            statement.setString(1, owner);
+            statement.setLong(2, token + 1);
+            statement.setLong(3, expiresAt);
+            statement.setInt(4, dataCenterId);
+            statement.setInt(5, workerId);
+            statement.setLong(6, token);
+            statement.setLong(7, now);
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    private static boolean isIntegrityConstraintViolation(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("23");
+    }
+
+    private static long slot(int dataCenterId, int workerId) {
+        return (long) dataCenterId << 32 | workerId;
+    }
+    // </editor-fold>
+
+    private void lost(SnowflakeWorkerLease lease) {
+        if (lease.lose()) {
+            leases.remove(lease);
+            if (leaseLostListener != null) {
+                leaseLostListener.accept(lease);
+            }
+        }
+    }
+
+    private synchronized void startHeartbeat() {
+        if (heartbeat != null || closed || heartbeatInterval == 0) {
+            return;
+        }
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "snowflake-lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                renew();
+            } catch (SQLException | RuntimeException ignored) {
+                // leases keep their deadline and expire if the database stays unavailable
+            }
+        }, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+        heartbeat = executor;
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeLeaseManager[table=" + table + ", owner=" + owner + ", leases=" + leases.size() + "]";
+    }
+}
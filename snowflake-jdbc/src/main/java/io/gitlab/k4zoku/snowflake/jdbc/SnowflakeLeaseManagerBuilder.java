@@ -0,0 +1,124 @@
+package io.gitlab.k4zoku.snowflake.jdbc;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class SnowflakeLeaseManagerBuilder {
+    private final DataSource dataSource;
+    private String table = SnowflakeLeaseManager.DEFAULT_TABLE;
+    private String owner = UUID.randomUUID().toString();
+    private long ttl = TimeUnit.SECONDS.toMillis(30);
+    private long clockSkew = TimeUnit.SECONDS.toMillis(1);
+    private long heartbeatInterval = -1L; // a third of the time to live
+    private SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+    private int minDataCenterId = 0;
+    private int maxDataCenterId = -1; // the maximum data center ID of the layout
+    private TimestampProvider clock = TimestampProvider.system();
+    private Consumer<SnowflakeWorkerLease> leaseLostListener = null;
+
+    SnowflakeLeaseManagerBuilder(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeLeaseManagerBuilder table(@NotNull String table) {
+        this.table = table;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeLeaseManagerBuilder owner(@NotNull String owner) {
+        this.owner = owner;
+        return this;
+    }
+
+    @Contract("_, _ -> this")
+    public SnowflakeLeaseManagerBuilder ttl(@Range(from = 1, to = Long.MAX_VALUE) long ttl, @NotNull TimeUnit unit) {
+        this.ttl = unit.toMillis(ttl);
+        return this;
+    }
+
+    @Contract("_, _ -> this")
+    public SnowflakeLeaseManagerBuilder clockSkew(@Range(from = 0, to = Long.MAX_VALUE) long clockSkew, @NotNull TimeUnit unit) {
+        this.clockSkew = unit.toMillis(clockSkew);
+        return this;
+    }
+
+    /**
+     * Sets the delay between two renewals. Defaults to a third of the time to live. A delay of {@code 0} disables the
+     * heartbeat thread, leaving renewals to {@link SnowflakeLeaseManager#renew()}.
+     *
+     * @param heartbeatInterval The delay.
+     * @param unit              The unit of the delay.
+     * @return This builder.
+     */
+    @Contract("_, _ -> this")
+    public SnowflakeLeaseManagerBuilder heartbeatInterval(@Range(from = 0, to = Long.MAX_VALUE) long heartbeatInterval, @NotNull TimeUnit unit) {
+        this.heartbeatInterval = unit.toMillis(heartbeatInterval);
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeLeaseManagerBuilder layout(@NotNull SnowflakeLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    /**
+     * Restricts the leased slots to a range of data center IDs. Defaults to all data center IDs of the layout.
+     *
+     * @param minDataCenterId The smallest data center ID.
+     * @param maxDataCenterId The largest data center ID.
+     * @return This builder.
+     */
+    @Contract("_, _ -> this")
+    public SnowflakeLeaseManagerBuilder dataCenterIds(
+        @Range(from = 0, to = Integer.MAX_VALUE) int minDataCenterId,
+        @Range(from = 0, to = Integer.MAX_VALUE) int maxDataCenterId
+    ) {
+        this.minDataCenterId = minDataCenterId;
+        this.maxDataCenterId = maxDataCenterId;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeLeaseManagerBuilder clock(@NotNull TimestampProvider clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeLeaseManagerBuilder onLeaseLost(@Nullable Consumer<SnowflakeWorkerLease> leaseLostListener) {
+        this.leaseLostListener = leaseLostListener;
+        return this;
+    }
+
+    @Contract("-> new")
+    public SnowflakeLeaseManager build() {
+        int maxDataCenterId = this.maxDataCenterId < 0 ? layout.getMaxDataCenterId() : this.maxDataCenterId;
+        if (minDataCenterId > maxDataCenterId || maxDataCenterId > layout.getMaxDataCenterId()) {
+            throw new IllegalArgumentException("Data center IDs out of range.");
+        }
+        if (owner.isEmpty() || owner.length() > 64) {
+            throw new IllegalArgumentException("Owner must have 1 to 64 characters.");
+        }
+        if (ttl < 1 || clockSkew < 0 || clockSkew >= ttl / 2) {
+            throw new IllegalArgumentException("Clock skew must be less than half of the time to live.");
+        }
+        long heartbeatInterval = this.heartbeatInterval < 0 ? Math.max(1L, ttl / 3) : this.heartbeatInterval;
+        if (heartbeatInterval >= ttl - clockSkew) {
+            throw new IllegalArgumentException("Heartbeat interval must be less than the time to live minus the clock skew.");
+        }
+        return new SnowflakeLeaseManager(dataSource, table, owner, ttl, clockSkew, heartbeatInterval, layout,
+            minDataCenterId, maxDataCenterId, clock, leaseLostListener);
+    }
+}
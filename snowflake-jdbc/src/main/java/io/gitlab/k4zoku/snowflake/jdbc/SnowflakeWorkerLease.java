@@ -0,0 +1,244 @@
+package io.gitlab.k4zoku.snowflake.jdbc;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactoryBuilder;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorkerFactory;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.SQLException;
+
+/**
+ * A lease on a data center ID and a contiguous range of worker IDs, acquired from a {@link SnowflakeLeaseManager}.
+ * <p>
+ * The lease is kept alive by the heartbeats of its manager. It is lost when a renewal finds that another owner took
+ * its slots, or when no renewal succeeded within the time to live minus the tolerated clock skew. Generators created
+ * through a lease are fenced: once the lease is lost, they fail with an {@link IllegalStateException} instead of
+ * issuing snowflakes that may collide with those of the new owner.
+ * </p>
+ * <pre>{@code
+ * try (SnowflakeWorkerLease lease = manager.acquire()) {
+ *     SnowflakeGenerator generator = lease.createGenerator();
+ *     // ...
+ * }
+ * }</pre>
+ */
+public final class SnowflakeWorkerLease implements AutoCloseable {
+
+    private final SnowflakeLeaseManager manager;
+    private final int dataCenterId;
+    private final int workerIdOffset;
+    private final int workers;
+    private final long[] tokens;
+
+    private volatile long expiresAt; // local deadline of the lease (milliseconds since unix epoch)
+    private volatile long expiresAtNanos; // the same deadline on the monotonic clock
+    private volatile boolean lost;
+    private volatile boolean released;
+
+    SnowflakeWorkerLease(SnowflakeLeaseManager manager, int dataCenterId, int workerIdOffset, long[] tokens) {
+        this.manager = manager;
+        this.dataCenterId = dataCenterId;
+        this.workerIdOffset = workerIdOffset;
+        this.workers = tokens.length;
+        this.tokens = tokens;
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public int getDataCenterId() {
+        return dataCenterId;
+    }
+
+    /**
+     * Gets the first leased worker ID.
+     *
+     * @return The worker ID.
+     */
+    public int getWorkerId() {
+        return workerIdOffset;
+    }
+
+    /**
+     * Gets the first leased worker ID. The lease holds the worker IDs from {@code getWorkerIdOffset()} to
+     * {@code getWorkerIdOffset() + getWorkers() - 1}.
+     *
+     * @return The worker ID offset.
+     */
+    public int getWorkerIdOffset() {
+        return workerIdOffset;
+    }
+
+    /**
+     * Gets the number of leased worker IDs.
+     *
+     * @return The number of worker IDs.
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Gets the fencing token of a leased worker ID. The token grows every time the slot changes owner, so storage that
+     * remembers the largest token it has seen can reject writes of a previous owner.
+     *
+     * @param workerId The worker ID.
+     * @return The fencing token.
+     */
+    public long getToken(int workerId) {
+        int index = workerId - workerIdOffset;
+        if (index < 0 || index >= workers) {
+            throw new IllegalArgumentException("Worker ID " + workerId + " is not leased.");
+        }
+        return tokens[index];
+    }
+
+    /**
+     * Gets the local deadline of the lease. Generators of the lease fail from this instant on unless the lease is
+     * renewed.
+     *
+     * @return The deadline in milliseconds since the unix epoch.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Checks whether the lease is still held.
+     *
+     * @return {@code false} once the lease is lost, expired or released.
+     */
+    public boolean isValid() {
+        return !lost && !released && System.nanoTime() - expiresAtNanos < 0;
+    }
+
+    public boolean isLost() {
+        return lost;
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="Generators" defaultstate="collapsed">
+
+    /**
+     * Wraps a timestamp provider so that it fails while the lease is not held. Every snowflake reads the timestamp
+     * provider of its generator, so a fenced provider stops the generator as soon as the lease is lost.
+     *
+     * @param timestampProvider The timestamp provider to wrap.
+     * @return The fenced timestamp provider.
+     */
+    public TimestampProvider fence(@NotNull TimestampProvider timestampProvider) {
+        return () -> {
+            long timestamp = timestampProvider.getTimestamp();
+            if (lost || released || timestamp >= expiresAt) {
+                throw new IllegalStateException(String.format(
+                    "Lease of data center ID %d and worker IDs %d to %d is not held.",
+                    dataCenterId, workerIdOffset, workerIdOffset + workers - 1));
+            }
+            return timestamp;
+        };
+    }
+
+    /**
+     * Configures a generator factory builder with the data center ID of the lease and a
+     * {@link #fence(TimestampProvider) fenced} timestamp provider.
+     *
+     * @param builder           The builder.
+     * @param timestampProvider The timestamp provider to fence.
+     * @return The builder.
+     */
+    @Contract("_, _ -> param1")
+    public SnowflakeGeneratorFactoryBuilder configure(
+        @NotNull SnowflakeGeneratorFactoryBuilder builder,
+        @NotNull TimestampProvider timestampProvider
+    ) {
+        return builder
+            .dataCenterId(dataCenterId)
+            .timestampProvider(fence(timestampProvider))
+            .layout(manager.getLayout());
+    }
+
+    /**
+     * Configures a generator factory builder with the data center ID of the lease and a fenced system clock.
+     *
+     * @param builder The builder.
+     * @return The builder.
+     * @see #configure(SnowflakeGeneratorFactoryBuilder, TimestampProvider)
+     */
+    @Contract("_ -> param1")
+    public SnowflakeGeneratorFactoryBuilder configure(@NotNull SnowflakeGeneratorFactoryBuilder builder) {
+        return configure(builder, TimestampProvider.system());
+    }
+
+    /**
+     * Creates a fenced generator for the first leased worker ID, with the default epoch and the system clock.
+     *
+     * @return The generator.
+     */
+    public SnowflakeGenerator createGenerator() {
+        return configure(SnowflakeGeneratorFactory.builder().epoch(SnowflakeGenerator.getDefaultEpoch()))
+            .build()
+            .create(workerIdOffset);
+    }
+
+    /**
+     * Creates a worker factory whose workers generate with the leased worker IDs, for example for a
+     * {@link io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator} of {@link #getWorkers()} workers.
+     *
+     * @param builder The builder of the generator factory, {@link #configure(SnowflakeGeneratorFactoryBuilder)
+     *                configured} by this method.
+     * @return The worker factory.
+     */
+    public SnowflakeWorkerFactory createWorkerFactory(@NotNull SnowflakeGeneratorFactoryBuilder builder) {
+        return new SnowflakeWorkerFactory(workerIdOffset, workers, configure(builder).build());
+    }
+    // </editor-fold>
+
+    void renewed(long expiresAt, long expiresAtNanos) {
+        this.expiresAt = expiresAt;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    long[] getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Marks the lease lost.
+     *
+     * @return {@code true} if the lease was held until now.
+     */
+    boolean lose() {
+        if (lost || released) {
+            return false;
+        }
+        lost = true;
+        return true;
+    }
+
+    boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Releases the lease, freeing its slots for other owners once the tolerated clock skew has passed, so that an owner
+     * whose clock is behind cannot issue the timestamps this lease just issued. Its generators stop working.
+     *
+     * @throws SQLException If the slots cannot be freed. The lease is released locally regardless and its slots
+     *                      expire after the time to live.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (released) {
+            return;
+        }
+        released = true;
+        manager.release(this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeWorkerLease[dataCenterId=%d, workerIds=%d..%d, valid=%s]",
+            dataCenterId, workerIdOffset, workerIdOffset + workers - 1, isValid());
+    }
+}
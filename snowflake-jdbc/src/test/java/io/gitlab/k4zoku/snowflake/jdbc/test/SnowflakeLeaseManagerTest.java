@@ -0,0 +1,192 @@
+package io.gitlab.k4zoku.snowflake.jdbc.test;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.jdbc.SnowflakeLeaseManager;
+import io.gitlab.k4zoku.snowflake.jdbc.SnowflakeWorkerLease;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorkerFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeLeaseManagerTest {
+
+    // 2 data center IDs and 4 worker IDs
+    private static final SnowflakeLayout LAYOUT = new SnowflakeLayout(41, 1, 2, 19);
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:lease;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + SnowflakeLeaseManager.DEFAULT_TABLE);
+        }
+    }
+
+    private SnowflakeLeaseManager manager(AtomicLong clock) throws SQLException {
+        return manager(clock, 0, 1);
+    }
+
+    private SnowflakeLeaseManager manager(AtomicLong clock, int minDataCenterId, int maxDataCenterId) throws SQLException {
+        SnowflakeLeaseManager manager = SnowflakeLeaseManager.builder(dataSource)
+            .layout(LAYOUT)
+            .dataCenterIds(minDataCenterId, maxDataCenterId)
+            .ttl(1, TimeUnit.SECONDS)
+            .clockSkew(100, TimeUnit.MILLISECONDS)
+            .heartbeatInterval(0, TimeUnit.MILLISECONDS)
+            .clock(clock::get)
+            .build();
+        manager.createTable();
+        return manager;
+    }
+
+    @Test
+    void testUniqueSlots() throws SQLException {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        try (SnowflakeLeaseManager first = manager(clock); SnowflakeLeaseManager second = manager(clock)) {
+            Set<Long> slots = new HashSet<>();
+            List<SnowflakeWorkerLease> leases = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                SnowflakeWorkerLease lease = (i % 2 == 0 ? first : second).acquire();
+                assertTrue(slots.add((long) lease.getDataCenterId() << 32 | lease.getWorkerId()), "duplicate " + lease);
+                assertEquals(1L, lease.getToken(lease.getWorkerId()));
+                leases.add(lease);
+            }
+            assertThrows(IllegalStateException.class, first::acquire);
+            assertEquals(4, second.getLeases().size());
+
+            SnowflakeWorkerLease released = leases.get(3);
+            released.close();
+            assertFalse(released.isValid());
+            // quarantined for the clock skew
+            assertThrows(IllegalStateException.class, first::acquire);
+            clock.addAndGet(101);
+            SnowflakeWorkerLease lease = first.acquire();
+            assertEquals(released.getDataCenterId(), lease.getDataCenterId());
+            assertEquals(released.getWorkerId(), lease.getWorkerId());
+            assertEquals(2L, lease.getToken(lease.getWorkerId()));
+        }
+    }
+
+    @Test
+    void testRange() throws SQLException {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        try (SnowflakeLeaseManager manager = manager(clock, 0, 0)) {
+            SnowflakeWorkerLease range = manager.acquire(3);
+            assertEquals(3, range.getWorkers());
+            SnowflakeWorkerLease single = manager.acquire();
+            assertTrue(range.getWorkerIdOffset() > single.getWorkerId() || range.getWorkerIdOffset() + 3 <= single.getWorkerId());
+            assertThrows(IllegalStateException.class, manager::acquire);
+            single.close();
+            assertThrows(IllegalStateException.class, manager::acquire);
+            clock.addAndGet(101);
+            assertThrows(IllegalStateException.class, () -> manager.acquire(2));
+
+            SnowflakeWorkerFactory workerFactory = range.createWorkerFactory(SnowflakeGeneratorFactory.builder().epoch(0));
+            Set<Long> workerIds = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                workerFactory.newThread(() -> {
+                });
+            }
+            for (SnowflakeGenerator generator : workerFactory.getGenerators()) {
+                assertEquals(range.getDataCenterId(), generator.getDataCenterId());
+                workerIds.add(generator.getWorkerId());
+                generator.generate();
+            }
+            assertEquals(3, workerIds.size());
+            for (long workerId : workerIds) {
+                assertTrue(workerId >= range.getWorkerIdOffset() && workerId < range.getWorkerIdOffset() + 3);
+            }
+        }
+    }
+
+    @Test
+    void testFencing() throws SQLException {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        AtomicLong otherClock = new AtomicLong(clock.get());
+        AtomicReference<SnowflakeWorkerLease> lostLease = new AtomicReference<>();
+        try (SnowflakeLeaseManager manager = SnowflakeLeaseManager.builder(dataSource)
+            .layout(LAYOUT)
+            .dataCenterIds(1, 1)
+            .ttl(1, TimeUnit.SECONDS)
+            .clockSkew(100, TimeUnit.MILLISECONDS)
+            .heartbeatInterval(0, TimeUnit.MILLISECONDS)
+            .clock(clock::get)
+            .onLeaseLost(lostLease::set)
+            .build();
+             SnowflakeLeaseManager other = manager(otherClock, 1, 1)) {
+            manager.createTable();
+            SnowflakeWorkerLease lease = manager.acquire(4);
+            SnowflakeGenerator generator = lease.configure(SnowflakeGeneratorFactory.builder(), clock::get).build().create(0);
+            generator.generate();
+            clock.addAndGet(500);
+            manager.renew();
+            assertTrue(lease.isValid());
+            generator.generate();
+
+            // the other manager sees the slots expired and takes them over
+            otherClock.set(clock.get() + 2000);
+            SnowflakeWorkerLease stolen = other.acquire(4);
+            assertEquals(1, stolen.getDataCenterId());
+            assertEquals(2L, stolen.getToken(0));
+
+            manager.renew();
+            assertTrue(lease.isLost());
+            assertSame(lease, lostLease.get());
+            assertTrue(manager.getLeases().isEmpty());
+            assertThrows(IllegalStateException.class, generator::generate);
+        }
+    }
+
+    @Test
+    void testExpiry() throws SQLException, InterruptedException {
+        try (SnowflakeLeaseManager manager = SnowflakeLeaseManager.builder(dataSource)
+            .layout(LAYOUT)
+            .ttl(300, TimeUnit.MILLISECONDS)
+            .clockSkew(50, TimeUnit.MILLISECONDS)
+            .heartbeatInterval(0, TimeUnit.MILLISECONDS)
+            .build()) {
+            manager.createTable();
+            SnowflakeWorkerLease lease = manager.acquire();
+            SnowflakeGenerator generator = lease.createGenerator();
+            generator.generate();
+            Thread.sleep(300);
+            assertFalse(lease.isValid());
+            assertThrows(IllegalStateException.class, generator::generate);
+        }
+    }
+
+    @Test
+    void testHeartbeat() throws SQLException, InterruptedException {
+        try (SnowflakeLeaseManager manager = SnowflakeLeaseManager.builder(dataSource)
+            .layout(LAYOUT)
+            .ttl(600, TimeUnit.MILLISECONDS)
+            .clockSkew(100, TimeUnit.MILLISECONDS)
+            .build()) {
+            manager.createTable();
+            SnowflakeWorkerLease lease = manager.acquire();
+            SnowflakeGenerator generator = lease.createGenerator();
+            long expiresAt = lease.getExpiresAt();
+            Thread.sleep(1200);
+            assertTrue(lease.isValid());
+            assertTrue(lease.getExpiresAt() > expiresAt);
+            generator.generate();
+        }
+    }
+}
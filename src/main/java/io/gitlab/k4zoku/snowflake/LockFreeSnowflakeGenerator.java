@@ -0,0 +1,141 @@
+package io.gitlab.k4zoku.snowflake;
+
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A {@link SnowflakeGenerator} that never blocks on a monitor.
+ * <p>
+ * The timestamp and the sequence of the last generated snowflake are kept together in a single 64-bit state word,
+ * so each snowflake is claimed with one compare-and-set on that word. Threads that lose the race simply retry with the
+ * fresh state, which keeps the guarantees of {@link SnowflakeGenerator}: snowflakes are unique, monotonically
+ * increasing per generator, and a clock that moved backwards is handled by the clock regression policy.
+ * </p>
+ * <p>
+ * When the sequence of the current millisecond is exhausted, every caller waits for the next millisecond on its own
+ * instead of queueing behind the monitor.
+ * </p>
+ *
+ * @see SnowflakeGeneratorFactoryBuilder#lockFree(boolean)
+ */
+public class LockFreeSnowflakeGenerator extends SnowflakeGenerator {
+
+    private static final long serialVersionUID = 0L;
+
+    private static final AtomicLongFieldUpdater<SnowflakeGenerator> STATE =
+        AtomicLongFieldUpdater.newUpdater(SnowflakeGenerator.class, "state");
+
+    /**
+     * Create a lock-free snowflake generator with custom epoch, timestamp provider and layout.
+     *
+     * @param epoch             The epoch of the snowflake generator. (milliseconds since unix epoch)
+     * @param dataCenterId      The data center ID of the snowflake generator. Out of range value will be truncated.
+     * @param workerId          The worker ID of the snowflake generator. Out of range value will be truncated.
+     * @param timestampProvider The timestamp provider of the snowflake generator.
+     * @param layout            The layout of the snowflakes generated by the snowflake generator.
+     */
+    public LockFreeSnowflakeGenerator(
+        @Range(from = 0, to = Long.MAX_VALUE) long epoch,
+        @Range(from = 0, to = Integer.MAX_VALUE) int dataCenterId,
+        @Range(from = 0, to = Integer.MAX_VALUE) int workerId,
+        @Nullable TimestampProvider timestampProvider,
+        @NotNull SnowflakeLayout layout
+    ) {
+        super(epoch, dataCenterId, workerId, timestampProvider, layout);
+    }
+
+    /**
+     * Create a lock-free snowflake generator with custom epoch and timestamp provider.
+     *
+     * @param epoch             The epoch of the snowflake generator. (milliseconds since unix epoch)
+     * @param dataCenterId      The data center ID of the snowflake generator. Out of range value will be truncated.
+     * @param workerId          The worker ID of the snowflake generator. Out of range value will be truncated.
+     * @param timestampProvider The timestamp provider of the snowflake generator.
+     */
+    public LockFreeSnowflakeGenerator(
+        @Range(from = 0, to = Long.MAX_VALUE) long epoch,
+        @Range(from = 0, to = MAX_DATA_CENTER_ID) int dataCenterId,
+        @Range(from = 0, to = MAX_WORKER_ID) int workerId,
+        @Nullable TimestampProvider timestampProvider
+    ) {
+        super(epoch, dataCenterId, workerId, timestampProvider);
+    }
+
+    /**
+     * Create a lock-free snowflake generator with custom epoch.
+     *
+     * @param epoch        The epoch of the snowflake generator. (milliseconds since unix epoch)
+     * @param dataCenterId The data center ID of the snowflake generator. Out of range value will be truncated.
+     * @param workerId     The worker ID of the snowflake generator. Out of range value will be truncated.
+     */
+    public LockFreeSnowflakeGenerator(
+        @Range(from = 0, to = Long.MAX_VALUE) long epoch,
+        @Range(from = 0, to = MAX_DATA_CENTER_ID) int dataCenterId,
+        @Range(from = 0, to = MAX_WORKER_ID) int workerId
+    ) {
+        super(epoch, dataCenterId, workerId);
+    }
+
+    /**
+     * Create a lock-free snowflake generator with default epoch and timestamp provider.
+     *
+     * @param dataCenterId The data center ID of the snowflake generator. Out of range value will be truncated.
+     * @param workerId     The worker ID of the snowflake generator. Out of range value will be truncated.
+     */
+    public LockFreeSnowflakeGenerator(
+        @Range(from = 0, to = MAX_DATA_CENTER_ID) int dataCenterId,
+        @Range(from = 0, to = MAX_WORKER_ID) int workerId
+    ) {
+        super(dataCenterId, workerId);
+    }
+
+    /**
+     * Generates {@code length} snowflakes into the given array, starting at {@code offset}.
+     * <p>
+     * Sequence numbers are reserved with one compare-and-set per millisecond the run spans, so the run is contiguous
+     * within each millisecond but other callers may interleave at millisecond boundaries.
+     * </p>
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     * @throws IndexOutOfBoundsException If {@code offset} or {@code length} is out of the bounds of the array.
+     */
+    @Override
+    public void generate(long[] values, int offset, int length) {
+        fill(values, offset, length);
+    }
+
+    @Override
+    public void generate(LongBuffer buffer) {
+        fill(buffer);
+    }
+
+    /**
+     * Reserves up to {@code count} consecutive sequence numbers within a single timestamp with a compare-and-set loop.
+     * The state is always read before the clock, so a lost race is never mistaken for the clock moving backwards.
+     *
+     * @param count The maximum number of sequence numbers to reserve, at least 1.
+     * @return The state of the first reserved sequence number.
+     */
+    @Override
+    protected long advance(int count) {
+        long current;
+        long next;
+        do {
+            current = state;
+            next = nextState(current, count);
+        } while (!STATE.compareAndSet(this, current, next));
+        return firstState(current, next);
+    }
+
+    @Override
+    boolean restore(long expected, long state) {
+        return STATE.compareAndSet(this, expected, state);
+    }
+}
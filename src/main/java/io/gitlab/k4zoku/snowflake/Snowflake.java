@@ -1,8 +1,8 @@
 package io.gitlab.k4zoku.snowflake;
 
+import io.gitlab.k4zoku.snowflake.codec.SnowflakeCodec;
 import org.jetbrains.annotations.Range;
 
-import java.text.MessageFormat;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
@@ -16,6 +16,8 @@ public class Snowflake extends Number implements Comparable<Snowflake>, Formatta
 
     private static final long serialVersionUID = 0L;
 
+    private static final String FORMATTED_PATTERN = formattedPattern(1, false, "0"); // [%24s] @%02d^%02d #%04d
+
     private final long value;
 
     public Snowflake() {
@@ -34,6 +36,29 @@ public class Snowflake extends Number implements Comparable<Snowflake>, Formatta
         return new Snowflake(Long.parseLong(value));
     }
 
+    /**
+     * Decodes a snowflake encoded with a {@link SnowflakeCodec}.
+     *
+     * @param value The encoded snowflake.
+     * @param codec The codec the snowflake was encoded with.
+     * @return The snowflake.
+     * @throws NumberFormatException If the value is not a valid encoding.
+     */
+    public static Snowflake of(CharSequence value, SnowflakeCodec codec) {
+        return new Snowflake(codec.decode(value));
+    }
+
+    /**
+     * Recovers a snowflake from its storage key.
+     *
+     * @param key      The key.
+     * @param spreader The spreader the key was created with.
+     * @return The snowflake.
+     */
+    public static Snowflake ofKey(long key, SnowflakeKeySpreader spreader) {
+        return new Snowflake(spreader.toValue(key));
+    }
+
     @Range(from = 0, to = Long.MAX_VALUE)
     public long getTimestamp(@Range(from = 0, to = Long.MAX_VALUE) long epoch) {
         return ((value & TIMESTAMP_MASK) >>> TIMESTAMP_SHIFT) + epoch;
@@ -59,6 +84,36 @@ public class Snowflake extends Number implements Comparable<Snowflake>, Formatta
         return (short) (value & SEQUENCE_MASK);
     }
 
+    @Range(from = 0, to = Long.MAX_VALUE)
+    public long getTimestamp(SnowflakeLayout layout, @Range(from = 0, to = Long.MAX_VALUE) long epoch) {
+        return layout.getTimestamp(value, epoch);
+    }
+
+    @Range(from = 0, to = Integer.MAX_VALUE)
+    public int getDataCenterId(SnowflakeLayout layout) {
+        return layout.getDataCenterId(value);
+    }
+
+    @Range(from = 0, to = Integer.MAX_VALUE)
+    public int getWorkerId(SnowflakeLayout layout) {
+        return layout.getWorkerId(value);
+    }
+
+    @Range(from = 0, to = Integer.MAX_VALUE)
+    public int getSequence(SnowflakeLayout layout) {
+        return layout.getSequence(value);
+    }
+
+    /**
+     * Converts this snowflake to a storage key that spreads inserts over several index ranges.
+     *
+     * @param spreader The spreader to convert with.
+     * @return The key.
+     */
+    public long toKey(SnowflakeKeySpreader spreader) {
+        return spreader.toKey(value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
@@ -81,6 +136,26 @@ public class Snowflake extends Number implements Comparable<Snowflake>, Formatta
         return Long.toString(value);
     }
 
+    /**
+     * Encodes this snowflake with a {@link SnowflakeCodec}.
+     *
+     * @param codec The codec.
+     * @return The encoded snowflake, {@link SnowflakeCodec#getWidth()} characters long.
+     */
+    public String toString(SnowflakeCodec codec) {
+        return codec.encode(value);
+    }
+
+    /**
+     * Formats the components of this snowflake as {@code [timestamp] @dataCenterId^workerId #sequence}.
+     *
+     * @return The formatted snowflake.
+     * @see #formatTo(Formatter, int, int, int)
+     */
+    public String toFormattedString() {
+        return String.format("%#s", this);
+    }
+
     @Override
     public int compareTo(Snowflake o) {
         return Long.compare(value, o.value);
@@ -113,11 +188,18 @@ public class Snowflake extends Number implements Comparable<Snowflake>, Formatta
         int multiple = leftJustify ? -1 : 1;
         if (alternate) {
             boolean upperCase = (flags ^ FormattableFlags.UPPERCASE) == 0;
-            String format = MessageFormat.format("[%{0}{1}] @%{2}{3}d^%{4}{5}d #%{6}{7}d", multiple * 24, upperCase ? 'S' : 's', precision < 0 ? '0' : '\0', multiple * 2, precision < 0 ? '0' : '\0', multiple * 2, precision < 0 ? '0' : '\0', multiple * 4);
+            String format = multiple == 1 && !upperCase && precision < 0
+                ? FORMATTED_PATTERN
+                : formattedPattern(multiple, upperCase, precision < 0 ? "0" : "\0");
             OffsetDateTime timestamp = Instant.ofEpochMilli(getTimestamp()).atOffset(ZoneOffset.UTC);
             formatter.format(format, timestamp, getDataCenterId(), getWorkerId(), getSequence());
         } else {
-            formatter.format(MessageFormat.format("%{0}s", multiple * width), Long.toUnsignedString(value));
+            formatter.format(width == -1 ? "%s" : "%" + multiple * width + "s", Long.toUnsignedString(value));
         }
     }
+
+    private static String formattedPattern(int multiple, boolean upperCase, String zero) {
+        return "[%" + multiple * 24 + (upperCase ? 'S' : 's') + "] @%" + zero + multiple * 2 + "d^%" + zero + multiple * 2
+            + "d #%" + zero + multiple * 4 + "d";
+    }
 }
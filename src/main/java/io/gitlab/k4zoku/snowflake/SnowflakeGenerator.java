@@ -1,16 +1,22 @@
 package io.gitlab.k4zoku.snowflake;
 
 import io.gitlab.k4zoku.snowflake.common.Generator;
+import io.gitlab.k4zoku.snowflake.metrics.SnowflakeGeneratorMetrics;
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
 import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import io.gitlab.k4zoku.snowflake.time.WaitStrategy;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
 import java.io.Serializable;
+import java.nio.LongBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>
@@ -23,6 +29,10 @@ import java.util.Spliterators;
  * This is an implementation of <a href="https://github.com/twitter/snowflake">Twitter Snowflake</a> ID generator on Java.
  * This class is <b>thread-safe</b>.
  * </p>
+ * <p>
+ * The structure below is the {@link SnowflakeLayout#DEFAULT default layout}, other layouts can be passed to the
+ * constructor or to {@link SnowflakeGeneratorFactoryBuilder#layout(SnowflakeLayout)}.
+ * </p>
  * <details>
  *     <summary>Structure of a snowflake:</summary>
  *     <pre>
@@ -109,6 +119,7 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
 
     // <editor-fold desc="Constants" defaultstate="collapsed">
     private static final long serialVersionUID = 0L;
+    private static final long EXHAUSTED = Long.MIN_VALUE; // returned instead of a state when the sequence is exhausted
 
     // <editor-fold desc="Component Lengths" defaultstate="collapsed">
     public static final int TIMESTAMP_BITS = 41;
@@ -166,17 +177,73 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
     private final long epoch;
     private final int dataCenterId;
     private final int workerId;
-    private volatile int sequence = 0;
+    private final SnowflakeLayout layout;
+
+    private final long template; // pre-computed snowflake template with initialized data center ID and worker ID
 
-    private final int template; // pre-computed snowflake template with initialized data center ID and worker ID, max length: 12 + 5 + 5 = 22 bits
+    // <editor-fold desc="Layout components copied for the hot path" defaultstate="collapsed">
+    private final int sequenceBits;
+    private final long sequenceMask;
+    private final int maxSequence;
+    private final int timestampShift;
+    private final long timestampUnit;
+    private final long maxTimestamp;
+    // </editor-fold>
 
-    private volatile long lastTimestamp = -1L;
+    /*
+     * Timestamp and sequence of the last generated snowflake packed into a single word:
+     * (timestamp - epoch) / timestampUnit << sequenceBits | sequence. Starts with a timestamp of -1 and an exhausted
+     * sequence.
+     */
+    volatile long state = -1L;
     private transient TimestampProvider timestampProvider;
+    private ClockRegressionPolicy clockRegressionPolicy = ClockRegressionPolicy.fail();
+    private WaitStrategy waitStrategy = WaitStrategy.virtualThreadAware();
+    private transient volatile SnowflakeGeneratorMetrics metrics; // null while metrics are disabled
+    private transient volatile SnowflakeStateFile stateFile; // null without a state file
+    private final ReentrantLock bulkLock = new ReentrantLock(); // serializes bulk generation, not held by generate()
 
     // </editor-fold>
 
     // <editor-fold desc="Constructors">
 
+    /**
+     * Create a snowflake generator with custom epoch, timestamp provider and layout.
+     *
+     * @param epoch             The epoch of the snowflake generator. (milliseconds since unix epoch)
+     * @param dataCenterId      The data center ID of the snowflake generator. Out of range value will be truncated.
+     * @param workerId          The worker ID of the snowflake generator. Out of range value will be truncated.
+     * @param timestampProvider The timestamp provider of the snowflake generator.
+     * @param layout            The layout of the snowflakes generated by the snowflake generator.
+     * @throws IllegalArgumentException If the timestamp provider is already past the last timestamp the layout can
+     *                                  hold after the epoch.
+     */
+    public SnowflakeGenerator(
+        @Range(from = 0, to = Long.MAX_VALUE) long epoch,
+        @Range(from = 0, to = Integer.MAX_VALUE) int dataCenterId,
+        @Range(from = 0, to = Integer.MAX_VALUE) int workerId,
+        @Nullable TimestampProvider timestampProvider,
+        @NotNull SnowflakeLayout layout
+    ) {
+        this.epoch = epoch;
+        this.layout = layout;
+        this.dataCenterId = dataCenterId & layout.getMaxDataCenterId();
+        this.workerId = workerId & layout.getMaxWorkerId();
+        this.timestampProvider = timestampProvider == null ? DEFAULT_TIMESTAMP_PROVIDER : timestampProvider;
+        this.template = layout.compose(0L, this.dataCenterId, this.workerId, 0);
+        this.sequenceBits = layout.getSequenceBits();
+        this.sequenceMask = layout.getSequenceMask();
+        this.maxSequence = layout.getMaxSequence();
+        this.timestampShift = layout.getTimestampShift();
+        this.timestampUnit = layout.getTimestampUnit();
+        this.maxTimestamp = layout.getMaxTimestamp();
+        if (currentTimestamp() > maxTimestamp) {
+            throw new IllegalArgumentException(String.format(
+                "The layout ran out of timestamps at %d, %d bits after the epoch %d.",
+                toMillis(maxTimestamp + 1), layout.getTimestampBits(), epoch));
+        }
+    }
+
     /**
      * Create a snowflake generator with custom epoch and timestamp provider.
      *
@@ -191,11 +258,7 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
         @Range(from = 0, to = MAX_WORKER_ID) int workerId,
         @Nullable TimestampProvider timestampProvider
     ) {
-        this.epoch = epoch;
-        this.dataCenterId = dataCenterId & MAX_DATA_CENTER_ID;
-        this.workerId = workerId & MAX_WORKER_ID;
-        this.timestampProvider = timestampProvider == null ? DEFAULT_TIMESTAMP_PROVIDER : timestampProvider;
-        this.template = (dataCenterId << DATA_CENTER_ID_SHIFT) | (workerId << WORKER_ID_SHIFT);
+        this(epoch, dataCenterId, workerId, timestampProvider, SnowflakeLayout.DEFAULT);
     }
 
     /**
@@ -256,6 +319,15 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
         return workerId;
     }
 
+    /**
+     * Gets the layout of the snowflakes generated by the snowflake generator.
+     *
+     * @return The layout of the snowflake generator.
+     */
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
     /**
      * Gets the timestamp provider of the snowflake generator.
      *
@@ -273,6 +345,83 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
     public synchronized void setTimestampProvider(TimestampProvider timestampProvider) {
         this.timestampProvider = timestampProvider;
     }
+
+    /**
+     * Gets the policy applied when the clock moved backwards.
+     *
+     * @return The clock regression policy of the snowflake generator.
+     */
+    public synchronized ClockRegressionPolicy getClockRegressionPolicy() {
+        return clockRegressionPolicy;
+    }
+
+    /**
+     * Sets the policy applied when the clock moved backwards. Defaults to {@link ClockRegressionPolicy#fail()}.
+     *
+     * @param clockRegressionPolicy The clock regression policy of the snowflake generator.
+     */
+    public synchronized void setClockRegressionPolicy(@NotNull ClockRegressionPolicy clockRegressionPolicy) {
+        this.clockRegressionPolicy = Objects.requireNonNull(clockRegressionPolicy, "clockRegressionPolicy");
+    }
+
+    /**
+     * Gets the strategy used to wait for the next timestamp when the sequence is exhausted.
+     *
+     * @return The wait strategy of the snowflake generator.
+     */
+    public synchronized WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    /**
+     * Sets the strategy used to wait for the next timestamp when the sequence is exhausted.
+     * Defaults to {@link WaitStrategy#virtualThreadAware()}.
+     *
+     * @param waitStrategy The wait strategy of the snowflake generator.
+     */
+    public synchronized void setWaitStrategy(@NotNull WaitStrategy waitStrategy) {
+        this.waitStrategy = Objects.requireNonNull(waitStrategy, "waitStrategy");
+    }
+
+    /**
+     * Gets the metrics of the snowflake generator.
+     *
+     * @return The metrics, or {@code null} if metrics are disabled.
+     */
+    public @Nullable SnowflakeGeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables metrics on the snowflake generator. Does nothing if they are already enabled.
+     *
+     * @return The metrics of the snowflake generator.
+     * @see io.gitlab.k4zoku.snowflake.metrics.SnowflakeMetrics#register(SnowflakeGenerator)
+     */
+    public synchronized SnowflakeGeneratorMetrics enableMetrics() {
+        SnowflakeGeneratorMetrics current = metrics;
+        if (current == null) {
+            metrics = current = new SnowflakeGeneratorMetrics(dataCenterId, workerId);
+        }
+        return current;
+    }
+
+    /**
+     * Disables metrics on the snowflake generator and discards the recorded metrics.
+     */
+    public synchronized void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Gets the state file persisting the high-water mark of the snowflake generator.
+     *
+     * @return The state file, or {@code null} if none is attached.
+     * @see SnowflakeStateFile#attach(SnowflakeGenerator, java.nio.file.Path)
+     */
+    public @Nullable SnowflakeStateFile getStateFile() {
+        return stateFile;
+    }
     // </editor-fold>
 
     /**
@@ -281,22 +430,312 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
      * @return The generated Snowflake.
      */
     @Contract(value = "-> new")
-    public synchronized Snowflake generate() {
-        long timestamp = timestampProvider.getTimestamp();
-        if (timestamp < lastTimestamp) {
-            throw new IllegalStateException("Clock moved backwards.");
+    public Snowflake generate() {
+        long state = advance(1);
+        recordGenerated(1);
+        return new Snowflake(toValue(state));
+    }
+
+    /**
+     * Generates {@code length} snowflakes into the given array, starting at {@code offset}.
+     * <p>
+     * The snowflakes are reserved in as few steps as the run spans milliseconds, so the run is contiguous within each
+     * millisecond. Concurrent bulk calls do not interleave, but {@link #generate()} may take sequence numbers at the
+     * millisecond boundaries where the run waits for the next millisecond. The wait happens outside the monitor of
+     * this generator, so a virtual thread does not pin its carrier thread. No {@link Snowflake} objects are allocated.
+     * </p>
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     * @throws IndexOutOfBoundsException If {@code offset} or {@code length} is out of the bounds of the array.
+     */
+    public void generate(long[] values, int offset, int length) {
+        bulkLock.lock();
+        try {
+            fill(values, offset, length);
+        } finally {
+            bulkLock.unlock();
+        }
+    }
+
+    /**
+     * Generates snowflakes into all the remaining elements of the given buffer, advancing its position to its limit.
+     * The snowflakes are reserved the same way as {@link #generate(long[], int, int)}.
+     *
+     * @param buffer The buffer to write the values of the snowflakes to.
+     * @throws java.nio.ReadOnlyBufferException If the buffer is read-only.
+     */
+    public void generate(LongBuffer buffer) {
+        bulkLock.lock();
+        try {
+            fill(buffer);
+        } finally {
+            bulkLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of sequence numbers this generator can still issue in the current timestamp without waiting for
+     * the next one. The number is a snapshot, other threads may reserve sequence numbers right after it is read.
+     *
+     * @return The remaining sequence numbers, from {@code 0} while the sequence is exhausted or the clock is behind
+     * the last issued timestamp, to {@code maxSequence + 1} if no snowflake was issued in the current timestamp yet.
+     */
+    public int getRemainingSequence() {
+        long current = state;
+        long lastTimestamp = current >> sequenceBits;
+        long timestamp = currentTimestamp();
+        if (timestamp > lastTimestamp) {
+            return maxSequence + 1;
+        }
+        return timestamp == lastTimestamp ? (int) (maxSequence - (current & sequenceMask)) : 0;
+    }
+
+    /**
+     * Reserves up to {@code count} consecutive sequence numbers within a single timestamp.
+     * The default implementation holds the monitor of this generator while advancing, but releases it while waiting
+     * for the next timestamp, so waiting threads neither block other callers of the monitor nor pin the carrier
+     * thread of a virtual thread.
+     *
+     * @param count The maximum number of sequence numbers to reserve, at least 1.
+     * @return The state of the first reserved sequence number. The number of reserved sequence numbers is
+     * {@code min(count, maxSequence + 1 - sequence)} where {@code sequence} is the sequence of the returned state.
+     * @see LockFreeSnowflakeGenerator
+     */
+    protected long advance(int count) {
+        for (; ; ) {
+            long current;
+            synchronized (this) {
+                current = state;
+                long next = nextState(current, count, false);
+                if (next != EXHAUSTED) {
+                    state = next;
+                    return firstState(current, next);
+                }
+            }
+            awaitNextTimestamp(current >> sequenceBits);
+        }
+    }
+
+    final void fill(long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d + %d) out of bounds for length %d", offset, offset, length, values.length));
+        }
+        recordGenerated(length);
+        while (length > 0) {
+            long first = advance(length);
+            int reserved = reserved(first, length);
+            for (int i = 0; i < reserved; i++) {
+                values[offset++] = toValue(first + i);
+            }
+            length -= reserved;
+        }
+    }
+
+    final void fill(LongBuffer buffer) {
+        if (buffer.hasArray()) {
+            int position = buffer.position();
+            fill(buffer.array(), buffer.arrayOffset() + position, buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        if (buffer.isReadOnly()) {
+            throw new ReadOnlyBufferException();
+        }
+        int length = buffer.remaining();
+        recordGenerated(length);
+        while (length > 0) {
+            long first = advance(length);
+            int reserved = reserved(first, length);
+            for (int i = 0; i < reserved; i++) {
+                buffer.put(toValue(first + i));
+            }
+            length -= reserved;
+        }
+    }
+
+    /**
+     * Computes the state that follows the given state after reserving up to {@code count} sequence numbers,
+     * waiting for the next timestamp if the sequence is exhausted.
+     * This method does not modify the state of the generator.
+     *
+     * @param state The current state.
+     * @param count The maximum number of sequence numbers to reserve, at least 1.
+     * @return The next state, which is the state of the last reserved sequence number.
+     * @throws IllegalStateException If the clock moved backwards and the clock regression policy rejects it, or if the
+     *                               clock moved past the last timestamp of the layout.
+     */
+    final long nextState(long state, int count) {
+        return nextState(state, count, true);
+    }
+
+    /**
+     * Computes the next state like {@link #nextState(long, int)}, or returns {@link #EXHAUSTED} instead of waiting
+     * for the clock to leave the exhausted timestamp if {@code wait} is {@code false}. A clock behind the exhausted
+     * timestamp is still resolved here, because waiting for the clock to change would not help.
+     */
+    private long nextState(long state, int count, boolean wait) {
+        long lastTimestamp = state >> sequenceBits;
+        long timestamp = currentTimestamp();
+        SnowflakeStateFile file = stateFile;
+        boolean regressed = timestamp < lastTimestamp;
+        if (regressed) {
+            timestamp = onClockRegression(lastTimestamp, timestamp);
+        } else if (file != null) {
+            file.caughtUp();
         }
         if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            if (sequence == 0) {
-                timestamp = timestampProvider.waitUntilNextTimestamp(timestamp);
+            long remaining = maxSequence - (state & sequenceMask);
+            if (remaining != 0) {
+                return state + Math.min(count, remaining);
+            }
+            if (!wait && !regressed) {
+                return EXHAUSTED; // the clock is still at the exhausted timestamp
+            }
+            timestamp = awaitNextTimestamp(lastTimestamp);
+            if (timestamp < lastTimestamp) {
+                timestamp = onClockRegression(lastTimestamp + 1, timestamp);
+            } else if (file != null) {
+                file.caughtUp();
             }
-        } else {
-            sequence = 0;
         }
-        lastTimestamp = timestamp;
-        long value = (timestamp - epoch) << TIMESTAMP_SHIFT | template | sequence;
-        return new Snowflake(value);
+        if (timestamp > maxTimestamp) {
+            throw new IllegalStateException("Clock moved past the last timestamp of the layout.");
+        }
+        if (file != null) {
+            file.reserve(timestamp);
+        }
+        return timestamp << sequenceBits | (Math.min(count, maxSequence + 1) - 1);
+    }
+
+    /**
+     * Waits until the clock leaves {@code lastTimestamp}, recording the sequence exhaustion.
+     *
+     * @return The first timestamp different from {@code lastTimestamp}, which is behind it if the clock moved backwards.
+     */
+    private long awaitNextTimestamp(long lastTimestamp) {
+        SnowflakeGeneratorMetrics m = metrics;
+        long start = m == null ? 0L : System.nanoTime();
+        long millis = timestampProvider.getTimestamp();
+        long timestamp = toTimestamp(millis);
+        while (timestamp == lastTimestamp) {
+            millis = waitStrategy.waitUntilNextTimestamp(timestampProvider, millis);
+            timestamp = toTimestamp(millis);
+        }
+        if (m != null) {
+            m.recordSequenceExhaustion(System.nanoTime() - start);
+        }
+        return timestamp;
+    }
+
+    private long onClockRegression(long required, long timestamp) {
+        SnowflakeStateFile file = stateFile;
+        if (file != null && file.isResuming(timestamp)) {
+            return required;
+        }
+        SnowflakeGeneratorMetrics m = metrics;
+        if (m != null) {
+            m.recordClockRegression();
+        }
+        long resolved = toTimestamp(
+            clockRegressionPolicy.onClockRegression(timestampProvider, toMillis(required), toMillis(timestamp)));
+        if (resolved < required) {
+            throw new IllegalStateException("Clock regression policy resolved to a timestamp that was already issued.");
+        }
+        return resolved;
+    }
+
+    /**
+     * Resets the state to {@code state} if no sequence number was reserved since the state became {@code expected}.
+     * Used to hand back sequence numbers that were reserved but never issued.
+     *
+     * @param expected The state the generator is expected to be in.
+     * @param state    The state to reset to, not greater than {@code expected}.
+     * @return {@code true} if the state was reset.
+     */
+    synchronized boolean restore(long expected, long state) {
+        if (this.state != expected) {
+            return false;
+        }
+        this.state = state;
+        return true;
+    }
+
+    /**
+     * Resumes from the high-water mark of a state file. Only a generator that has not issued snowflakes yet can
+     * attach a state file.
+     */
+    synchronized void attach(SnowflakeStateFile stateFile) {
+        if (this.stateFile != null) {
+            throw new IllegalStateException("A state file is already attached.");
+        }
+        if (state != -1L) {
+            throw new IllegalStateException("Cannot attach a state file after snowflakes were issued.");
+        }
+        state = stateFile.resumeState(sequenceBits, maxSequence);
+        this.stateFile = stateFile;
+    }
+
+    synchronized void detach(SnowflakeStateFile stateFile) {
+        if (this.stateFile == stateFile) {
+            this.stateFile = null;
+        }
+    }
+
+    final void recordGenerated(int count) {
+        SnowflakeGeneratorMetrics m = metrics;
+        if (m != null) {
+            m.recordGenerated(count);
+        }
+    }
+
+    /**
+     * Gets the current timestamp in timestamp units since the epoch of this generator.
+     */
+    final long currentTimestamp() {
+        return toTimestamp(timestampProvider.getTimestamp());
+    }
+
+    private long toTimestamp(long millis) {
+        long elapsed = millis - epoch;
+        return timestampUnit == 1 ? elapsed : Math.floorDiv(elapsed, timestampUnit);
+    }
+
+    final long toMillis(long timestamp) {
+        return timestamp * timestampUnit + epoch;
+    }
+
+    /**
+     * Gets the timestamp of a state in timestamp units since the epoch of this generator.
+     */
+    final long timestampOf(long state) {
+        return state >> sequenceBits;
+    }
+
+    /**
+     * Gets the state of the first sequence number reserved by advancing from {@code previous} to {@code next}.
+     */
+    final long firstState(long previous, long next) {
+        return (next >> sequenceBits) == (previous >> sequenceBits) ? previous + 1 : next & ~sequenceMask;
+    }
+
+    /**
+     * Gets the number of sequence numbers reserved by {@link #advance(int)} from its returned state.
+     */
+    final int reserved(long first, int count) {
+        return (int) Math.min(count, maxSequence + 1 - (first & sequenceMask));
+    }
+
+    /**
+     * Converts a state to the value of the snowflake it represents.
+     *
+     * @param state The state.
+     * @return The value of the snowflake.
+     */
+    final long toValue(long state) {
+        return (state >> sequenceBits) << timestampShift | template | (state & sequenceMask);
     }
 
     // <editor-fold desc="equals and hashCode" defaultstate="collapsed">
@@ -311,12 +750,13 @@ public class SnowflakeGenerator implements Generator<Snowflake>, Comparable<Snow
         SnowflakeGenerator other = (SnowflakeGenerator) obj;
         return this.epoch == other.epoch
             && this.dataCenterId == other.dataCenterId
-            && this.workerId == other.workerId;
+            && this.workerId == other.workerId
+            && this.layout.equals(other.layout);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(epoch, dataCenterId, workerId);
+        return Objects.hash(epoch, dataCenterId, workerId, layout);
     }
     // </editor-fold>
 
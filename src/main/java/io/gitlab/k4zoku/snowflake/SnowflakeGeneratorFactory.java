@@ -1,27 +1,78 @@
 package io.gitlab.k4zoku.snowflake;
 
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
 import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import io.gitlab.k4zoku.snowflake.time.WaitStrategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 public class SnowflakeGeneratorFactory {
     private final long epoch;
     private final int dataCenterId;
     private final TimestampProvider timestampProvider;
+    private final ClockRegressionPolicy clockRegressionPolicy;
+    private final WaitStrategy waitStrategy;
+    private final SnowflakeLayout layout;
+    private final boolean lockFree;
+    private final boolean metrics;
+    private final Path stateDirectory;
 
     SnowflakeGeneratorFactory(
         TimestampProvider timestampProvider,
+        ClockRegressionPolicy clockRegressionPolicy,
+        WaitStrategy waitStrategy,
         long epoch,
-        int dataCenterId
+        int dataCenterId,
+        SnowflakeLayout layout,
+        boolean lockFree,
+        boolean metrics,
+        Path stateDirectory
     ) {
         this.epoch = epoch;
         this.dataCenterId = dataCenterId;
         this.timestampProvider = timestampProvider;
+        this.clockRegressionPolicy = clockRegressionPolicy;
+        this.waitStrategy = waitStrategy;
+        this.layout = layout;
+        this.lockFree = lockFree;
+        this.metrics = metrics;
+        this.stateDirectory = stateDirectory;
     }
 
     public static SnowflakeGeneratorFactoryBuilder builder() {
         return new SnowflakeGeneratorFactoryBuilder();
     }
 
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public TimestampProvider getTimestampProvider() {
+        return timestampProvider;
+    }
+
     public SnowflakeGenerator create(int workerId) {
-        return new SnowflakeGenerator(epoch, dataCenterId, workerId, timestampProvider);
+        SnowflakeGenerator generator = lockFree
+            ? new LockFreeSnowflakeGenerator(epoch, dataCenterId, workerId, timestampProvider, layout)
+            : new SnowflakeGenerator(epoch, dataCenterId, workerId, timestampProvider, layout);
+        generator.setClockRegressionPolicy(clockRegressionPolicy);
+        generator.setWaitStrategy(waitStrategy);
+        if (metrics) {
+            generator.enableMetrics();
+        }
+        if (stateDirectory != null) {
+            try {
+                SnowflakeStateFile.attach(generator, stateDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return generator;
     }
 }
@@ -1,16 +1,28 @@
 package io.gitlab.k4zoku.snowflake;
 
+import io.gitlab.k4zoku.snowflake.common.util.Threads;
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
 import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import io.gitlab.k4zoku.snowflake.time.WaitStrategy;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
+import java.nio.file.Path;
+
 import static io.gitlab.k4zoku.snowflake.SnowflakeGenerator.MAX_DATA_CENTER_ID;
 
 public class SnowflakeGeneratorFactoryBuilder {
     private long epoch = SnowflakeGenerator.DISCORD_EPOCH;
     private int dataCenterId = 0;
     private TimestampProvider timestampProvider = TimestampProvider.system();
+    private ClockRegressionPolicy clockRegressionPolicy = ClockRegressionPolicy.fail();
+    private WaitStrategy waitStrategy = WaitStrategy.virtualThreadAware();
+    private SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+    private boolean lockFree = Threads.isVirtualThreadSupported();
+    private boolean metrics = false;
+    private Path stateDirectory = null;
 
     SnowflakeGeneratorFactoryBuilder() {
     }
@@ -33,8 +45,57 @@ public class SnowflakeGeneratorFactoryBuilder {
         return this;
     }
 
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder clockRegressionPolicy(@NotNull ClockRegressionPolicy clockRegressionPolicy) {
+        this.clockRegressionPolicy = clockRegressionPolicy;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder waitStrategy(@NotNull WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder layout(@NotNull SnowflakeLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    /**
+     * Creates {@link LockFreeSnowflakeGenerator lock-free generators}, which never block on a monitor. Defaults to
+     * {@code true} on runtimes with virtual threads, where a monitor pins the carrier thread of a virtual thread.
+     *
+     * @param lockFree Whether to create lock-free generators.
+     * @return This builder.
+     */
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder lockFree(boolean lockFree) {
+        this.lockFree = lockFree;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder metrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Attaches a {@link SnowflakeStateFile} in the given directory to every created generator.
+     *
+     * @param stateDirectory The directory of the state files, or {@code null} to not persist the state.
+     * @return This builder.
+     */
+    @Contract("_ -> this")
+    public SnowflakeGeneratorFactoryBuilder stateDirectory(@Nullable Path stateDirectory) {
+        this.stateDirectory = stateDirectory;
+        return this;
+    }
+
     @Contract("-> new")
     public SnowflakeGeneratorFactory build() {
-        return new SnowflakeGeneratorFactory(timestampProvider, epoch, dataCenterId);
+        return new SnowflakeGeneratorFactory(timestampProvider, clockRegressionPolicy, waitStrategy, epoch, dataCenterId, layout, lockFree, metrics, stateDirectory);
     }
 }
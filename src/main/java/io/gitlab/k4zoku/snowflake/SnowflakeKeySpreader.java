@@ -0,0 +1,180 @@
+package io.gitlab.k4zoku.snowflake;
+
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import io.gitlab.k4zoku.snowflake.common.util.ProxyGenerator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.io.Serializable;
+
+/**
+ * Converts snowflakes to storage keys that spread inserts over several ranges of a B-tree index, and back.
+ * <p>
+ * Increasing snowflakes always insert into the right-most leaf of an index, which makes that leaf the hotspot of every
+ * writer. A spreader moves a field of {@code bits} bits, for example the low bits of the sequence or of the worker ID,
+ * to the highest value bits of the key. Keys then fall into {@code 2^bits} ranges which grow independently and stay
+ * ordered by time within each range. The conversion is a bijection on non-negative values, so
+ * {@link #toValue(long)} recovers the snowflake and its timestamp from a key.
+ * </p>
+ * <pre>
+ *     snowflake: 0 | rest                     | field | low
+ *     key:       0 | field | rest                     | low
+ * </pre>
+ * <p>
+ * Spreading by sequence spreads the inserts of a single worker under load, but snowflakes issued at a low rate all
+ * land in the first range. Spreading by worker ID gives every worker its own range.
+ * </p>
+ *
+ * @see Snowflake#ofKey(long, SnowflakeKeySpreader)
+ * @see Snowflake#toKey(SnowflakeKeySpreader)
+ */
+public final class SnowflakeKeySpreader implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * A spreader whose keys equal the snowflakes.
+     */
+    public static final SnowflakeKeySpreader NONE = new SnowflakeKeySpreader(0, 0);
+
+    private final int shift;
+    private final int bits;
+
+    private final long lowMask;
+    private final long fieldMask;
+    private final long restMask;
+    private final int keyFieldShift;
+
+    /**
+     * Create a spreader moving an arbitrary field of the value bits.
+     *
+     * @param shift The position of the lowest bit of the field.
+     * @param bits  The number of bits of the field. At most 30 to keep the number of ranges an {@code int}.
+     * @throws IllegalArgumentException If the field does not fit into the 63 value bits.
+     */
+    public SnowflakeKeySpreader(@Range(from = 0, to = 62) int shift, @Range(from = 0, to = 30) int bits) {
+        if (shift < 0 || bits < 0 || bits > 30 || shift + bits > 63) {
+            throw new IllegalArgumentException("Field out of range.");
+        }
+        this.shift = shift;
+        this.bits = bits;
+        this.lowMask = ~(-1L << shift);
+        this.fieldMask = ~(-1L << bits);
+        this.restMask = ~(-1L << (63 - bits - shift));
+        this.keyFieldShift = 63 - bits;
+    }
+
+    /**
+     * Creates a spreader moving the low bits of the sequence.
+     *
+     * @param layout The layout of the snowflakes.
+     * @param bits   The number of sequence bits to move, at most the number of sequence bits of the layout.
+     * @return The spreader.
+     */
+    public static SnowflakeKeySpreader sequence(@NotNull SnowflakeLayout layout, int bits) {
+        if (bits > layout.getSequenceBits()) {
+            throw new IllegalArgumentException("Cannot move more than " + layout.getSequenceBits() + " sequence bits.");
+        }
+        return new SnowflakeKeySpreader(0, bits);
+    }
+
+    /**
+     * Creates a spreader moving the low bits of the worker ID.
+     *
+     * @param layout The layout of the snowflakes.
+     * @param bits   The number of worker ID bits to move, at most the number of worker ID bits of the layout.
+     * @return The spreader.
+     */
+    public static SnowflakeKeySpreader workerId(@NotNull SnowflakeLayout layout, int bits) {
+        if (bits > layout.getWorkerIdBits()) {
+            throw new IllegalArgumentException("Cannot move more than " + layout.getWorkerIdBits() + " worker ID bits.");
+        }
+        return new SnowflakeKeySpreader(layout.getWorkerIdShift(), bits);
+    }
+
+    public int getShift() {
+        return shift;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * Gets the number of ranges keys are spread over.
+     *
+     * @return {@code 2^bits}
+     */
+    public int getRanges() {
+        return 1 << bits;
+    }
+
+    /**
+     * Gets the range a key falls into.
+     *
+     * @param key The key.
+     * @return The range, between 0 and {@link #getRanges()} exclusive.
+     */
+    public int getRange(long key) {
+        return (int) ((key >>> keyFieldShift) & fieldMask);
+    }
+
+    /**
+     * Converts the value of a snowflake to a key.
+     *
+     * @param value The non-negative value of the snowflake.
+     * @return The key.
+     */
+    public long toKey(long value) {
+        long field = (value >>> shift) & fieldMask;
+        long rest = (value >>> (shift + bits)) & restMask;
+        return field << keyFieldShift | rest << shift | (value & lowMask);
+    }
+
+    /**
+     * Converts a key back to the value of its snowflake.
+     *
+     * @param key The non-negative key.
+     * @return The value of the snowflake.
+     */
+    public long toValue(long key) {
+        long field = (key >>> keyFieldShift) & fieldMask;
+        long rest = (key >>> shift) & restMask;
+        return rest << (shift + bits) | field << shift | (key & lowMask);
+    }
+
+    /**
+     * Creates a generator of keys on top of a snowflake generator.
+     *
+     * @param generator The snowflake generator.
+     * @return A generator of the keys of the generated snowflakes.
+     */
+    public Generator<Long> keys(@NotNull Generator<Snowflake> generator) {
+        return ProxyGenerator.create(generator, snowflake -> toKey(snowflake.longValue()));
+    }
+
+    // <editor-fold desc="equals, hashCode and toString" defaultstate="collapsed">
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || this.getClass() != obj.getClass()) {
+            return false;
+        }
+        SnowflakeKeySpreader other = (SnowflakeKeySpreader) obj;
+        // every spreader without bits is the identity
+        return this.bits == other.bits && (this.bits == 0 || this.shift == other.shift);
+    }
+
+    @Override
+    public int hashCode() {
+        return bits == 0 ? 0 : 31 * shift + bits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeKeySpreader[%d bits at %d]", bits, shift);
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,293 @@
+package io.gitlab.k4zoku.snowflake;
+
+import org.jetbrains.annotations.Range;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how the components of a snowflake are laid out in its 63 value bits.
+ * <p>
+ * A layout is immutable and pre-computes the shifts and masks of every component. Decoding with {@link #DEFAULT}
+ * uses the constants of {@link SnowflakeGenerator}, other layouts load their shifts and masks. The timestamp can be counted in units
+ * coarser than a millisecond, which trades timestamp precision for a longer lifetime of the layout.
+ * </p>
+ * <pre>
+ *     0 | timestamp | data center ID | worker ID | sequence
+ * </pre>
+ *
+ * @see #DEFAULT
+ */
+public final class SnowflakeLayout implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * 41 bits of milliseconds, 5 bits of data center ID, 5 bits of worker ID and 12 bits of sequence.
+     */
+    public static final SnowflakeLayout DEFAULT = new SnowflakeLayout(
+        SnowflakeGenerator.TIMESTAMP_BITS,
+        SnowflakeGenerator.DATA_CENTER_ID_BITS,
+        SnowflakeGenerator.WORKER_ID_BITS,
+        SnowflakeGenerator.SEQUENCE_BITS
+    );
+
+    public static final int MAX_SEQUENCE_BITS = 30;
+
+    private final int timestampBits;
+    private final int dataCenterIdBits;
+    private final int workerIdBits;
+    private final int sequenceBits;
+    private final long timestampUnit;
+
+    private final long maxTimestamp;
+    private final int maxDataCenterId;
+    private final int maxWorkerId;
+    private final int maxSequence;
+
+    private final int timestampShift;
+    private final int dataCenterIdShift;
+    private final int workerIdShift;
+
+    private final long timestampMask;
+    private final long dataCenterIdMask;
+    private final long workerIdMask;
+    private final long sequenceMask;
+
+    /**
+     * Create a layout with a custom timestamp unit.
+     *
+     * @param timestampBits    The number of timestamp bits, at least 1.
+     * @param dataCenterIdBits The number of data center ID bits, at most 31.
+     * @param workerIdBits     The number of worker ID bits, at most 31.
+     * @param sequenceBits     The number of sequence bits, between 1 and {@value #MAX_SEQUENCE_BITS}.
+     * @param timestampUnit    The number of milliseconds counted by one timestamp step, at least 1.
+     * @throws IllegalArgumentException If a component is out of range, the components do not add up to 63 bits, or
+     *                                  the largest timestamp in milliseconds does not fit into a {@code long}.
+     */
+    public SnowflakeLayout(
+        @Range(from = 1, to = 63) int timestampBits,
+        @Range(from = 0, to = 31) int dataCenterIdBits,
+        @Range(from = 0, to = 31) int workerIdBits,
+        @Range(from = 1, to = MAX_SEQUENCE_BITS) int sequenceBits,
+        @Range(from = 1, to = Long.MAX_VALUE) long timestampUnit
+    ) {
+        if (timestampBits < 1 || dataCenterIdBits < 0 || dataCenterIdBits > 31 || workerIdBits < 0 || workerIdBits > 31
+            || sequenceBits < 1 || sequenceBits > MAX_SEQUENCE_BITS) {
+            throw new IllegalArgumentException("Component length out of range.");
+        }
+        if (timestampBits + dataCenterIdBits + workerIdBits + sequenceBits != 63) {
+            throw new IllegalArgumentException("Component lengths must add up to 63 bits.");
+        }
+        if (timestampUnit < 1) {
+            throw new IllegalArgumentException("Timestamp unit must be at least 1 millisecond.");
+        }
+        if (~(-1L << timestampBits) > Long.MAX_VALUE / timestampUnit) {
+            throw new IllegalArgumentException("Timestamp of " + timestampBits + " bits in units of " + timestampUnit
+                + " milliseconds overflows the milliseconds of a long.");
+        }
+        this.timestampBits = timestampBits;
+        this.dataCenterIdBits = dataCenterIdBits;
+        this.workerIdBits = workerIdBits;
+        this.sequenceBits = sequenceBits;
+        this.timestampUnit = timestampUnit;
+
+        this.maxTimestamp = ~(-1L << timestampBits);
+        this.maxDataCenterId = ~(-1 << dataCenterIdBits);
+        this.maxWorkerId = ~(-1 << workerIdBits);
+        this.maxSequence = ~(-1 << sequenceBits);
+
+        this.timestampShift = dataCenterIdBits + workerIdBits + sequenceBits;
+        this.dataCenterIdShift = workerIdBits + sequenceBits;
+        this.workerIdShift = sequenceBits;
+
+        this.timestampMask = maxTimestamp << timestampShift;
+        this.dataCenterIdMask = (long) maxDataCenterId << dataCenterIdShift;
+        this.workerIdMask = (long) maxWorkerId << workerIdShift;
+        this.sequenceMask = maxSequence;
+    }
+
+    /**
+     * Create a layout counting the timestamp in milliseconds.
+     *
+     * @param timestampBits    The number of timestamp bits, at least 1.
+     * @param dataCenterIdBits The number of data center ID bits, at most 31.
+     * @param workerIdBits     The number of worker ID bits, at most 31.
+     * @param sequenceBits     The number of sequence bits, between 1 and {@value #MAX_SEQUENCE_BITS}.
+     * @throws IllegalArgumentException If a component is out of range or the components do not add up to 63 bits.
+     */
+    public SnowflakeLayout(
+        @Range(from = 1, to = 63) int timestampBits,
+        @Range(from = 0, to = 31) int dataCenterIdBits,
+        @Range(from = 0, to = 31) int workerIdBits,
+        @Range(from = 1, to = MAX_SEQUENCE_BITS) int sequenceBits
+    ) {
+        this(timestampBits, dataCenterIdBits, workerIdBits, sequenceBits, 1L);
+    }
+
+    /**
+     * Creates a copy of this layout counting the timestamp in the given unit.
+     *
+     * @param timestampUnit The duration of one timestamp step, at least 1 millisecond.
+     * @param unit          The unit of {@code timestampUnit}.
+     * @return The new layout.
+     */
+    public SnowflakeLayout withTimestampUnit(long timestampUnit, TimeUnit unit) {
+        return new SnowflakeLayout(timestampBits, dataCenterIdBits, workerIdBits, sequenceBits, unit.toMillis(timestampUnit));
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public int getTimestampBits() {
+        return timestampBits;
+    }
+
+    public int getDataCenterIdBits() {
+        return dataCenterIdBits;
+    }
+
+    public int getWorkerIdBits() {
+        return workerIdBits;
+    }
+
+    public int getSequenceBits() {
+        return sequenceBits;
+    }
+
+    /**
+     * Gets the number of milliseconds counted by one timestamp step.
+     *
+     * @return The timestamp unit in milliseconds.
+     */
+    public long getTimestampUnit() {
+        return timestampUnit;
+    }
+
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    public int getMaxDataCenterId() {
+        return maxDataCenterId;
+    }
+
+    public int getMaxWorkerId() {
+        return maxWorkerId;
+    }
+
+    public int getMaxSequence() {
+        return maxSequence;
+    }
+
+    public int getTimestampShift() {
+        return timestampShift;
+    }
+
+    public int getDataCenterIdShift() {
+        return dataCenterIdShift;
+    }
+
+    public int getWorkerIdShift() {
+        return workerIdShift;
+    }
+
+    public long getTimestampMask() {
+        return timestampMask;
+    }
+
+    public long getDataCenterIdMask() {
+        return dataCenterIdMask;
+    }
+
+    public long getWorkerIdMask() {
+        return workerIdMask;
+    }
+
+    public long getSequenceMask() {
+        return sequenceMask;
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="Encoding" defaultstate="collapsed">
+
+    /**
+     * Composes the value of a snowflake. Out of range components are truncated.
+     *
+     * @param timestamp    The timestamp in timestamp units since the epoch.
+     * @param dataCenterId The data center ID.
+     * @param workerId     The worker ID.
+     * @param sequence     The sequence.
+     * @return The value of the snowflake.
+     */
+    public long compose(long timestamp, int dataCenterId, int workerId, int sequence) {
+        return (timestamp & maxTimestamp) << timestampShift
+            | (long) (dataCenterId & maxDataCenterId) << dataCenterIdShift
+            | (long) (workerId & maxWorkerId) << workerIdShift
+            | (sequence & maxSequence);
+    }
+
+    /**
+     * Gets the timestamp of a snowflake in milliseconds since the unix epoch.
+     *
+     * @param value The value of the snowflake.
+     * @param epoch The epoch of the generator of the snowflake. (milliseconds since unix epoch)
+     * @return The timestamp of the snowflake.
+     */
+    public long getTimestamp(long value, long epoch) {
+        if (this == DEFAULT) {
+            return ((value & SnowflakeGenerator.TIMESTAMP_MASK) >>> SnowflakeGenerator.TIMESTAMP_SHIFT) + epoch;
+        }
+        return ((value & timestampMask) >>> timestampShift) * timestampUnit + epoch;
+    }
+
+    public int getDataCenterId(long value) {
+        if (this == DEFAULT) {
+            return (int) ((value & SnowflakeGenerator.DATA_CENTER_ID_MASK) >>> SnowflakeGenerator.DATA_CENTER_ID_SHIFT);
+        }
+        return (int) ((value & dataCenterIdMask) >>> dataCenterIdShift);
+    }
+
+    public int getWorkerId(long value) {
+        if (this == DEFAULT) {
+            return (int) ((value & SnowflakeGenerator.WORKER_ID_MASK) >>> SnowflakeGenerator.WORKER_ID_SHIFT);
+        }
+        return (int) ((value & workerIdMask) >>> workerIdShift);
+    }
+
+    public int getSequence(long value) {
+        if (this == DEFAULT) {
+            return (int) (value & SnowflakeGenerator.SEQUENCE_MASK);
+        }
+        return (int) (value & sequenceMask);
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="equals, hashCode and toString" defaultstate="collapsed">
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || this.getClass() != obj.getClass()) {
+            return false;
+        }
+        SnowflakeLayout other = (SnowflakeLayout) obj;
+        return this.timestampBits == other.timestampBits
+            && this.dataCenterIdBits == other.dataCenterIdBits
+            && this.workerIdBits == other.workerIdBits
+            && this.sequenceBits == other.sequenceBits
+            && this.timestampUnit == other.timestampUnit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timestampBits, dataCenterIdBits, workerIdBits, sequenceBits, timestampUnit);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SnowflakeLayout[%d/%d/%d/%d, %d ms]",
+            timestampBits, dataCenterIdBits, workerIdBits, sequenceBits, timestampUnit);
+    }
+    // </editor-fold>
+}
@@ -0,0 +1,124 @@
+package io.gitlab.k4zoku.snowflake;
+
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Generates snowflakes from blocks of sequence numbers leased by each caller thread from a shared
+ * {@link SnowflakeGenerator}.
+ * <p>
+ * A thread leases up to {@code blockSize} consecutive sequence numbers of the current millisecond in one step and then
+ * issues snowflakes from its block without any synchronization. The rest of a block is discarded as soon as the clock
+ * moves to another millisecond, so the timestamp of a snowflake is never older than the millisecond it is issued in.
+ * A thread that stops generating can hand its unused sequence numbers back with {@link #release()}.
+ * </p>
+ * <p>
+ * All threads share the worker ID of the underlying generator. Snowflakes are unique and increasing per thread,
+ * but snowflakes issued by different threads in the same millisecond are not ordered by the time they are issued.
+ * </p>
+ *
+ * @see SnowflakeGenerator#generate(long[], int, int)
+ */
+public class SnowflakeLeasingGenerator implements Generator<Snowflake> {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final SnowflakeGenerator generator;
+    private final int blockSize;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Create a leasing generator on top of a snowflake generator.
+     *
+     * @param generator The generator to lease blocks from.
+     * @param blockSize The maximum number of sequence numbers leased at once, at most the sequence capacity of the
+     *                  layout of the generator.
+     */
+    public SnowflakeLeasingGenerator(
+        @NotNull SnowflakeGenerator generator,
+        @Range(from = 1, to = Integer.MAX_VALUE) int blockSize
+    ) {
+        int maxBlockSize = generator.getLayout().getMaxSequence() + 1;
+        if (blockSize < 1 || blockSize > maxBlockSize) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + maxBlockSize + ".");
+        }
+        this.generator = generator;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Create a leasing generator on top of a snowflake generator with a block size of {@value #DEFAULT_BLOCK_SIZE}.
+     *
+     * @param generator The generator to lease blocks from.
+     */
+    public SnowflakeLeasingGenerator(@NotNull SnowflakeGenerator generator) {
+        this(generator, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Gets the generator blocks are leased from.
+     *
+     * @return The underlying snowflake generator.
+     */
+    public SnowflakeGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Gets the maximum number of sequence numbers leased at once.
+     *
+     * @return The block size.
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Generates a Snowflake from the block of the current thread, leasing a new block if the current one is used up
+     * or belongs to another millisecond.
+     *
+     * @return The generated Snowflake.
+     */
+    @Override
+    @Contract(value = "-> new")
+    public Snowflake generate() {
+        Block block = blocks.get();
+        if (block.next == block.end || block.timestamp != generator.currentTimestamp()) {
+            long first = generator.advance(blockSize);
+            block.next = first;
+            block.end = first + generator.reserved(first, blockSize);
+            block.timestamp = generator.timestampOf(first);
+        }
+        generator.recordGenerated(1);
+        return new Snowflake(generator.toValue(block.next++));
+    }
+
+    /**
+     * Hands the unused sequence numbers of the current thread's block back to the generator and forgets the block.
+     * The sequence numbers can only be handed back if nothing was reserved from the generator after the block,
+     * otherwise they are discarded.
+     *
+     * @return {@code true} if unused sequence numbers were handed back.
+     */
+    public boolean release() {
+        Block block = blocks.get();
+        blocks.remove();
+        return block.next != block.end && generator.restore(block.end - 1, block.next - 1);
+    }
+
+    @Override
+    public Spliterator<Snowflake> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    private static final class Block {
+        private long next;
+        private long end;
+        private long timestamp = -1L;
+    }
+}
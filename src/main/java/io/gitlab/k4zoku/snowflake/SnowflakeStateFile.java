@@ -0,0 +1,336 @@
+package io.gitlab.k4zoku.snowflake;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persists a high-water timestamp of a {@link SnowflakeGenerator} in a small memory-mapped file, so a restarted
+ * generator never issues a snowflake that was issued before the restart.
+ * <p>
+ * Once the generator issues a snowflake in the second half of the reserve, the mark is moved {@code reserveAhead}
+ * past that timestamp and forced to disk on a background thread, so the generator does not wait for the disk. Only
+ * a generator that outruns the background thread, or issues its first snowflake, moves the mark itself before
+ * issuing a snowflake above it. The file is therefore written about once per half {@code reserveAhead}, never per
+ * snowflake, and the same-millisecond path of the generator never touches it.
+ * </p>
+ * <p>
+ * On attach, the generator resumes after the stored high-water mark instead of starting from scratch:
+ * </p>
+ * <ul>
+ *     <li>If the clock is past the mark, the generator starts right away as usual.</li>
+ *     <li>If the clock is behind the mark but not behind the clock seen when the mark was written, the generator was
+ *     restarted within the reserved window. It issues snowflakes from the mark on as a logical clock until the clock
+ *     catches up, without waiting and without consulting the clock regression policy. Once the clock caught up, the
+ *     resume is over and any later regression consults the policy again.</li>
+ *     <li>If the clock is behind the clock seen when the mark was written, the clock was stepped back across the
+ *     restart. The first snowflake consults the {@link io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy clock
+ *     regression policy} of the generator, which fails by default.</li>
+ * </ul>
+ * <p>
+ * The file is locked while attached, so two generators can never share a data center ID and worker ID through the
+ * same state directory. Closing the state file detaches it from the generator.
+ * </p>
+ * <pre>{@code
+ * SnowflakeGenerator generator = new SnowflakeGenerator(dataCenterId, workerId);
+ * try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, Paths.get("/var/lib/app"))) {
+ *     // ...
+ * }
+ * }</pre>
+ *
+ * @see SnowflakeGeneratorFactoryBuilder#stateDirectory(Path)
+ */
+public final class SnowflakeStateFile implements Closeable {
+
+    public static final long DEFAULT_RESERVE_AHEAD_MILLIS = 1000L;
+
+    // <editor-fold desc="File format" defaultstate="collapsed">
+    private static final int MAGIC = 0x534E4653; // "SNFS"
+    private static final byte VERSION = 1;
+    private static final int FILE_LENGTH = 64;
+    private static final int VERSION_OFFSET = 4;
+    private static final int LAYOUT_OFFSET = 5; // four bytes of component bits
+    private static final int TIMESTAMP_UNIT_OFFSET = 16;
+    private static final int EPOCH_OFFSET = 24;
+    private static final int DATA_CENTER_ID_OFFSET = 32;
+    private static final int WORKER_ID_OFFSET = 36;
+    private static final int HIGH_WATER_OFFSET = 40;
+    private static final int CLOCK_OFFSET = 48;
+    // </editor-fold>
+
+    private final SnowflakeGenerator generator;
+    private final Path file;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final long reserveAhead; // in timestamp units
+
+    private volatile long highWater; // in timestamp units since the epoch, -1 before the first snowflake
+    private final AtomicBoolean extending = new AtomicBoolean(); // a background extension is pending
+    private boolean closed; // guarded by this
+    private final long resumeFloor; // the clock seen when the loaded mark was written
+    private final long resumeCeiling; // the loaded mark
+    private volatile boolean resuming; // until the clock catches up with the logical clock after a restart
+    private final long clockRegression; // how far the clock was behind resumeFloor on attach, in timestamp units
+
+    private SnowflakeStateFile(
+        SnowflakeGenerator generator,
+        Path file,
+        FileChannel channel,
+        FileLock lock,
+        long reserveAhead
+    ) throws IOException {
+        this.generator = generator;
+        this.file = file;
+        this.channel = channel;
+        this.lock = lock;
+        this.reserveAhead = reserveAhead;
+        boolean created = channel.size() == 0;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_LENGTH);
+        if (created) {
+            writeHeader();
+        } else {
+            checkHeader();
+        }
+        this.highWater = buffer.getLong(HIGH_WATER_OFFSET);
+        this.resumeFloor = buffer.getLong(CLOCK_OFFSET);
+        this.resumeCeiling = highWater;
+        this.resuming = highWater >= 0;
+        long now = generator.currentTimestamp();
+        this.clockRegression = highWater >= 0 && now < resumeFloor ? resumeFloor - now : 0L;
+    }
+
+    /**
+     * Attaches a state file to a generator with a reserve of {@value #DEFAULT_RESERVE_AHEAD_MILLIS} milliseconds.
+     *
+     * @param generator The generator, which must not have issued snowflakes yet.
+     * @param directory The directory of the state file.
+     * @return The attached state file.
+     * @throws IOException If the state file cannot be created, read, mapped or locked.
+     * @see #attach(SnowflakeGenerator, Path, long, TimeUnit)
+     */
+    public static SnowflakeStateFile attach(@NotNull SnowflakeGenerator generator, @NotNull Path directory) throws IOException {
+        return attach(generator, directory, DEFAULT_RESERVE_AHEAD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Attaches a state file to a generator. The state file is named after the data center ID and the worker ID of the
+     * generator and is created if it does not exist.
+     *
+     * @param generator    The generator, which must not have issued snowflakes yet.
+     * @param directory    The directory of the state file.
+     * @param reserveAhead How far past the timestamp of the latest snowflake the high-water mark is moved. Larger
+     *                     reserves write the file less often, but let a restarted generator run further ahead of the
+     *                     clock.
+     * @param unit         The unit of {@code reserveAhead}.
+     * @return The attached state file.
+     * @throws IOException              If the state file cannot be created, read, mapped or locked.
+     * @throws IllegalArgumentException If the state file belongs to a generator with another epoch or layout.
+     * @throws IllegalStateException    If the generator already has a state file.
+     */
+    public static SnowflakeStateFile attach(
+        @NotNull SnowflakeGenerator generator,
+        @NotNull Path directory,
+        @Range(from = 1, to = Long.MAX_VALUE) long reserveAhead,
+        @NotNull TimeUnit unit
+    ) throws IOException {
+        long reserveMillis = unit.toMillis(reserveAhead);
+        if (reserveMillis < 1) {
+            throw new IllegalArgumentException("Reserve must be at least one millisecond.");
+        }
+        long timestampUnit = generator.getLayout().getTimestampUnit();
+        long reserveUnits = (reserveMillis + timestampUnit - 1) / timestampUnit;
+        Path file = directory.resolve(String.format("snowflake-%d-%d.state", generator.getDataCenterId(), generator.getWorkerId()));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("State file " + file + " is in use by another generator.");
+            }
+            SnowflakeStateFile stateFile = new SnowflakeStateFile(generator, file, channel, lock, reserveUnits);
+            generator.attach(stateFile);
+            return stateFile;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the high-water mark. No snowflake with a later timestamp has been issued by the generator, before or after
+     * a restart.
+     *
+     * @return The high-water timestamp in milliseconds since the unix epoch, or {@code -1} if the generator never
+     * issued a snowflake.
+     */
+    public long getHighWater() {
+        long mark = highWater;
+        return mark < 0 ? -1L : generator.toMillis(mark);
+    }
+
+    /**
+     * Gets how far the clock was behind the clock seen by the previous run of the generator when the state file was
+     * attached.
+     *
+     * @return The regression in milliseconds, {@code 0} if the clock did not move backwards across the restart.
+     */
+    public long getClockRegressionOnAttach() {
+        return clockRegression * generator.getLayout().getTimestampUnit();
+    }
+    // </editor-fold>
+
+    /**
+     * Gets the state the generator resumes from, with an exhausted sequence at the loaded high-water mark.
+     */
+    long resumeState(int sequenceBits, int maxSequence) {
+        return resumeCeiling < 0 ? -1L : resumeCeiling << sequenceBits | maxSequence;
+    }
+
+    /**
+     * Checks whether a clock behind the last issued timestamp is explained by a restart within the reserved window.
+     * After a restart, the generator runs as a logical clock from the loaded mark on, possibly past it, until the clock
+     * catches up. Until then, any clock not behind the clock seen by the previous run is a resume. Afterwards, every
+     * regression goes through the clock regression policy.
+     */
+    boolean isResuming(long timestamp) {
+        return resuming && timestamp >= resumeFloor;
+    }
+
+    /**
+     * Ends the resume window. Called with every clock reading that is not behind the last issued timestamp, which is
+     * at or past the loaded mark.
+     */
+    void caughtUp() {
+        if (resuming) {
+            resuming = false;
+        }
+    }
+
+    /**
+     * Makes sure the high-water mark covers a timestamp about to be issued. Called whenever the generator moves to a
+     * new timestamp.
+     */
+    void reserve(long timestamp) {
+        long mark = highWater;
+        if (timestamp > mark) {
+            extend(timestamp + reserveAhead);
+        } else if (timestamp > mark - reserveAhead / 2 && extending.compareAndSet(false, true)) {
+            try {
+                Extender.EXECUTOR.execute(() -> {
+                    try {
+                        extend(timestamp + reserveAhead);
+                    } finally {
+                        extending.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                extending.set(false); // extended synchronously once the mark is reached
+            }
+        }
+    }
+
+    private synchronized void extend(long mark) {
+        if (mark <= highWater || closed) {
+            return;
+        }
+        buffer.putLong(HIGH_WATER_OFFSET, mark);
+        buffer.putLong(CLOCK_OFFSET, generator.currentTimestamp());
+        buffer.force();
+        highWater = mark;
+    }
+
+    private void writeHeader() {
+        SnowflakeLayout layout = generator.getLayout();
+        buffer.putInt(0, MAGIC)
+            .put(VERSION_OFFSET, VERSION)
+            .put(LAYOUT_OFFSET, (byte) layout.getTimestampBits())
+            .put(LAYOUT_OFFSET + 1, (byte) layout.getDataCenterIdBits())
+            .put(LAYOUT_OFFSET + 2, (byte) layout.getWorkerIdBits())
+            .put(LAYOUT_OFFSET + 3, (byte) layout.getSequenceBits())
+            .putLong(TIMESTAMP_UNIT_OFFSET, layout.getTimestampUnit())
+            .putLong(EPOCH_OFFSET, generator.getEpoch())
+            .putInt(DATA_CENTER_ID_OFFSET, generator.getDataCenterId())
+            .putInt(WORKER_ID_OFFSET, (int) generator.getWorkerId())
+            .putLong(HIGH_WATER_OFFSET, -1L)
+            .putLong(CLOCK_OFFSET, Long.MIN_VALUE);
+        buffer.force();
+    }
+
+    private void checkHeader() throws IOException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw new StreamCorruptedException("Not a snowflake state file: " + file);
+        }
+        if (buffer.get(VERSION_OFFSET) != VERSION) {
+            throw new StreamCorruptedException("Unsupported snowflake state file version " + buffer.get(VERSION_OFFSET) + ": " + file);
+        }
+        SnowflakeLayout layout = generator.getLayout();
+        if (buffer.get(LAYOUT_OFFSET) != layout.getTimestampBits()
+            || buffer.get(LAYOUT_OFFSET + 1) != layout.getDataCenterIdBits()
+            || buffer.get(LAYOUT_OFFSET + 2) != layout.getWorkerIdBits()
+            || buffer.get(LAYOUT_OFFSET + 3) != layout.getSequenceBits()
+            || buffer.getLong(TIMESTAMP_UNIT_OFFSET) != layout.getTimestampUnit()
+            || buffer.getLong(EPOCH_OFFSET) != generator.getEpoch()
+            || buffer.getInt(DATA_CENTER_ID_OFFSET) != generator.getDataCenterId()
+            || buffer.getInt(WORKER_ID_OFFSET) != generator.getWorkerId()) {
+            throw new IllegalArgumentException("State file " + file + " belongs to a generator with another epoch, layout or ID.");
+        }
+    }
+
+    /**
+     * Detaches the state file from the generator and releases the file. The generator keeps working without
+     * persisting its high-water mark.
+     *
+     * @throws IOException If the file cannot be released.
+     */
+    @Override
+    public void close() throws IOException {
+        generator.detach(this);
+        synchronized (this) {
+            closed = true; // waits for a pending extension
+        }
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeStateFile[" + file + ", highWater=" + getHighWater() + "]";
+    }
+
+    /**
+     * Moves the high-water marks of all state files ahead of their generators, one state file at a time.
+     */
+    private static final class Extender {
+        static final Executor EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "SnowflakeStateFileExtender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,304 @@
+package io.gitlab.k4zoku.snowflake.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static io.gitlab.k4zoku.snowflake.codec.SnowflakeBlockWriter.*;
+
+/**
+ * Reads snowflake values written by a {@link SnowflakeBlockWriter}, block by block.
+ * <pre>{@code
+ * try (SnowflakeBlockReader reader = SnowflakeBlockReader.open(path)) {
+ *     long[] values = new long[SnowflakeBlockWriter.DEFAULT_BLOCK_SIZE];
+ *     while (reader.nextBlock()) {
+ *         if (reader.getMaxTimestamp() < from || reader.getMinTimestamp() > to) {
+ *             reader.skipBlock();
+ *             continue;
+ *         }
+ *         int count = reader.readBlock(values, 0);
+ *         // ...
+ *     }
+ * }
+ * }</pre>
+ * Closing the reader closes the channel, or the file for {@link #open(Path)}.
+ */
+public class SnowflakeBlockReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default number of bytes {@link #open(Path)} maps at once.
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final @Nullable ReadableByteChannel channel; // null when the whole stream is in the buffer
+    private final @Nullable FileChannel file; // mapped window by window, null otherwise
+    private final int windowSize;
+    private ByteBuffer buffer;
+    private long windowOffset; // file position of the start of the buffer
+
+    private boolean inBlock;
+    private int count;
+    private int payloadLength;
+    private long minTimestamp;
+    private long maxTimestamp;
+
+    /**
+     * Create a block reader on top of a channel.
+     *
+     * @param channel The channel to read from.
+     * @throws IOException If the channel fails or does not start with a block stream header.
+     */
+    public SnowflakeBlockReader(@NotNull ReadableByteChannel channel) throws IOException {
+        this(channel, null, 0, (ByteBuffer) ByteBuffer.allocate(DEFAULT_BUFFER_SIZE).flip());
+    }
+
+    /**
+     * Create a block reader on top of a buffer holding a whole stream, from its position to its limit.
+     *
+     * @param buffer The buffer to read from. Its position is advanced while reading.
+     * @throws IOException If the buffer does not start with a block stream header.
+     */
+    public SnowflakeBlockReader(@NotNull ByteBuffer buffer) throws IOException {
+        this(null, null, 0, buffer);
+    }
+
+    private SnowflakeBlockReader(@Nullable ReadableByteChannel channel, @Nullable FileChannel file, int windowSize,
+                                 ByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.file = file;
+        this.windowSize = windowSize;
+        this.buffer = buffer;
+        if (!ensure(STREAM_HEADER_LENGTH) || this.buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a snowflake block stream.");
+        }
+        byte version = this.buffer.get();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported snowflake block stream version " + version + ".");
+        }
+    }
+
+    /**
+     * Opens a file as a block stream, mapping it into memory {@link #DEFAULT_WINDOW_SIZE} bytes at a time.
+     *
+     * @param file The file.
+     * @return The reader.
+     * @throws IOException If the file cannot be mapped or is not a block stream.
+     * @see #open(Path, int)
+     */
+    public static SnowflakeBlockReader open(@NotNull Path file) throws IOException {
+        return open(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a file as a block stream, mapping it into memory one window at a time.
+     * A window starts at the current block and is extended when a single block does not fit, so files of any size
+     * can be read, while a single mapping is limited to 2 GB.
+     *
+     * @param file       The file.
+     * @param windowSize The number of bytes to map at once.
+     * @return The reader.
+     * @throws IOException              If the file cannot be mapped or is not a block stream.
+     * @throws IllegalArgumentException If the window size is not positive.
+     */
+    public static SnowflakeBlockReader open(@NotNull Path file, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be positive");
+        }
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new SnowflakeBlockReader(fileChannel, fileChannel, windowSize, ByteBuffer.allocate(0));
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the header of the next block, skipping the rest of the current block.
+     *
+     * @return {@code false} at the end of the stream.
+     * @throws IOException If the channel fails or the stream is truncated.
+     */
+    public boolean nextBlock() throws IOException {
+        if (inBlock) {
+            skipBlock();
+        }
+        if (!ensure(1)) {
+            return false;
+        }
+        if (!ensure(BLOCK_HEADER_LENGTH)) {
+            throw new EOFException("Truncated block header.");
+        }
+        count = buffer.getInt();
+        payloadLength = buffer.getInt();
+        minTimestamp = buffer.getLong();
+        maxTimestamp = buffer.getLong();
+        if (count < 1 || payloadLength < count || payloadLength > (long) count * MAX_VARINT_LENGTH) {
+            throw new StreamCorruptedException("Invalid block header.");
+        }
+        inBlock = true;
+        return true;
+    }
+
+    // <editor-fold desc="Block header accessors" defaultstate="collapsed">
+
+    /**
+     * Gets the number of values of the current block.
+     *
+     * @return The number of values.
+     */
+    public int getCount() {
+        checkInBlock();
+        return count;
+    }
+
+    /**
+     * Gets the smallest timestamp of the values of the current block.
+     *
+     * @return The timestamp in milliseconds since the unix epoch.
+     */
+    public long getMinTimestamp() {
+        checkInBlock();
+        return minTimestamp;
+    }
+
+    /**
+     * Gets the largest timestamp of the values of the current block.
+     *
+     * @return The timestamp in milliseconds since the unix epoch.
+     */
+    public long getMaxTimestamp() {
+        checkInBlock();
+        return maxTimestamp;
+    }
+    // </editor-fold>
+
+    /**
+     * Skips the values of the current block without decoding them.
+     *
+     * @throws IOException If the channel fails or the stream is truncated.
+     */
+    public void skipBlock() throws IOException {
+        checkInBlock();
+        inBlock = false;
+        int remaining = payloadLength;
+        while (remaining > 0) {
+            if (!ensure(1)) {
+                throw new EOFException("Truncated block.");
+            }
+            int n = Math.min(remaining, buffer.remaining());
+            buffer.position(buffer.position() + n);
+            remaining -= n;
+        }
+    }
+
+    /**
+     * Decodes the values of the current block into an array.
+     *
+     * @param dst    The array to write the values to.
+     * @param offset The index of the first value to write.
+     * @return The number of values written, which is {@link #getCount()}.
+     * @throws IOException               If the channel fails or the stream is corrupted.
+     * @throws IndexOutOfBoundsException If the block does not fit into the array.
+     */
+    public int readBlock(@NotNull long[] dst, int offset) throws IOException {
+        checkInBlock();
+        if (offset < 0 || offset > dst.length - count) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d + %d) out of bounds for length %d", offset, offset, count, dst.length));
+        }
+        if (!ensure(payloadLength)) {
+            throw new EOFException("Truncated block.");
+        }
+        inBlock = false;
+        int end = buffer.position() + payloadLength;
+        long value = 0L;
+        for (int i = offset; i < offset + count; i++) {
+            long zigzag = getVarint(end);
+            value += zigzag >>> 1 ^ -(zigzag & 1);
+            dst[i] = value;
+        }
+        if (buffer.position() != end) {
+            throw new StreamCorruptedException("Block payload length mismatch.");
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private long getVarint(int end) throws StreamCorruptedException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (buffer.position() >= end) {
+                break;
+            }
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint.");
+    }
+
+    /**
+     * Makes sure at least {@code n} bytes are buffered, mapping the next window or reading from the channel if
+     * necessary.
+     *
+     * @return {@code false} if the stream ends before.
+     */
+    private boolean ensure(int n) throws IOException {
+        if (buffer.remaining() >= n) {
+            return true;
+        }
+        if (file != null) {
+            long position = windowOffset + buffer.position();
+            long available = file.size() - position;
+            if (available < n) {
+                return false;
+            }
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, position, Math.min(available, Math.max(n, windowSize)));
+            windowOffset = position;
+            return true;
+        }
+        if (channel == null) {
+            return false;
+        }
+        if (buffer.capacity() < n) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(n, buffer.capacity() * 2));
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < n) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= n;
+    }
+
+    private void checkInBlock() {
+        if (!inBlock) {
+            throw new IllegalStateException("No current block, call nextBlock() first.");
+        }
+    }
+}
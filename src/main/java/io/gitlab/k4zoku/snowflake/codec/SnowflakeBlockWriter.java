@@ -0,0 +1,193 @@
+package io.gitlab.k4zoku.snowflake.codec;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes snowflake values to a channel in the compact block format read by {@link SnowflakeBlockReader}.
+ * <p>
+ * Values are buffered into blocks of up to {@code blockSize} values. Every block starts with a header holding the
+ * number of values, the length of the payload and the smallest and largest timestamp of its values, so readers can
+ * skip blocks by time without decoding them. The payload stores every value as the zigzag varint of its difference to
+ * the previous value of the block. Values of a single generator are increasing and mostly close together, so most of
+ * them take one to four bytes instead of eight.
+ * </p>
+ * <pre>
+ *     stream: magic (4) | version (1) | block*
+ *     block:  count (4) | payload length (4) | min timestamp (8) | max timestamp (8) | varint*
+ * </pre>
+ * Closing the writer writes the last block and closes the channel.
+ */
+public class SnowflakeBlockWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+    static final int MAGIC = 0x534E4642; // "SNFB"
+    static final byte VERSION = 1;
+    static final int STREAM_HEADER_LENGTH = 5;
+    static final int BLOCK_HEADER_LENGTH = 24;
+    static final int MAX_VARINT_LENGTH = 10;
+
+    private final WritableByteChannel channel;
+    private final SnowflakeLayout layout;
+    private final long epoch;
+    private final long[] block;
+    private final ByteBuffer buffer;
+    private int size;
+    private boolean closed;
+
+    /**
+     * Create a block writer.
+     *
+     * @param channel   The channel to write to.
+     * @param layout    The layout of the snowflakes, used to compute the timestamps of the block headers.
+     * @param epoch     The epoch of the snowflakes. (milliseconds since unix epoch)
+     * @param blockSize The maximum number of values per block.
+     */
+    public SnowflakeBlockWriter(
+        @NotNull WritableByteChannel channel,
+        @NotNull SnowflakeLayout layout,
+        @Range(from = 0, to = Long.MAX_VALUE) long epoch,
+        @Range(from = 1, to = Integer.MAX_VALUE / MAX_VARINT_LENGTH) int blockSize
+    ) {
+        if (blockSize < 1 || blockSize > (Integer.MAX_VALUE - BLOCK_HEADER_LENGTH) / MAX_VARINT_LENGTH) {
+            throw new IllegalArgumentException("Block size out of range.");
+        }
+        this.channel = channel;
+        this.layout = layout;
+        this.epoch = epoch;
+        this.block = new long[blockSize];
+        this.buffer = ByteBuffer.allocate(STREAM_HEADER_LENGTH + BLOCK_HEADER_LENGTH + blockSize * MAX_VARINT_LENGTH);
+        this.buffer.putInt(MAGIC).put(VERSION);
+    }
+
+    /**
+     * Create a block writer for snowflakes of the default layout and epoch with a block size of
+     * {@value #DEFAULT_BLOCK_SIZE}.
+     *
+     * @param channel The channel to write to.
+     */
+    public SnowflakeBlockWriter(@NotNull WritableByteChannel channel) {
+        this(channel, SnowflakeLayout.DEFAULT, SnowflakeGenerator.getDefaultEpoch(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Writes a value, writing the block to the channel once it is full.
+     *
+     * @param value The value of a snowflake.
+     * @throws IOException If the channel fails.
+     */
+    public void write(long value) throws IOException {
+        ensureOpen();
+        block[size++] = value;
+        if (size == block.length) {
+            writeBlock();
+        }
+    }
+
+    public void write(@NotNull Snowflake snowflake) throws IOException {
+        write(snowflake.longValue());
+    }
+
+    /**
+     * Writes {@code length} values of an array, starting at {@code offset}.
+     *
+     * @param values The values.
+     * @param offset The index of the first value.
+     * @param length The number of values.
+     * @throws IOException If the channel fails.
+     */
+    public void write(@NotNull long[] values, int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d + %d) out of bounds for length %d", offset, offset, length, values.length));
+        }
+        ensureOpen();
+        while (length > 0) {
+            int n = Math.min(length, block.length - size);
+            System.arraycopy(values, offset, block, size, n);
+            size += n;
+            offset += n;
+            length -= n;
+            if (size == block.length) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered values as a block, even if it is not full.
+     *
+     * @throws IOException If the channel fails.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeBlock();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (size > 0) {
+            int headerPosition = buffer.position();
+            buffer.position(headerPosition + BLOCK_HEADER_LENGTH);
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long previous = 0L;
+            for (int i = 0; i < size; i++) {
+                long value = block[i];
+                long timestamp = layout.getTimestamp(value, epoch);
+                min = Math.min(min, timestamp);
+                max = Math.max(max, timestamp);
+                putVarint(buffer, (value - previous) << 1 ^ (value - previous) >> 63);
+                previous = value;
+            }
+            int payloadLength = buffer.position() - headerPosition - BLOCK_HEADER_LENGTH;
+            buffer.putInt(headerPosition, size)
+                .putInt(headerPosition + 4, payloadLength)
+                .putLong(headerPosition + 8, min)
+                .putLong(headerPosition + 16, max);
+            size = 0;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed.");
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package io.gitlab.k4zoku.snowflake.codec;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-width text encodings of snowflakes.
+ * <p>
+ * Every encoding writes the value as an unsigned 64-bit number padded with leading zero digits to the width of the
+ * largest value, using an alphabet in ASCII order. Encoded values therefore sort like the snowflakes, both as strings
+ * and as bytes. Encoding and decoding work on caller-provided buffers and allocate nothing, except for
+ * {@link #encode(long)}.
+ * </p>
+ * <pre>{@code
+ * char[] buffer = new char[SnowflakeCodec.BASE62.getWidth()];
+ * SnowflakeCodec.BASE62.encode(snowflake.longValue(), buffer, 0);
+ * long value = SnowflakeCodec.BASE62.decode(CharBuffer.wrap(buffer));
+ * }</pre>
+ *
+ * @see io.gitlab.k4zoku.snowflake.Snowflake#toString(SnowflakeCodec)
+ * @see io.gitlab.k4zoku.snowflake.Snowflake#of(CharSequence, SnowflakeCodec)
+ */
+public final class SnowflakeCodec {
+
+    /**
+     * Lower-case hexadecimal, 16 characters. Decoding ignores case.
+     */
+    public static final SnowflakeCodec HEX = new SnowflakeCodec("hex", "0123456789abcdef", "ABCDEF", "abcdef");
+
+    /**
+     * Crockford's base32, 13 characters. Decoding ignores case and reads {@code I} and {@code L} as {@code 1} and
+     * {@code O} as {@code 0}.
+     */
+    public static final SnowflakeCodec CROCKFORD_BASE32 = new SnowflakeCodec("base32",
+        "0123456789ABCDEFGHJKMNPQRSTVWXYZ",
+        "abcdefghjkmnpqrstvwxyzIiLlOo",
+        "ABCDEFGHJKMNPQRSTVWXYZ111100");
+
+    /**
+     * Base62 with digits, upper-case and lower-case letters in this order, 11 characters. Decoding is case-sensitive.
+     */
+    public static final SnowflakeCodec BASE62 = new SnowflakeCodec("base62",
+        "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", "", "");
+
+    private static final long HALF_BASE62 = 31L;
+
+    private final String name;
+    private final int radix;
+    private final int width;
+    private final char[] digits;
+    private final byte[] values = new byte[128];
+    private final int shift; // log2 of the radix if it is a power of two, otherwise 0
+    private final long maxBeforeMultiply;
+
+    private SnowflakeCodec(String name, String alphabet, String aliases, String aliased) {
+        this.name = name;
+        this.radix = alphabet.length();
+        this.digits = alphabet.toCharArray();
+        Arrays.fill(values, (byte) -1);
+        for (int i = 0; i < radix; i++) {
+            values[digits[i]] = (byte) i;
+        }
+        for (int i = 0; i < aliases.length(); i++) {
+            values[aliases.charAt(i)] = values[aliased.charAt(i)];
+        }
+        int w = 0;
+        for (long v = -1L; v != 0; v = Long.divideUnsigned(v, radix)) {
+            w++;
+        }
+        this.width = w;
+        this.shift = Integer.bitCount(radix) == 1 ? Integer.numberOfTrailingZeros(radix) : 0;
+        if (shift == 0 && radix != 2 * HALF_BASE62) {
+            throw new IllegalArgumentException("Radix must be a power of two or 62.");
+        }
+        this.maxBeforeMultiply = Long.divideUnsigned(-1L, radix);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRadix() {
+        return radix;
+    }
+
+    /**
+     * Gets the number of characters of every encoded value.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    // <editor-fold desc="Encoding" defaultstate="collapsed">
+
+    /**
+     * Encodes a value into a new string. Prefer the other encode methods on hot paths.
+     *
+     * @param value The value.
+     * @return The encoded value.
+     */
+    public String encode(long value) {
+        char[] chars = new char[width];
+        encode(value, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Encodes a value into a char array.
+     *
+     * @param value  The value.
+     * @param dst    The array to write to.
+     * @param offset The index of the first character to write.
+     * @return The index after the last written character.
+     * @throws IndexOutOfBoundsException If fewer than {@link #getWidth()} characters fit into the array.
+     */
+    public int encode(long value, @NotNull char[] dst, int offset) {
+        checkBounds(dst.length, offset, width);
+        long v = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            long quotient = divide(v);
+            dst[i] = digits[(int) (v - quotient * radix)];
+            v = quotient;
+        }
+        return offset + width;
+    }
+
+    /**
+     * Encodes a value into a byte array as ASCII.
+     *
+     * @param value  The value.
+     * @param dst    The array to write to.
+     * @param offset The index of the first byte to write.
+     * @return The index after the last written byte.
+     * @throws IndexOutOfBoundsException If fewer than {@link #getWidth()} bytes fit into the array.
+     */
+    public int encode(long value, @NotNull byte[] dst, int offset) {
+        checkBounds(dst.length, offset, width);
+        long v = value;
+        for (int i = offset + width - 1; i >= offset; i--) {
+            long quotient = divide(v);
+            dst[i] = (byte) digits[(int) (v - quotient * radix)];
+            v = quotient;
+        }
+        return offset + width;
+    }
+
+    /**
+     * Appends an encoded value to a string builder.
+     *
+     * @param value The value.
+     * @param dst   The string builder.
+     * @return The string builder.
+     */
+    public StringBuilder encode(long value, @NotNull StringBuilder dst) {
+        int start = dst.length();
+        dst.setLength(start + width);
+        long v = value;
+        for (int i = start + width - 1; i >= start; i--) {
+            long quotient = divide(v);
+            dst.setCharAt(i, digits[(int) (v - quotient * radix)]);
+            v = quotient;
+        }
+        return dst;
+    }
+
+    /**
+     * Writes an encoded value as ASCII at the position of a byte buffer, advancing its position.
+     *
+     * @param value The value.
+     * @param dst   The buffer.
+     * @return The buffer.
+     * @throws BufferOverflowException If fewer than {@link #getWidth()} bytes remain in the buffer.
+     */
+    public ByteBuffer encode(long value, @NotNull ByteBuffer dst) {
+        if (dst.remaining() < width) {
+            throw new BufferOverflowException();
+        }
+        int start = dst.position();
+        long v = value;
+        for (int i = start + width - 1; i >= start; i--) {
+            long quotient = divide(v);
+            dst.put(i, (byte) digits[(int) (v - quotient * radix)]);
+            v = quotient;
+        }
+        dst.position(start + width);
+        return dst;
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="Decoding" defaultstate="collapsed">
+
+    /**
+     * Decodes a value. Leading zero digits may be omitted.
+     *
+     * @param src The encoded value.
+     * @return The value.
+     * @throws NumberFormatException If the text is empty, too long, contains an invalid digit or overflows.
+     */
+    public long decode(@NotNull CharSequence src) {
+        return decode(src, 0, src.length());
+    }
+
+    /**
+     * Decodes a value from a range of a character sequence. Leading zero digits may be omitted.
+     *
+     * @param src   The character sequence.
+     * @param start The index of the first character.
+     * @param end   The index after the last character.
+     * @return The value.
+     * @throws NumberFormatException If the range is empty, too long, contains an invalid digit or overflows.
+     */
+    public long decode(@NotNull CharSequence src, int start, int end) {
+        checkBounds(src.length(), start, end - start);
+        checkLength(end - start);
+        long value = 0L;
+        for (int i = start; i < end - 1; i++) {
+            value = value * radix + digit(src.charAt(i));
+        }
+        return accumulateLast(value, src.charAt(end - 1), end - start);
+    }
+
+    /**
+     * Decodes a value from ASCII bytes. Leading zero digits may be omitted.
+     *
+     * @param src    The byte array.
+     * @param offset The index of the first byte.
+     * @param length The number of bytes.
+     * @return The value.
+     * @throws NumberFormatException If the range is empty, too long, contains an invalid digit or overflows.
+     */
+    public long decode(@NotNull byte[] src, int offset, int length) {
+        checkBounds(src.length, offset, length);
+        checkLength(length);
+        long value = 0L;
+        int last = offset + length - 1;
+        for (int i = offset; i < last; i++) {
+            value = value * radix + digit((char) (src[i] & 0xFF));
+        }
+        return accumulateLast(value, (char) (src[last] & 0xFF), length);
+    }
+
+    /**
+     * Decodes a value from ASCII bytes of a byte buffer without changing its position.
+     *
+     * @param src    The buffer.
+     * @param index  The index of the first byte.
+     * @param length The number of bytes.
+     * @return The value.
+     * @throws NumberFormatException If the range is empty, too long, contains an invalid digit or overflows.
+     */
+    public long decode(@NotNull ByteBuffer src, int index, int length) {
+        checkBounds(src.limit(), index, length);
+        checkLength(length);
+        long value = 0L;
+        int last = index + length - 1;
+        for (int i = index; i < last; i++) {
+            value = value * radix + digit((char) (src.get(i) & 0xFF));
+        }
+        return accumulateLast(value, (char) (src.get(last) & 0xFF), length);
+    }
+    // </editor-fold>
+
+    /**
+     * Divides an unsigned value by the radix. Base62 uses {@code floor(v / 62) == floor((v >>> 1) / 31)}, a signed
+     * division by a constant that the JIT compiles to a multiplication.
+     */
+    private long divide(long v) {
+        return shift != 0 ? v >>> shift : (v >>> 1) / HALF_BASE62;
+    }
+
+    private int digit(char c) {
+        int digit = c < 128 ? values[c] : -1;
+        if (digit < 0) {
+            throw new NumberFormatException(String.format("Invalid %s digit '%c'", name, c));
+        }
+        return digit;
+    }
+
+    /**
+     * Adds the last digit. Fewer than {@link #width} digits always fit into 64 bits, so only the last digit of a
+     * full-width value can overflow.
+     */
+    private long accumulateLast(long value, char c, int length) {
+        int digit = digit(c);
+        if (length < width) {
+            return value * radix + digit;
+        }
+        if (Long.compareUnsigned(value, maxBeforeMultiply) > 0) {
+            throw new NumberFormatException(String.format("Value out of range for %s", name));
+        }
+        long multiplied = value * radix;
+        long result = multiplied + digit;
+        if (Long.compareUnsigned(result, multiplied) < 0) {
+            throw new NumberFormatException(String.format("Value out of range for %s", name));
+        }
+        return result;
+    }
+
+    private void checkLength(int length) {
+        if (length == 0 || length > width) {
+            throw new NumberFormatException(String.format("Expected 1 to %d %s digits but got %d", width, name, length));
+        }
+    }
+
+    private static void checkBounds(int size, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > size - length) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d + %d) out of bounds for length %d", offset, offset, length, size));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeCodec[" + name + "]";
+    }
+}
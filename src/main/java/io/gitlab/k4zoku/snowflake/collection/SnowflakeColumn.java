@@ -0,0 +1,385 @@
+package io.gitlab.k4zoku.snowflake.collection;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable, compressed column of strictly increasing snowflake values, using the Elias-Fano encoding.
+ * <p>
+ * Every value is split into its {@code l} low bits, stored verbatim in a packed array, and its high bits, stored in
+ * unary as gaps in a bit vector. Values are stored relative to the first value, so with {@code n} values spanning
+ * {@code u}, {@code l} is {@code floor(log2(u / n))} and the column takes about {@code 2 + log2(u / n)} bits per
+ * value. The high bits of a snowflake are its timestamp, so values of a generator running at a steady rate take two
+ * to three bytes each.
+ * </p>
+ * <p>
+ * Sampled positions of every {@value #SAMPLE_RATE}th set and unset bit of the high bits make {@link #get(int)},
+ * {@link #rank(long)}, {@link #contains(long)} and timestamp range queries run in constant time for evenly spread
+ * values.
+ * </p>
+ * <pre>{@code
+ * SnowflakeColumn column = SnowflakeColumn.builder().addAll(values, 0, values.length).build();
+ * long count = column.between(from, to).count();
+ * }</pre>
+ *
+ * @see SnowflakeColumnBuilder
+ */
+public final class SnowflakeColumn {
+
+    static final int SAMPLE_RATE = 256;
+
+    private final SnowflakeLayout layout;
+    private final long epoch;
+    private final int size;
+    private final long base; // the first value, every value is stored relative to it
+    private final int lowBits;
+    private final long lowMask;
+    private final long[] lows;
+    private final long[] highs;
+    private final long highLength; // number of bits of the high bit vector
+    private final long[] ones; // position of every SAMPLE_RATE-th set bit of the high bits
+    private final long[] zeros; // position of every SAMPLE_RATE-th unset bit of the high bits
+
+    /**
+     * Encodes strictly increasing, non-negative values.
+     *
+     * @param first  The first value.
+     * @param last   The last value.
+     * @param values The {@code size} values, from {@code first} to {@code last}.
+     */
+    SnowflakeColumn(SnowflakeLayout layout, long epoch, int size, long first, long last,
+                    PrimitiveIterator.OfLong values) {
+        this.layout = layout;
+        this.epoch = epoch;
+        this.size = size;
+        this.base = size == 0 ? 0L : first;
+        long universe = size == 0 ? 0L : last - base;
+        this.lowBits = size == 0 || universe / size == 0 ? 0 : 63 - Long.numberOfLeadingZeros(universe / size);
+        this.lowMask = lowBits == 0 ? 0L : -1L >>> (64 - lowBits);
+        this.lows = new long[(int) (((long) size * lowBits + 63) >>> 6)];
+        long highCount = size == 0 ? 0L : (universe >>> lowBits) + 1;
+        this.highLength = size + highCount;
+        this.highs = new long[(int) ((highLength + 63) >>> 6)];
+        this.ones = new long[(size + SAMPLE_RATE - 1) / SAMPLE_RATE];
+        this.zeros = new long[(int) ((highCount + SAMPLE_RATE - 1) / SAMPLE_RATE)];
+
+        for (int i = 0; i < size; i++) {
+            long relative = values.nextLong() - base;
+            setLow(i, relative & lowMask);
+            long position = (relative >>> lowBits) + i;
+            highs[(int) (position >>> 6)] |= 1L << position;
+        }
+
+        int one = 0;
+        long zero = 0L;
+        for (long position = 0; position < highLength; position++) {
+            if ((highs[(int) (position >>> 6)] & 1L << position) != 0) {
+                if (one % SAMPLE_RATE == 0) {
+                    ones[one / SAMPLE_RATE] = position;
+                }
+                one++;
+            } else {
+                if (zero % SAMPLE_RATE == 0 && zero / SAMPLE_RATE < zeros.length) {
+                    zeros[(int) (zero / SAMPLE_RATE)] = position;
+                }
+                zero++;
+            }
+        }
+    }
+
+    public static SnowflakeColumnBuilder builder() {
+        return new SnowflakeColumnBuilder();
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public SnowflakeLayout getLayout() {
+        return layout;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the approximate number of bytes of the encoded values, without the object headers.
+     *
+     * @return The number of bytes.
+     */
+    public long getSizeInBytes() {
+        return 8L * (lows.length + highs.length + ones.length + zeros.length);
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="Queries" defaultstate="collapsed">
+
+    /**
+     * Gets the value at an index, also known as {@code select}.
+     *
+     * @param index The index.
+     * @return The value.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds for length %d", index, size));
+        }
+        return ((selectOne(index) - index) << lowBits | getLow(index)) + base;
+    }
+
+    /**
+     * Counts the values less than a value.
+     *
+     * @param value The value.
+     * @return The number of values less than {@code value}, which is also the index of the first value greater than or
+     * equal to {@code value}.
+     */
+    public int rank(long value) {
+        if (size == 0 || value <= base) {
+            return 0;
+        }
+        long relative = value - base;
+        long high = relative >>> lowBits;
+        if (high > highLength - size - 1) {
+            return size;
+        }
+        long low = relative & lowMask;
+        // the values with high bits below high are the set bits before the high-th unset bit, and the values with the
+        // same high bits are the set bits between the high-th and the next unset bit
+        int from = (int) ((high == 0 ? 0L : selectZero(high - 1) + 1) - high);
+        int to = (int) (selectZero(high) - high);
+        // sequences of the same timestamp share their high bits, so a bucket can hold many values
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (getLow(middle) < low) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Gets the index of a value.
+     *
+     * @param value The value.
+     * @return The index, or {@code -1} if the column does not contain the value.
+     */
+    public int indexOf(long value) {
+        int index = rank(value);
+        return index < size && get(index) == value ? index : -1;
+    }
+
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Counts the values with a timestamp before an instant.
+     *
+     * @param timestamp The instant. (milliseconds since unix epoch)
+     * @return The number of values with a timestamp before {@code timestamp}, which is also the index of the first
+     * value with a timestamp at or after {@code timestamp}.
+     */
+    public int rankOfTimestamp(long timestamp) {
+        if (timestamp <= epoch) {
+            return 0;
+        }
+        long unit = layout.getTimestampUnit();
+        long units = (timestamp - epoch + unit - 1) / unit;
+        if (units > layout.getMaxTimestamp()) {
+            return size;
+        }
+        return rank(units << layout.getTimestampShift());
+    }
+
+    /**
+     * Streams the values with a timestamp in {@code [from, to)}, in increasing order.
+     *
+     * @param from The first instant. (milliseconds since unix epoch, inclusive)
+     * @param to   The last instant. (milliseconds since unix epoch, exclusive)
+     * @return The values.
+     */
+    public LongStream between(long from, long to) {
+        int start = rankOfTimestamp(from);
+        return stream(start, Math.max(start, rankOfTimestamp(to)));
+    }
+
+    /**
+     * Streams the values with a timestamp in {@code [from, to)}, in increasing order.
+     *
+     * @param from The first instant. (inclusive)
+     * @param to   The last instant. (exclusive)
+     * @return The values.
+     */
+    public LongStream between(@NotNull Instant from, @NotNull Instant to) {
+        return between(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    public LongStream stream() {
+        return stream(0, size);
+    }
+
+    /**
+     * Streams the values from index {@code start} to index {@code end}, decoding them sequentially.
+     *
+     * @param start The index of the first value. (inclusive)
+     * @param end   The index of the last value. (exclusive)
+     * @return The values.
+     */
+    public LongStream stream(int start, int end) {
+        if (start < 0 || start > end || end > size) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d) out of bounds for length %d", start, end, size));
+        }
+        return StreamSupport.longStream(new Cursor(start, end), false);
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="Bit operations" defaultstate="collapsed">
+    private long getLow(int index) {
+        if (lowBits == 0) {
+            return 0L;
+        }
+        long offset = (long) index * lowBits;
+        int word = (int) (offset >>> 6);
+        int shift = (int) (offset & 63);
+        long low = lows[word] >>> shift;
+        if (shift + lowBits > 64) {
+            low |= lows[word + 1] << (64 - shift);
+        }
+        return low & lowMask;
+    }
+
+    private void setLow(int index, long low) {
+        if (lowBits == 0) {
+            return;
+        }
+        long offset = (long) index * lowBits;
+        int word = (int) (offset >>> 6);
+        int shift = (int) (offset & 63);
+        lows[word] |= low << shift;
+        if (shift + lowBits > 64) {
+            lows[word + 1] |= low >>> (64 - shift);
+        }
+    }
+
+    /**
+     * Gets the position of the {@code rank}-th set bit of the high bits.
+     */
+    private long selectOne(int rank) {
+        long position = ones[rank / SAMPLE_RATE];
+        int remaining = rank % SAMPLE_RATE;
+        int word = (int) (position >>> 6);
+        long bits = highs[word] & -1L << position;
+        int count;
+        while ((count = Long.bitCount(bits)) <= remaining) {
+            remaining -= count;
+            bits = highs[++word];
+        }
+        return ((long) word << 6) + selectInWord(bits, remaining);
+    }
+
+    /**
+     * Gets the position of the {@code rank}-th unset bit of the high bits.
+     */
+    private long selectZero(long rank) {
+        long position = zeros[(int) (rank / SAMPLE_RATE)];
+        int remaining = (int) (rank % SAMPLE_RATE);
+        int word = (int) (position >>> 6);
+        long bits = ~highs[word] & -1L << position;
+        int count;
+        while ((count = Long.bitCount(bits)) <= remaining) {
+            remaining -= count;
+            bits = ~highs[++word];
+        }
+        return ((long) word << 6) + selectInWord(bits, remaining);
+    }
+
+    /**
+     * Gets the position of the {@code rank}-th set bit of a word by halving the word until a byte is left.
+     */
+    private static int selectInWord(long bits, int rank) {
+        int position = 0;
+        for (int width = 32; width >= 8; width >>>= 1) {
+            int count = Long.bitCount(bits & (-1L >>> (64 - width)));
+            if (rank >= count) {
+                rank -= count;
+                position += width;
+                bits >>>= width;
+            }
+        }
+        for (int i = 0; i < rank; i++) {
+            bits &= bits - 1;
+        }
+        return position + Long.numberOfTrailingZeros(bits);
+    }
+    // </editor-fold>
+
+    /**
+     * Decodes consecutive values by walking the set bits of the high bits, without selecting every value.
+     */
+    private final class Cursor extends Spliterators.AbstractLongSpliterator {
+        private int index;
+        private final int end;
+        private long position;
+
+        Cursor(int start, int end) {
+            super(end - start, Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                | Spliterator.IMMUTABLE | Spliterator.SIZED);
+            this.index = start;
+            this.end = end;
+            this.position = start < end ? selectOne(start) : 0L;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (index >= end) {
+                return false;
+            }
+            int word = (int) (position >>> 6);
+            long bits = highs[word] & -1L << position;
+            while (bits == 0) {
+                bits = highs[++word];
+            }
+            position = ((long) word << 6) + Long.numberOfTrailingZeros(bits);
+            long value = ((position - index) << lowBits | getLow(index)) + base;
+            index++;
+            position++;
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeColumn[size=" + size + ", lowBits=" + lowBits + ", bytes=" + getSizeInBytes() + "]";
+    }
+}
@@ -0,0 +1,155 @@
+package io.gitlab.k4zoku.snowflake.collection;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Collects strictly increasing snowflake values for a {@link SnowflakeColumn}.
+ * <p>
+ * The values are buffered as the varint encoded differences between consecutive values until {@link #build()}, which
+ * needs the count and the range of the values to choose the encoding of the column. Values of a generator differ by
+ * one within a millisecond and by a few million across milliseconds, so they take one to four bytes each, instead of
+ * eight as an array. The buffer is limited to 2 GB.
+ * </p>
+ */
+public class SnowflakeColumnBuilder {
+    private long epoch = SnowflakeGenerator.getDefaultEpoch();
+    private SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+    private byte[] deltas = new byte[64];
+    private int length = 0; // number of bytes of deltas
+    private int size = 0;
+    private long first = -1L;
+    private long last = -1L;
+
+    SnowflakeColumnBuilder() {
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeColumnBuilder epoch(@Range(from = 0, to = Long.MAX_VALUE) long epoch) {
+        this.epoch = epoch;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeColumnBuilder layout(@NotNull SnowflakeLayout layout) {
+        this.layout = layout;
+        return this;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value.
+     * @return This builder.
+     * @throws IllegalArgumentException If the value is negative or not greater than the last value.
+     */
+    @Contract("_ -> this")
+    public SnowflakeColumnBuilder add(long value) {
+        if (value <= last) {
+            throw new IllegalArgumentException(
+                String.format("Values must be strictly increasing and non-negative, but got %d after %d", value, last));
+        }
+        if (size == Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Too many values.");
+        }
+        if (size == 0) {
+            first = value;
+        } else {
+            putVarint(value - last);
+        }
+        last = value;
+        size++;
+        return this;
+    }
+
+    @Contract("_ -> this")
+    public SnowflakeColumnBuilder add(@NotNull Snowflake snowflake) {
+        return add(snowflake.longValue());
+    }
+
+    /**
+     * Adds values.
+     *
+     * @param values The values.
+     * @param offset The index of the first value to add.
+     * @param length The number of values to add.
+     * @return This builder.
+     * @throws IllegalArgumentException If a value is negative or not greater than the previous value. The values
+     *                                  before it are added.
+     */
+    @Contract("_, _, _ -> this")
+    public SnowflakeColumnBuilder addAll(@NotNull long[] values, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException(
+                String.format("Range [%d, %d + %d) out of bounds for length %d", offset, offset, length, values.length));
+        }
+        for (int i = offset; i < offset + length; i++) {
+            add(values[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Encodes the collected values.
+     *
+     * @return The column.
+     */
+    public SnowflakeColumn build() {
+        return new SnowflakeColumn(layout, epoch, size, first, last, new Values());
+    }
+
+    private void putVarint(long value) {
+        if (length > deltas.length - 10) {
+            if (deltas.length == Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("Too many values.");
+            }
+            deltas = Arrays.copyOf(deltas, (int) Math.min(Integer.MAX_VALUE - 8, deltas.length * 2L));
+        }
+        while ((value & ~0x7FL) != 0) {
+            deltas[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        deltas[length++] = (byte) value;
+    }
+
+    /**
+     * Decodes the collected values.
+     */
+    private final class Values implements PrimitiveIterator.OfLong {
+        private int index = 0;
+        private int position = 0;
+        private long value = first;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            if (index++ > 0) {
+                long delta = 0L;
+                byte b;
+                int shift = 0;
+                do {
+                    b = deltas[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                value += delta;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.gitlab.k4zoku.snowflake.common.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Thread utilities that are not available on every supported Java version.
+ * <p>
+ * This class looks the methods up at runtime. The multi-release jar replaces it with a version that calls them
+ * directly on Java 21 and later.
+ * </p>
+ */
+public final class Threads {
+
+    private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+    private static final MethodHandle[] VIRTUAL_BUILDER = findVirtualBuilder(); // ofVirtual, name, unstarted
+
+    private Threads() {
+    }
+
+    /**
+     * Indicates that the caller is busy-waiting, using {@code Thread.onSpinWait()} when the runtime provides it.
+     * Does nothing on Java 8.
+     */
+    public static void onSpinWait() {
+        if (ON_SPIN_WAIT != null) {
+            try {
+                ON_SPIN_WAIT.invokeExact();
+            } catch (Throwable ignored) {
+                // onSpinWait() does not throw
+            }
+        }
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads.
+     *
+     * @return {@code true} on Java 21 and later, and on Java 19 and 20 with preview features enabled.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_BUILDER != null;
+    }
+
+    /**
+     * Checks whether a thread is a virtual thread.
+     *
+     * @param thread The thread.
+     * @return {@code true} if the thread is virtual, always {@code false} before Java 21.
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL != null) {
+            try {
+                return (boolean) IS_VIRTUAL.invokeExact(thread);
+            } catch (Throwable ignored) {
+                // isVirtual() does not throw
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an unstarted virtual thread.
+     *
+     * @param name The name of the thread.
+     * @param task The task the thread runs.
+     * @return The thread.
+     * @throws UnsupportedOperationException If the runtime does not support virtual threads.
+     */
+    public static Thread newVirtualThread(String name, Runnable task) {
+        MethodHandle[] builder = VIRTUAL_BUILDER;
+        if (builder == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+        }
+        try {
+            Object ofVirtual = builder[0].invoke();
+            return (Thread) builder[2].invoke(builder[1].invoke(ofVirtual, name), task);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findOnSpinWait() {
+        try {
+            return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles.lookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle[] findVirtualBuilder() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Class<?> ofVirtual = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            MethodHandle[] handles = new MethodHandle[]{
+                lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtual)),
+                lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class)),
+                lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class))
+            };
+            handles[0].invoke(); // a preview API on Java 19 and 20, which throws unless preview features are enabled
+            return handles;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A demand-driven source of snowflakes, the Java 8 core of the {@code java.util.concurrent.Flow} publishers of the
+ * {@code snowflake-flow} module.
+ * <p>
+ * Subscribers request elements, and snowflakes are generated for them on an executor in batches. A source either
+ * generates with one generator on any executor, or with the generators of the workers of a
+ * {@link SnowflakeParallelGenerator} on the workers themselves.
+ * </p>
+ *
+ * @see SnowflakeSubscription
+ */
+public final class SnowflakeSource {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final Supplier<SnowflakeGenerator> generator;
+    private final int batchSize;
+
+    private SnowflakeSource(Executor executor, Supplier<SnowflakeGenerator> generator, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        this.executor = executor;
+        this.generator = generator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates a source that generates with a generator on an executor.
+     *
+     * @param generator The generator.
+     * @param executor  The executor the batches are generated on.
+     * @param batchSize The maximum number of snowflakes generated at once for a subscriber.
+     * @return The source.
+     */
+    public static SnowflakeSource of(
+        @NotNull SnowflakeGenerator generator,
+        @NotNull Executor executor,
+        @Range(from = 1, to = Integer.MAX_VALUE) int batchSize
+    ) {
+        return new SnowflakeSource(executor, () -> generator, batchSize);
+    }
+
+    /**
+     * Creates a source that generates with a generator on the common fork-join pool, in batches of
+     * {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param generator The generator.
+     * @return The source.
+     */
+    public static SnowflakeSource of(@NotNull SnowflakeGenerator generator) {
+        return of(generator, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a source that generates on the workers of a pool, each with its own generator. Subscriptions complete
+     * when the pool is closed.
+     *
+     * @param pool      The pool.
+     * @param batchSize The maximum number of snowflakes generated at once for a subscriber.
+     * @return The source.
+     */
+    public static SnowflakeSource of(
+        @NotNull SnowflakeParallelGenerator pool,
+        @Range(from = 1, to = Integer.MAX_VALUE) int batchSize
+    ) {
+        return new SnowflakeSource(pool.getExecutor(), SnowflakeWorker::currentGenerator, batchSize);
+    }
+
+    /**
+     * Creates a source that generates on the workers of a pool, in batches of {@value #DEFAULT_BATCH_SIZE}.
+     *
+     * @param pool The pool.
+     * @return The source.
+     */
+    public static SnowflakeSource of(@NotNull SnowflakeParallelGenerator pool) {
+        return of(pool, DEFAULT_BATCH_SIZE);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Subscribes to the source. The subscriber receives its subscription on the calling thread, and elements once it
+     * requests them, at the earliest after {@link SnowflakeSubscriber#onSubscribe} returned.
+     *
+     * @param subscriber  The subscriber.
+     * @param elementSize The number of snowflakes of an element: {@code 1} to request single snowflakes, more to
+     *                    request chunks.
+     * @return The subscription.
+     */
+    public SnowflakeSubscription subscribe(
+        @NotNull SnowflakeSubscriber subscriber,
+        @Range(from = 1, to = 1 << 24) int elementSize
+    ) {
+        if (elementSize < 1 || elementSize > 1 << 24) {
+            throw new IllegalArgumentException("Element size must be between 1 and 2^24.");
+        }
+        SnowflakeSubscription subscription = new SnowflakeSubscription(executor, generator, subscriber, elementSize, batchSize);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+        return subscription;
+    }
+}
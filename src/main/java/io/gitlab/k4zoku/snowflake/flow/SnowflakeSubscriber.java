@@ -0,0 +1,42 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+/**
+ * Receives snowflake values from a {@link SnowflakeSource} as it requests them, following the rules of reactive
+ * streams: the methods are called one at a time, never concurrently.
+ *
+ * @see SnowflakeSource#subscribe(SnowflakeSubscriber, int)
+ */
+public interface SnowflakeSubscriber {
+
+    /**
+     * Called once, before any other method, with the subscription to request elements from.
+     *
+     * @param subscription The subscription.
+     */
+    void onSubscribe(SnowflakeSubscription subscription);
+
+    /**
+     * Receives the values of requested elements. An element is {@code elementSize} consecutive values, and a call
+     * carries a whole number of elements. The array is reused once this method returns, so the values must be copied
+     * to be kept.
+     *
+     * @param values The array holding the values.
+     * @param offset The index of the first value.
+     * @param length The number of values, a multiple of the element size.
+     */
+    void onNext(long[] values, int offset, int length);
+
+    /**
+     * Called once if the subscription fails, for example on an invalid request or when the clock regression policy
+     * of the generator fails. No method is called afterwards.
+     *
+     * @param throwable The failure.
+     */
+    void onError(Throwable throwable);
+
+    /**
+     * Called once when the source can no longer generate, because the executor of the source was shut down. No method
+     * is called afterwards.
+     */
+    void onComplete();
+}
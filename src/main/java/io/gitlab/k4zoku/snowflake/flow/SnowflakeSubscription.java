@@ -0,0 +1,222 @@
+package io.gitlab.k4zoku.snowflake.flow;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The demand of a {@link SnowflakeSubscriber} on a {@link SnowflakeSource}.
+ * <p>
+ * Snowflakes are generated only for requested elements, never ahead of demand. A drain task on the executor of the
+ * source generates at most {@code batchSize} values with one call of
+ * {@link SnowflakeGenerator#generate(long[], int, int)}, hands them to the subscriber and then resubmits itself while
+ * demand is left. A large request is therefore served in batches, and the subscriptions of many subscribers take
+ * turns on the executor without a thread each. An executor that runs the drain on the submitting thread, such as
+ * {@code Runnable::run}, does not nest drains: the running drain goes on in place.
+ * </p>
+ * <p>
+ * The subscriber is signalled one method at a time, and not before {@link SnowflakeSubscriber#onSubscribe} returns.
+ * Once the executor rejects the drain, the thread that submitted it completes the subscriber.
+ * </p>
+ */
+public final class SnowflakeSubscription {
+
+    private final Executor executor;
+    private final Supplier<SnowflakeGenerator> generator;
+    private final SnowflakeSubscriber subscriber;
+    private final int elementSize;
+    private final int elementsPerBatch;
+    private final AtomicLong requested = new AtomicLong(); // elements, Long.MAX_VALUE for unbounded
+    // signals to the drain, non-zero while a drain is scheduled, held by the subscriber until onSubscribe returns
+    private final AtomicInteger wip = new AtomicInteger(1);
+    private final LongAdder generated = new LongAdder();
+    private volatile Throwable error;
+    private volatile boolean rejected;
+    private volatile boolean cancelled;
+    private long[] values; // touched by the drain only
+
+    SnowflakeSubscription(
+        Executor executor,
+        Supplier<SnowflakeGenerator> generator,
+        SnowflakeSubscriber subscriber,
+        int elementSize,
+        int batchSize
+    ) {
+        this.executor = executor;
+        this.generator = generator;
+        this.subscriber = subscriber;
+        this.elementSize = elementSize;
+        this.elementsPerBatch = Math.max(1, batchSize / elementSize);
+    }
+
+    /**
+     * Requests {@code n} more elements. Demand adds up to at most {@link Long#MAX_VALUE}, which is unbounded.
+     *
+     * @param n The number of elements, positive. Otherwise, the subscriber receives an
+     *          {@link IllegalArgumentException} and the subscription is cancelled.
+     */
+    public void request(long n) {
+        if (cancelled) {
+            return;
+        }
+        if (n <= 0) {
+            error = new IllegalArgumentException("Non-positive request: " + n);
+        } else {
+            requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+        }
+        schedule();
+    }
+
+    /**
+     * Cancels the subscription. No element is generated afterwards, the subscriber may still receive the batch being
+     * generated.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Gets the number of snowflakes generated for the subscriber.
+     *
+     * @return The number of values.
+     */
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    /**
+     * Gets the number of requested elements not generated yet.
+     *
+     * @return The outstanding demand, {@link Long#MAX_VALUE} if unbounded.
+     */
+    public long getRequested() {
+        return requested.get();
+    }
+
+    /**
+     * Releases the drain held during {@link SnowflakeSubscriber#onSubscribe}, serving what was requested meanwhile.
+     */
+    void start() {
+        if (wip.decrementAndGet() != 0 && handOff()) {
+            drain();
+        }
+    }
+
+    private void schedule() {
+        if (wip.getAndIncrement() == 0 && handOff()) {
+            drain();
+        }
+    }
+
+    /**
+     * Submits the drain to the executor.
+     *
+     * @return Whether the calling thread has to drain in place, because the executor ran the drain on it or rejected
+     * it.
+     */
+    private boolean handOff() {
+        HandOff task = new HandOff(Thread.currentThread());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected = true;
+            return true;
+        }
+        task.submitting = false;
+        return task.ranInPlace;
+    }
+
+    private void drain() {
+        int missed = wip.get();
+        for (; ; ) {
+            if (cancelled) {
+                return;
+            }
+            Throwable e = error;
+            if (e != null) {
+                cancelled = true;
+                subscriber.onError(e);
+                return;
+            }
+            if (rejected) {
+                cancelled = true;
+                subscriber.onComplete();
+                return;
+            }
+            long r = requested.get();
+            if (r > 0) {
+                emit((int) Math.min(r, elementsPerBatch), r == Long.MAX_VALUE);
+                if (!handOff()) { // take turns with the other tasks of the executor
+                    return;
+                }
+                continue;
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private void emit(int elements, boolean unbounded) {
+        int length = elements * elementSize;
+        long[] values = this.values;
+        if (values == null) {
+            this.values = values = new long[elementsPerBatch * elementSize];
+        }
+        try {
+            generator.get().generate(values, 0, length);
+        } catch (RuntimeException e) {
+            error = e;
+            return;
+        }
+        generated.add(length);
+        if (!unbounded) {
+            requested.addAndGet(-elements);
+        }
+        try {
+            subscriber.onNext(values, 0, length);
+        } catch (RuntimeException e) {
+            cancelled = true; // a subscriber that throws violates the contract, so it gets no further signal
+            throw e;
+        }
+    }
+
+    /**
+     * A drain submitted to the executor. Run by the submitting thread while it is still submitting, it only tells that
+     * thread to drain in place, so a same-thread executor does not nest drains.
+     */
+    private final class HandOff implements Runnable {
+        private final Thread submitter;
+        private volatile boolean submitting = true;
+        private boolean ranInPlace; // touched by the submitter only
+
+        HandOff(Thread submitter) {
+            this.submitter = submitter;
+        }
+
+        @Override
+        public void run() {
+            if (submitting && Thread.currentThread() == submitter) {
+                ranInPlace = true;
+            } else {
+                drain();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakeSubscription[requested=" + getRequested() + ", generated=" + getGenerated()
+            + ", cancelled=" + cancelled + "]";
+    }
+}
@@ -0,0 +1,57 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+/**
+ * Management interface of the metrics of a single {@link io.gitlab.k4zoku.snowflake.SnowflakeGenerator}.
+ *
+ * @see SnowflakeMetrics#register(io.gitlab.k4zoku.snowflake.SnowflakeGenerator)
+ */
+public interface SnowflakeGeneratorMXBean {
+
+    int getDataCenterId();
+
+    long getWorkerId();
+
+    /**
+     * Gets the number of snowflakes generated, including snowflakes issued from leased blocks.
+     *
+     * @return The number of generated snowflakes.
+     */
+    long getGenerated();
+
+    /**
+     * Gets the number of times the generator waited for the next timestamp because its sequence was exhausted.
+     *
+     * @return The number of sequence exhaustions.
+     */
+    long getSequenceExhaustions();
+
+    /**
+     * Gets the number of times the clock was behind the last issued timestamp.
+     *
+     * @return The number of clock regressions.
+     */
+    long getClockRegressions();
+
+    /**
+     * Gets the total time spent waiting for the next timestamp.
+     *
+     * @return The wait time in nanoseconds.
+     */
+    long getWaitTimeNanos();
+
+    /**
+     * Gets the number of waits for the next timestamp per bucket of {@link #getWaitTimeHistogramBounds()}.
+     *
+     * @return The histogram counts.
+     */
+    long[] getWaitTimeHistogram();
+
+    /**
+     * Gets the inclusive upper bounds of the buckets of {@link #getWaitTimeHistogram()} in nanoseconds.
+     *
+     * @return The bucket bounds.
+     */
+    long[] getWaitTimeHistogramBounds();
+
+    void reset();
+}
@@ -0,0 +1,98 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single {@link io.gitlab.k4zoku.snowflake.SnowflakeGenerator}.
+ * <p>
+ * All counters are {@link LongAdder}s, so recording from many threads does not contend on a shared cache line.
+ * A generator only records while metrics are enabled on it, see
+ * {@link io.gitlab.k4zoku.snowflake.SnowflakeGenerator#enableMetrics()}.
+ * </p>
+ */
+public class SnowflakeGeneratorMetrics implements SnowflakeGeneratorMXBean, Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final int dataCenterId;
+    private final long workerId;
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder sequenceExhaustions = new LongAdder();
+    private final LongAdder clockRegressions = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+    private final WaitTimeHistogram waitTimeHistogram = new WaitTimeHistogram();
+
+    public SnowflakeGeneratorMetrics(int dataCenterId, long workerId) {
+        this.dataCenterId = dataCenterId;
+        this.workerId = workerId;
+    }
+
+    // <editor-fold desc="Recording" defaultstate="collapsed">
+    public void recordGenerated(int count) {
+        generated.add(count);
+    }
+
+    public void recordSequenceExhaustion(long waitNanos) {
+        sequenceExhaustions.increment();
+        waitTimeNanos.add(waitNanos);
+        waitTimeHistogram.record(waitNanos);
+    }
+
+    public void recordClockRegression() {
+        clockRegressions.increment();
+    }
+    // </editor-fold>
+
+    // <editor-fold desc="SnowflakeGeneratorMXBean" defaultstate="collapsed">
+    @Override
+    public int getDataCenterId() {
+        return dataCenterId;
+    }
+
+    @Override
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    @Override
+    public long getGenerated() {
+        return generated.sum();
+    }
+
+    @Override
+    public long getSequenceExhaustions() {
+        return sequenceExhaustions.sum();
+    }
+
+    @Override
+    public long getClockRegressions() {
+        return clockRegressions.sum();
+    }
+
+    @Override
+    public long getWaitTimeNanos() {
+        return waitTimeNanos.sum();
+    }
+
+    @Override
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.getCounts();
+    }
+
+    @Override
+    public long[] getWaitTimeHistogramBounds() {
+        return waitTimeHistogram.getUpperBounds();
+    }
+
+    @Override
+    public void reset() {
+        generated.reset();
+        sequenceExhaustions.reset();
+        clockRegressions.reset();
+        waitTimeNanos.reset();
+        waitTimeHistogram.reset();
+    }
+    // </editor-fold>
+}
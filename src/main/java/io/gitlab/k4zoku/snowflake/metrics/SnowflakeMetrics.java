@@ -0,0 +1,93 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import org.jetbrains.annotations.NotNull;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registers the metrics of generators as MBeans with the platform MBean server.
+ * <pre>{@code
+ * ObjectName name = SnowflakeMetrics.register(generator);
+ * // ...
+ * SnowflakeMetrics.unregister(name);
+ * }</pre>
+ * Metrics are opt-in: a generator whose metrics were never enabled pays a single null check per call.
+ */
+public final class SnowflakeMetrics {
+
+    public static final String DOMAIN = "io.gitlab.k4zoku.snowflake";
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private SnowflakeMetrics() {
+    }
+
+    /**
+     * Enables the metrics of a generator and registers them as
+     * {@code io.gitlab.k4zoku.snowflake:type=SnowflakeGenerator,dataCenterId=<id>,workerId=<id>}.
+     *
+     * @param generator The generator.
+     * @return The name of the registered MBean.
+     * @throws IllegalStateException If an MBean with the same name is already registered.
+     */
+    public static ObjectName register(@NotNull SnowflakeGenerator generator) {
+        SnowflakeGeneratorMetrics metrics = generator.enableMetrics();
+        ObjectName name = objectName(String.format("type=SnowflakeGenerator,dataCenterId=%d,workerId=%d",
+            generator.getDataCenterId(), generator.getWorkerId()));
+        register(metrics, name);
+        return name;
+    }
+
+    /**
+     * Enables the metrics of a parallel generator and of the generators of its workers, and registers them as
+     * {@code io.gitlab.k4zoku.snowflake:type=SnowflakeParallelGenerator,id=<n>}.
+     *
+     * @param generator The parallel generator.
+     * @return The name of the registered MBean.
+     */
+    public static ObjectName register(@NotNull SnowflakeParallelGenerator generator) {
+        SnowflakeParallelGeneratorMetrics metrics = generator.enableMetrics();
+        ObjectName name = objectName("type=SnowflakeParallelGenerator,id=" + POOL_COUNTER.getAndIncrement());
+        register(metrics, name);
+        return name;
+    }
+
+    /**
+     * Unregisters an MBean registered by this class. Does nothing if it is not registered.
+     *
+     * @param name The name returned on registration.
+     */
+    public static void unregister(@NotNull ObjectName name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister " + name, e);
+        }
+    }
+
+    private static void register(Object mbean, ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + name, e);
+        }
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(DOMAIN + ":" + properties);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
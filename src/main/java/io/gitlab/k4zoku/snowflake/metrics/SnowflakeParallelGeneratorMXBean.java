@@ -0,0 +1,52 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+import java.util.Map;
+
+/**
+ * Management interface of the metrics of a {@link io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator}.
+ *
+ * @see SnowflakeMetrics#register(io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator)
+ */
+public interface SnowflakeParallelGeneratorMXBean {
+
+    /**
+     * Gets the number of tasks waiting for a worker.
+     *
+     * @return The queue depth.
+     */
+    int getQueueDepth();
+
+    int getWorkers();
+
+    int getActiveWorkers();
+
+    long getCompletedTasks();
+
+    /**
+     * Gets the number of snowflakes generated by the generators of the workers.
+     *
+     * @return The total number of generated snowflakes.
+     */
+    long getGenerated();
+
+    /**
+     * Gets the number of snowflakes generated by the generator of every worker, keyed by worker ID.
+     *
+     * @return The number of generated snowflakes per worker.
+     */
+    Map<String, Long> getWorkerThroughput();
+
+    /**
+     * Gets the number of sequence exhaustions of the generators of the workers.
+     *
+     * @return The total number of sequence exhaustions.
+     */
+    long getSequenceExhaustions();
+
+    /**
+     * Gets the number of clock regressions seen by the generators of the workers.
+     *
+     * @return The total number of clock regressions.
+     */
+    long getClockRegressions();
+}
@@ -0,0 +1,91 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorkerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Metrics of a {@link io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator}. Pool figures are read from
+ * the executor on demand, throughput figures are summed from the metrics of the generators of the workers.
+ */
+public class SnowflakeParallelGeneratorMetrics implements SnowflakeParallelGeneratorMXBean {
+
+    private final ThreadPoolExecutor executor;
+    private final SnowflakeWorkerFactory workerFactory;
+
+    public SnowflakeParallelGeneratorMetrics(ThreadPoolExecutor executor, SnowflakeWorkerFactory workerFactory) {
+        this.executor = executor;
+        this.workerFactory = workerFactory;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getWorkers() {
+        return executor.getPoolSize();
+    }
+
+    @Override
+    public int getActiveWorkers() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return executor.getCompletedTaskCount();
+    }
+
+    @Override
+    public long getGenerated() {
+        long generated = 0;
+        for (SnowflakeGenerator generator : workerFactory.getGenerators()) {
+            SnowflakeGeneratorMetrics metrics = generator.getMetrics();
+            if (metrics != null) {
+                generated += metrics.getGenerated();
+            }
+        }
+        return generated;
+    }
+
+    @Override
+    public Map<String, Long> getWorkerThroughput() {
+        Map<String, Long> throughput = new TreeMap<>();
+        for (SnowflakeGenerator generator : workerFactory.getGenerators()) {
+            SnowflakeGeneratorMetrics metrics = generator.getMetrics();
+            if (metrics != null) {
+                throughput.put(String.valueOf(generator.getWorkerId()), metrics.getGenerated());
+            }
+        }
+        return throughput;
+    }
+
+    @Override
+    public long getSequenceExhaustions() {
+        long sequenceExhaustions = 0;
+        for (SnowflakeGenerator generator : workerFactory.getGenerators()) {
+            SnowflakeGeneratorMetrics metrics = generator.getMetrics();
+            if (metrics != null) {
+                sequenceExhaustions += metrics.getSequenceExhaustions();
+            }
+        }
+        return sequenceExhaustions;
+    }
+
+    @Override
+    public long getClockRegressions() {
+        long clockRegressions = 0;
+        for (SnowflakeGenerator generator : workerFactory.getGenerators()) {
+            SnowflakeGeneratorMetrics metrics = generator.getMetrics();
+            if (metrics != null) {
+                clockRegressions += metrics.getClockRegressions();
+            }
+        }
+        return clockRegressions;
+    }
+}
@@ -0,0 +1,74 @@
+package io.gitlab.k4zoku.snowflake.metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of wait times with power-of-two buckets from 1 microsecond to about 8 seconds.
+ * Recording is a single striped increment, so concurrent recorders do not contend on one counter.
+ */
+public final class WaitTimeHistogram implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    public static final int BUCKETS = 25;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    public WaitTimeHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a wait.
+     *
+     * @param nanos The wait time in nanoseconds.
+     */
+    public void record(long nanos) {
+        buckets[bucketOf(nanos)].increment();
+    }
+
+    /**
+     * Gets the number of waits recorded in every bucket. The counts are read one bucket at a time, so waits recorded
+     * concurrently may or may not be included.
+     *
+     * @return The counts, indexed like {@link #getUpperBounds()}.
+     */
+    public long[] getCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Gets the inclusive upper bound of every bucket in nanoseconds. The last bucket is unbounded.
+     *
+     * @return The upper bounds, {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public long[] getUpperBounds() {
+        long[] bounds = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            bounds[i] = 1000L << i;
+        }
+        bounds[BUCKETS - 1] = Long.MAX_VALUE;
+        return bounds;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+    }
+
+    static int bucketOf(long nanos) {
+        long micros = (nanos + 999) / 1000;
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(micros - 1), BUCKETS - 1);
+    }
+}
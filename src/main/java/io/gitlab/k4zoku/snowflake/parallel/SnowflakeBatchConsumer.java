@@ -0,0 +1,20 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+/**
+ * Consumes the values of a batch of snowflakes generated by a worker.
+ *
+ * @see SnowflakeParallelGenerator#forEachBatchAsync(SnowflakeBatchConsumer, int, int)
+ */
+@FunctionalInterface
+public interface SnowflakeBatchConsumer {
+
+    /**
+     * Consumes a batch. The array is reused for the next batch of the worker once this method returns, so the values
+     * must be copied to be kept.
+     *
+     * @param values The array holding the values of the snowflakes.
+     * @param offset The index of the first value of the batch.
+     * @param length The number of values of the batch.
+     */
+    void accept(long[] values, int offset, int length);
+}
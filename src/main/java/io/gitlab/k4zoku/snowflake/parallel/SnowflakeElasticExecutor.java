@@ -0,0 +1,84 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread pool that starts a new worker, up to the maximum, whenever a task is submitted while every worker is busy,
+ * and retires workers above the core size after they have been idle for the keep-alive time.
+ * <p>
+ * A plain {@link ThreadPoolExecutor} only grows once its queue is full, so with an unbounded queue it never grows at
+ * all. This pool queues a task only while a worker is free to take it or once the maximum is reached. Workers waiting
+ * for the next millisecond after exhausting their sequence stay busy, so callers queueing up behind exhausted
+ * sequences also grow the pool.
+ * </p>
+ */
+final class SnowflakeElasticExecutor extends ThreadPoolExecutor {
+
+    private final AtomicInteger submitted = new AtomicInteger(); // queued or running
+
+    SnowflakeElasticExecutor(
+        int coreWorkers,
+        SnowflakeWorkerFactory workerFactory,
+        long keepAlive,
+        TimeUnit unit
+    ) {
+        super(coreWorkers, workerFactory.getMaxWorkers(), keepAlive, unit, new WorkQueue(), workerFactory, new Enqueue());
+        ((WorkQueue) getQueue()).executor = this;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        submitted.incrementAndGet();
+        try {
+            super.execute(command);
+        } catch (RejectedExecutionException e) {
+            submitted.decrementAndGet();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        submitted.decrementAndGet();
+    }
+
+    private static final class WorkQueue extends LinkedBlockingQueue<Runnable> {
+        private static final long serialVersionUID = 0L;
+
+        private transient SnowflakeElasticExecutor executor;
+
+        @Override
+        public boolean offer(@NotNull Runnable runnable) {
+            SnowflakeElasticExecutor executor = this.executor;
+            int workers = executor.getPoolSize();
+            if (executor.submitted.get() > workers && workers < executor.getMaximumPoolSize()) {
+                return false; // every worker is busy, make the pool start another one
+            }
+            return super.offer(runnable);
+        }
+
+        boolean enqueue(Runnable runnable) {
+            return super.offer(runnable);
+        }
+    }
+
+    /**
+     * Queues a task the pool refused to start a worker for, because another submission raced it to the maximum.
+     */
+    private static final class Enqueue implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown() || !((WorkQueue) executor.getQueue()).enqueue(r)
+                || executor.isShutdown() && executor.remove(r)) {
+                throw new RejectedExecutionException("Task " + r + " rejected from " + executor);
+            }
+        }
+    }
+}
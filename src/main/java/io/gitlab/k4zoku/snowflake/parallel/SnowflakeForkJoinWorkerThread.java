@@ -0,0 +1,91 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * A worker thread of a {@link ForkJoinPool} that owns a {@link SnowflakeGenerator}, created by a
+ * {@link SnowflakeForkJoinWorkerThreadFactory}. No other thread generates with the generator while the thread is
+ * alive, so tasks running on the thread generate without contention and without handing off to another thread.
+ *
+ * @see #currentGenerator(SnowflakeGenerator)
+ */
+public class SnowflakeForkJoinWorkerThread extends ForkJoinWorkerThread {
+
+    private final SnowflakeForkJoinWorkerThreadFactory factory;
+    private final SnowflakeGenerator generator;
+
+    protected SnowflakeForkJoinWorkerThread(
+        ForkJoinPool pool,
+        SnowflakeForkJoinWorkerThreadFactory factory,
+        SnowflakeGenerator generator
+    ) {
+        super(pool);
+        setName(String.format("SnowflakeForkJoinWorker[%02d/%02d]", generator.getDataCenterId(), generator.getWorkerId()));
+        this.factory = factory;
+        this.generator = generator;
+    }
+
+    public Snowflake work() {
+        return generator.generate();
+    }
+
+    /**
+     * Generates {@code length} snowflakes with the generator of this thread into the given array.
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     * @see SnowflakeGenerator#generate(long[], int, int)
+     */
+    public void work(long[] values, int offset, int length) {
+        generator.generate(values, offset, length);
+    }
+
+    public SnowflakeGenerator getGenerator() {
+        return generator;
+    }
+
+    public SnowflakeForkJoinWorkerThreadFactory getFactory() {
+        return factory;
+    }
+
+    @Override
+    protected void onTermination(Throwable exception) {
+        try {
+            super.onTermination(exception);
+        } finally {
+            factory.release(generator.getWorkerId());
+        }
+    }
+
+    /**
+     * Gets the current thread if it is a {@link SnowflakeForkJoinWorkerThread}.
+     *
+     * @return The current thread, or {@code null} on any other thread.
+     */
+    public static @Nullable SnowflakeForkJoinWorkerThread current() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof SnowflakeForkJoinWorkerThread ? (SnowflakeForkJoinWorkerThread) thread : null;
+    }
+
+    /**
+     * Gets the generator owned by the current thread if it is a {@link SnowflakeForkJoinWorkerThread}, for example
+     * in a {@link java.util.concurrent.RecursiveTask} or a parallel stream running on a pool of such threads.
+     *
+     * @param fallback The generator to use on any other thread.
+     * @return The generator of the current thread, or the fallback.
+     */
+    public static SnowflakeGenerator currentGenerator(@NotNull SnowflakeGenerator fallback) {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof SnowflakeForkJoinWorkerThread) {
+            return ((SnowflakeForkJoinWorkerThread) thread).generator;
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,219 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Creates {@link SnowflakeForkJoinWorkerThread}s for a {@link ForkJoinPool}, each owning a {@link SnowflakeGenerator}
+ * with a worker ID no other live thread of the factory holds.
+ * <p>
+ * The factory hands out the worker IDs from {@code offset} to {@code offset + maxWorkers - 1}. A fork-join pool starts
+ * and retires threads as its load changes. The worker ID of a terminated thread is handed to the next new thread,
+ * together with the same generator, so the snowflakes of the new thread follow those of the old one. A thread
+ * requested while every worker ID is held is rejected, which the pool tolerates, so pools should not be more parallel
+ * than {@code maxWorkers}.
+ * </p>
+ * <p>
+ * The worker ID {@code offset + maxWorkers} is reserved for a fallback generator, used by {@link #generate()} on
+ * threads that are not workers of the factory.
+ * </p>
+ *
+ * <pre>{@code
+ * SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(0, 8, generatorFactory);
+ * ForkJoinPool pool = factory.newPool(8);
+ * List<Snowflake> ids = pool.submit(() -> items.parallelStream().map(item -> factory.generate()).collect(toList())).get();
+ * }</pre>
+ *
+ * @see SnowflakeWorkerFactory
+ */
+public class SnowflakeForkJoinWorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory, Generator<Snowflake> {
+
+    private final int offset;
+    private final int maxWorkers;
+    private final SnowflakeGeneratorFactory generatorFactory;
+    private final SnowflakeGenerator[] generators; // indexed by worker ID - offset, kept across threads
+    private final BitSet held = new BitSet();
+    private final SnowflakeGenerator fallback;
+
+    /**
+     * Create a fork-join worker thread factory.
+     *
+     * @param offset           The first worker ID.
+     * @param maxWorkers       The maximum number of live threads.
+     * @param generatorFactory The factory of the generators of the threads.
+     * @throws IllegalArgumentException If the worker IDs, including the one of the fallback generator, exceed the
+     *                                  layout of the generator factory.
+     */
+    public SnowflakeForkJoinWorkerThreadFactory(
+        @Range(from = 0, to = Integer.MAX_VALUE) int offset,
+        @Range(from = 1, to = Integer.MAX_VALUE) int maxWorkers,
+        @NotNull SnowflakeGeneratorFactory generatorFactory
+    ) {
+        if (offset < 0 || maxWorkers < 1) {
+            throw new IllegalArgumentException("Offset must not be negative and maximum number of workers must be positive.");
+        }
+        int maxWorkerId = generatorFactory.getLayout().getMaxWorkerId();
+        if ((long) offset + maxWorkers > maxWorkerId) {
+            throw new IllegalArgumentException(String.format(
+                "Worker IDs %d to %d exceed the maximum worker ID %d.", offset, (long) offset + maxWorkers, maxWorkerId
+            ));
+        }
+        this.offset = offset;
+        this.maxWorkers = maxWorkers;
+        this.generatorFactory = generatorFactory;
+        this.generators = new SnowflakeGenerator[maxWorkers];
+        this.fallback = generatorFactory.create(offset + maxWorkers);
+    }
+
+    /**
+     * Create a fork-join worker thread factory with a worker ID per available processor, from {@code 0}. The number of
+     * worker IDs is capped by the layout of the generator factory, leaving the last worker ID to the fallback
+     * generator.
+     *
+     * @param generatorFactory The factory of the generators of the threads.
+     */
+    public SnowflakeForkJoinWorkerThreadFactory(@NotNull SnowflakeGeneratorFactory generatorFactory) {
+        this(
+            0,
+            Math.min(Runtime.getRuntime().availableProcessors(), generatorFactory.getLayout().getMaxWorkerId()),
+            generatorFactory
+        );
+    }
+
+    /**
+     * Creates a thread with a free worker ID.
+     *
+     * @param pool The pool the thread works for.
+     * @return The thread, or {@code null} if every worker ID is held by a live thread.
+     */
+    @Override
+    public @Nullable ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        SnowflakeGenerator generator = acquire();
+        if (generator == null) {
+            return null;
+        }
+        try {
+            return new SnowflakeForkJoinWorkerThread(pool, this, generator);
+        } catch (RuntimeException | Error e) {
+            release(generator.getWorkerId());
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a pool whose threads are created by this factory.
+     *
+     * @param parallelism The parallelism of the pool, at most the maximum number of workers.
+     * @return The pool.
+     */
+    public ForkJoinPool newPool(@Range(from = 1, to = Integer.MAX_VALUE) int parallelism) {
+        if (parallelism > maxWorkers) {
+            throw new IllegalArgumentException("Parallelism must not exceed the maximum number of workers.");
+        }
+        return new ForkJoinPool(parallelism, this, null, false);
+    }
+
+    private synchronized @Nullable SnowflakeGenerator acquire() {
+        int index = held.nextClearBit(0);
+        if (index >= maxWorkers) {
+            return null;
+        }
+        held.set(index);
+        SnowflakeGenerator generator = generators[index];
+        if (generator == null) {
+            generators[index] = generator = generatorFactory.create(offset + index);
+        }
+        return generator;
+    }
+
+    synchronized void release(long workerId) {
+        held.clear((int) (workerId - offset));
+    }
+
+    /**
+     * Generates a snowflake with the generator of the current thread if it is a worker of this factory, otherwise
+     * with the fallback generator.
+     *
+     * @return The snowflake.
+     */
+    @Override
+    public Snowflake generate() {
+        return currentGenerator().generate();
+    }
+
+    /**
+     * Generates {@code length} snowflakes with the generator of the current thread if it is a worker of this
+     * factory, otherwise with the fallback generator.
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     */
+    public void generate(long[] values, int offset, int length) {
+        currentGenerator().generate(values, offset, length);
+    }
+
+    /**
+     * Gets the generator of the current thread if it is a worker of this factory, otherwise the fallback generator.
+     *
+     * @return The generator.
+     */
+    public SnowflakeGenerator currentGenerator() {
+        SnowflakeForkJoinWorkerThread thread = SnowflakeForkJoinWorkerThread.current();
+        return thread != null && thread.getFactory() == this ? thread.getGenerator() : fallback;
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public int getWorkerIdOffset() {
+        return offset;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public SnowflakeGeneratorFactory getGeneratorFactory() {
+        return generatorFactory;
+    }
+
+    public SnowflakeGenerator getFallbackGenerator() {
+        return fallback;
+    }
+
+    /**
+     * Gets the number of worker IDs held by live threads.
+     *
+     * @return The number of live threads.
+     */
+    public synchronized int getActiveWorkers() {
+        return held.cardinality();
+    }
+
+    /**
+     * Gets the generators created for the threads of this factory so far.
+     *
+     * @return A snapshot of the generators.
+     */
+    public synchronized Collection<SnowflakeGenerator> getGenerators() {
+        List<SnowflakeGenerator> result = new ArrayList<>(maxWorkers);
+        for (SnowflakeGenerator generator : generators) {
+            if (generator != null) {
+                result.add(generator);
+            }
+        }
+        return result;
+    }
+    // </editor-fold>
+}
@@ -4,13 +4,13 @@ import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
 import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
 import io.gitlab.k4zoku.snowflake.common.Generator;
-import io.gitlab.k4zoku.snowflake.parallel.task.SnowflakeConsumeTask;
+import io.gitlab.k4zoku.snowflake.metrics.SnowflakeParallelGeneratorMetrics;
 import io.gitlab.k4zoku.snowflake.parallel.task.SnowflakeGenerateTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Range;
 
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -25,7 +25,29 @@ import static io.gitlab.k4zoku.snowflake.SnowflakeGenerator.MAX_WORKER_ID;
  * @since 1.0
  */
 public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoCloseable {
-    private final ExecutorService executorService;
+    private final ThreadPoolExecutor executorService;
+    private final SnowflakeWorkerFactory workerFactory;
+    private final @Nullable SnowflakeRingBuffer ringBuffer;
+    private volatile SnowflakeParallelGeneratorMetrics metrics;
+    private volatile @Nullable SnowflakeSequenceBudget budget; // null in queue dispatch mode
+
+    /**
+     * How the workers of a pool choose the generator a request is served with.
+     */
+    public enum DispatchMode {
+        /**
+         * A worker serves the requests it takes from the queue with its own generator, waiting for the next
+         * millisecond once it has exhausted its sequence.
+         */
+        QUEUE,
+        /**
+         * A worker whose generator has exhausted its sequence serves requests with the generator of another worker ID
+         * of the pool that has sequence numbers left in the current millisecond. Workers only wait once the whole pool
+         * has exhausted its sequences, so a burst is served with up to the number of worker IDs times the sequence
+         * numbers of a millisecond.
+         */
+        SEQUENCE_BUDGET
+    }
 
     /**
      * Create a pool of {@link SnowflakeGenerator}.
@@ -36,20 +58,91 @@ public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoClo
      *                       If this value is greater than {@link SnowflakeGenerator#MAX_WORKER_ID},
      *                       the number of workers will be truncated.
      * @param workerIdOffset offset of worker ID. In other words, the first worker ID is {@code workerIdOffset}.
+     * @param ringBuffer     ring buffer the workers keep filled with snowflakes ahead of demand, or {@code null} to
+     *                       generate every snowflake on demand in a task submitted to the workers.
      */
     public SnowflakeParallelGenerator(
         @NotNull SnowflakeGeneratorFactory factory,
         @Range(from = 1, to = MAX_WORKER_ID + 1) int workers,
-        @Range(from = 0, to = MAX_WORKER_ID) int workerIdOffset
+        @Range(from = 0, to = MAX_WORKER_ID) int workerIdOffset,
+        @Nullable SnowflakeRingBuffer ringBuffer
+    ) {
+        this(new SnowflakeWorkerFactory(workerIdOffset, workers, factory), ringBuffer);
+    }
+
+    /**
+     * Create a pool of {@link SnowflakeGenerator} whose workers are created by a worker factory, for example one with
+     * {@link SnowflakeWorkerFactory#SnowflakeWorkerFactory(int, int, SnowflakeGeneratorFactory, boolean) virtual
+     * threads}.
+     *
+     * @param workerFactory factory of the workers, which also sets the number of workers and their worker IDs.
+     * @param ringBuffer    ring buffer the workers keep filled with snowflakes ahead of demand, or {@code null} to
+     *                      generate every snowflake on demand in a task submitted to the workers.
+     */
+    public SnowflakeParallelGenerator(
+        @NotNull SnowflakeWorkerFactory workerFactory,
+        @Nullable SnowflakeRingBuffer ringBuffer
     ) {
-        this.executorService = new ThreadPoolExecutor(
-            workers,
-            workers,
+        this(workerFactory, new ThreadPoolExecutor(
+            workerFactory.getMaxWorkers(),
+            workerFactory.getMaxWorkers(),
             0L,
             TimeUnit.MILLISECONDS,
             new LinkedBlockingQueue<>(),
-            new SnowflakeWorkerFactory(workerIdOffset, workers, factory)
-        );
+            workerFactory
+        ), ringBuffer);
+    }
+
+    /**
+     * Create an elastic pool of {@link SnowflakeGenerator}. The pool keeps {@code coreWorkers} workers and starts
+     * another one, up to the maximum number of workers of the worker factory, whenever a snowflake is requested while
+     * every worker is busy, including while waiting for the next millisecond after exhausting its sequence. A worker
+     * above the core size terminates after being idle for {@code keepAlive}, and releases its worker ID to the next
+     * worker.
+     *
+     * @param workerFactory factory of the workers, which also sets the maximum number of workers and their worker IDs.
+     * @param coreWorkers   number of workers kept while idle, from {@code 0} to the maximum number of workers.
+     * @param keepAlive     time a worker above the core size stays idle before terminating.
+     * @param unit          unit of {@code keepAlive}.
+     * @param ringBuffer    ring buffer the workers keep filled with snowflakes ahead of demand, or {@code null} to
+     *                      generate every snowflake on demand in a task submitted to the workers.
+     */
+    public SnowflakeParallelGenerator(
+        @NotNull SnowflakeWorkerFactory workerFactory,
+        @Range(from = 0, to = MAX_WORKER_ID + 1) int coreWorkers,
+        @Range(from = 0, to = Long.MAX_VALUE) long keepAlive,
+        @NotNull TimeUnit unit,
+        @Nullable SnowflakeRingBuffer ringBuffer
+    ) {
+        this(workerFactory, new SnowflakeElasticExecutor(coreWorkers, workerFactory, keepAlive, unit), ringBuffer);
+    }
+
+    private SnowflakeParallelGenerator(
+        SnowflakeWorkerFactory workerFactory,
+        ThreadPoolExecutor executorService,
+        @Nullable SnowflakeRingBuffer ringBuffer
+    ) {
+        this.workerFactory = workerFactory;
+        this.executorService = executorService;
+        this.ringBuffer = ringBuffer;
+        if (ringBuffer != null) {
+            ringBuffer.bind(executorService, workerFactory.getGeneratorFactory());
+        }
+    }
+
+    /**
+     * Create a pool of {@link SnowflakeGenerator}.
+     *
+     * @param factory        factory to create {@link SnowflakeGenerator} by providing worker ID.
+     * @param workers        number of workers (threads) in the pool.
+     * @param workerIdOffset offset of worker ID. In other words, the first worker ID is {@code workerIdOffset}.
+     */
+    public SnowflakeParallelGenerator(
+        @NotNull SnowflakeGeneratorFactory factory,
+        @Range(from = 1, to = MAX_WORKER_ID + 1) int workers,
+        @Range(from = 0, to = MAX_WORKER_ID) int workerIdOffset
+    ) {
+        this(factory, workers, workerIdOffset, null);
     }
 
     public SnowflakeParallelGenerator(
@@ -66,13 +159,21 @@ public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoClo
     }
 
     /**
-     * Generate a snowflake.
+     * Generate a snowflake. With a ring buffer, the snowflake is taken from the ring, falling back to a task submitted
+     * to the workers while the ring is empty.
      *
      * @return snowflake
      */
     public Snowflake generate() {
+        if (ringBuffer != null) {
+            long value = ringBuffer.poll();
+            if (value >= 0) {
+                return Snowflake.of(value);
+            }
+        }
+        Callable<Snowflake> task = budget == null ? new SnowflakeGenerateTask() : () -> workerGenerator(1).generate();
         try {
-            return executorService.submit(new SnowflakeGenerateTask()).get();
+            return executorService.submit(task).get();
         } catch (ExecutionException e) {
             throw new IllegalStateException(e);
         } catch (InterruptedException e) {
@@ -81,6 +182,144 @@ public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoClo
         }
     }
 
+    /**
+     * Generates a snowflake without blocking the calling thread. With a ring buffer, the snowflake is taken from the
+     * ring if it is not empty.
+     * <p>
+     * The future is completed by the worker that generates the snowflake. Dependent stages that are not {@code async}
+     * therefore run on the worker, and must not block on other futures of this pool.
+     * </p>
+     *
+     * @return A future of the snowflake, which fails with a {@link RejectedExecutionException} once the pool is closed.
+     */
+    public CompletableFuture<Snowflake> generateAsync() {
+        if (ringBuffer != null) {
+            long value = ringBuffer.poll();
+            if (value >= 0) {
+                return CompletableFuture.completedFuture(Snowflake.of(value));
+            }
+        }
+        return supplyAsync(() -> workerGenerator(1).generate());
+    }
+
+    /**
+     * Generates {@code count} snowflakes without blocking the calling thread, with one task on a worker as described
+     * in {@link #generateAsync()}. The snowflakes of a request are generated as described in
+     * {@link SnowflakeGenerator#generate(long[], int, int)}.
+     *
+     * @param count The number of snowflakes.
+     * @return A future of the values of the snowflakes, which fails with a {@link RejectedExecutionException} once
+     * the pool is closed.
+     */
+    public CompletableFuture<long[]> generateAsync(@Range(from = 0, to = Integer.MAX_VALUE) int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative.");
+        }
+        if (count == 0) {
+            return CompletableFuture.completedFuture(new long[0]);
+        }
+        return supplyAsync(() -> {
+            long[] values = new long[count];
+            workerGenerator(count).generate(values, 0, count);
+            return values;
+        });
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executorService.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Gets the generator a worker serves {@code count} snowflakes with in the current dispatch mode.
+     */
+    SnowflakeGenerator workerGenerator(int count) {
+        SnowflakeGenerator own = SnowflakeWorker.currentGenerator();
+        SnowflakeSequenceBudget current = budget;
+        return current == null ? own : current.select(own, count);
+    }
+
+    public DispatchMode getDispatchMode() {
+        return budget == null ? DispatchMode.QUEUE : DispatchMode.SEQUENCE_BUDGET;
+    }
+
+    /**
+     * Sets how the workers choose the generator a request is served with. Requests already being served keep their
+     * generator.
+     *
+     * @param dispatchMode The dispatch mode, {@link DispatchMode#QUEUE} by default.
+     */
+    public synchronized void setDispatchMode(@NotNull DispatchMode dispatchMode) {
+        if (dispatchMode == DispatchMode.QUEUE) {
+            budget = null;
+        } else if (budget == null) {
+            budget = new SnowflakeSequenceBudget(workerFactory);
+        }
+    }
+
+    /**
+     * Gets the metrics of the pool.
+     *
+     * @return The metrics, or {@code null} if metrics are disabled.
+     */
+    public @Nullable SnowflakeParallelGeneratorMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets an executor that runs tasks on the workers of the pool. In a task,
+     * {@link SnowflakeWorker#currentGenerator()} returns the generator of the worker that runs it.
+     *
+     * @return The executor.
+     */
+    public Executor getExecutor() {
+        return executorService::execute;
+    }
+
+    /**
+     * Gets the number of live workers, which an elastic pool adjusts to the load.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkers() {
+        return executorService.getPoolSize();
+    }
+
+    /**
+     * Gets the ring buffer of the pool.
+     *
+     * @return The ring buffer, or {@code null} if snowflakes are generated on demand.
+     */
+    public @Nullable SnowflakeRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+
+    /**
+     * Enables metrics on the pool and on the generators of its workers. Does nothing if they are already enabled.
+     *
+     * @return The metrics of the pool.
+     * @see io.gitlab.k4zoku.snowflake.metrics.SnowflakeMetrics#register(SnowflakeParallelGenerator)
+     */
+    public synchronized SnowflakeParallelGeneratorMetrics enableMetrics() {
+        SnowflakeParallelGeneratorMetrics current = metrics;
+        if (current == null) {
+            workerFactory.enableMetrics();
+            metrics = current = new SnowflakeParallelGeneratorMetrics(executorService, workerFactory);
+        }
+        return current;
+    }
+
     @Override
     public void close() {
         executorService.shutdown();
@@ -90,27 +329,106 @@ public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoClo
         return executorService.isTerminated();
     }
 
+    /**
+     * Creates an endless spliterator that splits across the worker IDs of the pool. Each split generates on the thread
+     * that traverses it, with the generator of one of the worker IDs, instead of handing snowflakes through the
+     * workers.
+     *
+     * @return The spliterator.
+     */
     @Override
     public Spliterator<Snowflake> spliterator() {
-        return Spliterators.spliteratorUnknownSize(iterator(),
-            Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL |
-                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.CONCURRENT
-        );
+        return new SnowflakeSpliterator(workerFactory, 0, workerFactory.getWorkerIds(), Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Creates a spliterator of {@code size} snowflakes that splits across the worker IDs of the pool.
+     *
+     * @param size The number of snowflakes.
+     * @return The {@link Spliterator#SIZED sized} spliterator.
+     * @see #spliterator()
+     */
+    public Spliterator<Snowflake> spliterator(@Range(from = 0, to = Long.MAX_VALUE) long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException(Long.toString(size));
+        }
+        return new SnowflakeSpliterator(workerFactory, 0, workerFactory.getWorkerIds(), size, true);
     }
 
+    /**
+     * Hands snowflakes to an action on the workers until the generator is closed, blocking the calling thread.
+     *
+     * @param action The action, called concurrently by the workers.
+     * @see #forEachAsync(Consumer)
+     */
     @Override
     public void forEach(Consumer<? super Snowflake> action) {
-        while (!isClosed()) {
-            executorService.submit(new SnowflakeConsumeTask(action));
+        SnowflakePipeline pipeline = forEachAsync(action);
+        try {
+            pipeline.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            pipeline.cancel(false);
+            Thread.currentThread().interrupt();
         }
     }
 
-    public Future<Void> forEachAsync(Consumer<? super Snowflake> action) {
-        FutureTask<Void> futureTask = new FutureTask<>(() -> forEach(action), null);
-        Thread forEachThread = new Thread(futureTask);
-        forEachThread.setDaemon(true);
-        forEachThread.start();
-        return futureTask;
+    /**
+     * Hands snowflakes to an action on the workers, in batches of {@value SnowflakePipeline#DEFAULT_BATCH_SIZE} with
+     * two pending batches per worker.
+     *
+     * @param action The action, called concurrently by the workers.
+     * @return The pipeline, to cancel it or read its throughput.
+     * @see #forEachAsync(Consumer, int, int)
+     */
+    public SnowflakePipeline forEachAsync(Consumer<? super Snowflake> action) {
+        return forEachAsync(action, SnowflakePipeline.DEFAULT_BATCH_SIZE, 2 * executorService.getMaximumPoolSize());
+    }
+
+    /**
+     * Hands snowflakes to an action on the workers, until the returned pipeline is cancelled or the generator is
+     * closed.
+     *
+     * @param action            The action, called concurrently by the workers.
+     * @param batchSize         The number of snowflakes a worker generates at once.
+     * @param maxPendingBatches The maximum number of batches in flight, which bounds the queue of the workers.
+     * @return The pipeline, to cancel it or read its throughput.
+     * @see SnowflakePipeline
+     */
+    public SnowflakePipeline forEachAsync(
+        @NotNull Consumer<? super Snowflake> action,
+        @Range(from = 1, to = Integer.MAX_VALUE) int batchSize,
+        @Range(from = 1, to = Integer.MAX_VALUE) int maxPendingBatches
+    ) {
+        return forEachBatchAsync((values, offset, length) -> {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                action.accept(Snowflake.of(values[i]));
+            }
+        }, batchSize, maxPendingBatches);
+    }
+
+    /**
+     * Hands batches of snowflake values to an action on the workers, without allocating a {@link Snowflake} per value,
+     * until the returned pipeline is cancelled or the generator is closed.
+     *
+     * @param action            The action, called concurrently by the workers.
+     * @param batchSize         The number of snowflakes of a batch.
+     * @param maxPendingBatches The maximum number of batches in flight, which bounds the queue of the workers.
+     * @return The pipeline, to cancel it or read its throughput.
+     * @see SnowflakePipeline
+     */
+    public SnowflakePipeline forEachBatchAsync(
+        @NotNull SnowflakeBatchConsumer action,
+        @Range(from = 1, to = Integer.MAX_VALUE) int batchSize,
+        @Range(from = 1, to = Integer.MAX_VALUE) int maxPendingBatches
+    ) {
+        SnowflakePipeline pipeline = new SnowflakePipeline(
+            executorService, this::workerGenerator, action, batchSize, maxPendingBatches
+        );
+        pipeline.start();
+        return pipeline;
     }
 
     @Override
@@ -120,7 +438,7 @@ public class SnowflakeParallelGenerator implements Generator<Snowflake>, AutoClo
 
     @Override
     public Stream<Snowflake> stream(long maxSize) {
-        return StreamSupport.stream(spliterator(), true).limit(maxSize);
+        return StreamSupport.stream(spliterator(maxSize), true);
     }
 
 }
@@ -0,0 +1,198 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * A bounded push pipeline that hands batches of snowflakes generated by the workers of a
+ * {@link SnowflakeParallelGenerator} to a consumer, until it is cancelled.
+ * <p>
+ * The pipeline keeps {@code maxPendingBatches} batch tasks in flight. Each task generates a batch with the generator
+ * the {@link SnowflakeParallelGenerator.DispatchMode dispatch mode} of the generator selects for the worker that runs
+ * it, hands the batch to the consumer on that worker and then submits itself again. A slow
+ * consumer therefore slows the pipeline down instead of filling the queue of the workers, and the memory of the
+ * pipeline is bounded by {@code maxPendingBatches * batchSize} values.
+ * </p>
+ * <p>
+ * The pipeline completes normally when the generator is closed, exceptionally when the consumer throws, and is
+ * cancelled with {@link #cancel(boolean)} without closing the generator. Batches already handed to the consumer run
+ * to their end, no batch starts after the pipeline is done.
+ * </p>
+ *
+ * @see SnowflakeParallelGenerator#forEachAsync(java.util.function.Consumer, int, int)
+ * @see SnowflakeParallelGenerator#forEachBatchAsync(SnowflakeBatchConsumer, int, int)
+ */
+public final class SnowflakePipeline implements Future<Void> {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Executor executor;
+    private final IntFunction<SnowflakeGenerator> generators;
+    private final SnowflakeBatchConsumer action;
+    private final int batchSize;
+    private final int maxPendingBatches;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final LongAdder consumed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger(); // submitted, not started
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    SnowflakePipeline(
+        Executor executor,
+        IntFunction<SnowflakeGenerator> generators,
+        SnowflakeBatchConsumer action,
+        int batchSize,
+        int maxPendingBatches
+    ) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive.");
+        }
+        if (maxPendingBatches < 1) {
+            throw new IllegalArgumentException("Maximum number of pending batches must be positive.");
+        }
+        this.executor = executor;
+        this.generators = generators;
+        this.action = action;
+        this.batchSize = batchSize;
+        this.maxPendingBatches = maxPendingBatches;
+        completion.whenComplete((result, error) -> endNanos = System.nanoTime());
+    }
+
+    void start() {
+        for (int i = 0; i < maxPendingBatches; i++) {
+            submit(new Batch());
+        }
+    }
+
+    private void submit(Batch batch) {
+        if (completion.isDone()) {
+            return;
+        }
+        pending.incrementAndGet();
+        try {
+            executor.execute(batch);
+        } catch (RejectedExecutionException e) {
+            pending.decrementAndGet();
+            completion.complete(null); // the generator is closed
+        }
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getMaxPendingBatches() {
+        return maxPendingBatches;
+    }
+
+    /**
+     * Gets the number of batches waiting for a worker.
+     *
+     * @return The queue depth, at most the maximum number of pending batches.
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * Gets the number of snowflakes handed to the consumer.
+     *
+     * @return The number of consumed snowflakes.
+     */
+    public long getConsumed() {
+        return consumed.sum();
+    }
+
+    /**
+     * Gets the number of batches handed to the consumer.
+     *
+     * @return The number of consumed batches.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Gets the average number of snowflakes handed to the consumer per second, from the start of the pipeline until
+     * now or until it was done.
+     *
+     * @return The throughput in snowflakes per second.
+     */
+    public double getThroughput() {
+        long end = completion.isDone() ? endNanos : System.nanoTime();
+        long elapsed = Math.max(1L, end - startNanos);
+        return getConsumed() * 1e9 / elapsed;
+    }
+    // </editor-fold>
+
+    /**
+     * Cancels the pipeline. The generator keeps working.
+     *
+     * @param mayInterruptIfRunning Ignored, batches handed to the consumer are never interrupted.
+     * @return {@code false} if the pipeline was already done.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return completion.cancel(false);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return completion.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return completion.isDone();
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+        return completion.get();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return completion.get(timeout, unit);
+    }
+
+    private final class Batch implements Runnable {
+        private final long[] values = new long[batchSize];
+
+        @Override
+        public void run() {
+            pending.decrementAndGet();
+            if (completion.isDone()) {
+                return;
+            }
+            try {
+                generators.apply(batchSize).generate(values, 0, batchSize);
+                action.accept(values, 0, batchSize);
+            } catch (RuntimeException | Error e) {
+                completion.completeExceptionally(e);
+                return;
+            }
+            consumed.add(batchSize);
+            batches.increment();
+            submit(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SnowflakePipeline[batchSize=" + batchSize + ", consumed=" + getConsumed()
+            + ", queueDepth=" + getQueueDepth() + ", done=" + isDone() + "]";
+    }
+}
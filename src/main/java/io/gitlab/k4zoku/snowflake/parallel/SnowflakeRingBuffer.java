@@ -0,0 +1,263 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded ring of snowflake values generated ahead of demand by the workers of a
+ * {@link SnowflakeParallelGenerator}.
+ * <p>
+ * Callers take a value with a single compare-and-set on the head of the ring, without handing a task to a worker and
+ * waiting for its result. Whenever a take leaves {@code lowWatermark} values or fewer in the ring, one refill task is
+ * submitted to the workers, which fills the free slots in bulk with {@link SnowflakeGenerator#generate(long[], int, int)}.
+ * Only one refill runs at a time, so the ring has a single producer.
+ * </p>
+ * <p>
+ * Stale values: a value waits in the ring until it is taken, so its timestamp can be older than the instant it is
+ * handed out. Values older than {@code maxAge} are discarded when they are taken and counted by
+ * {@link #getDiscarded()}, so every value handed out has a timestamp at most {@code maxAge} old. Checking the age reads
+ * the timestamp provider of the generator factory once per take; a {@code maxAge} of {@link Long#MAX_VALUE} skips the
+ * check and hands out values of any age.
+ * </p>
+ * <p>
+ * Values of different workers are not ordered, as with every other mode of {@link SnowflakeParallelGenerator}.
+ * </p>
+ *
+ * @see SnowflakeParallelGenerator#SnowflakeParallelGenerator(SnowflakeGeneratorFactory, int, int, SnowflakeRingBuffer)
+ */
+public final class SnowflakeRingBuffer {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DEFAULT_MAX_AGE_MILLIS = 1000L;
+
+    private static final AtomicIntegerFieldUpdater<SnowflakeRingBuffer> REFILLING =
+        AtomicIntegerFieldUpdater.newUpdater(SnowflakeRingBuffer.class, "refilling");
+
+    private final long[] slots;
+    private final int mask;
+    private final int lowWatermark;
+    private final long maxAge; // milliseconds
+    private final Cursor head = new Cursor(); // index of the next value to take
+    private final Cursor tail = new Cursor(); // index after the last value put
+    private final LongAdder discarded = new LongAdder();
+    private volatile int refilling;
+
+    // bound to a generator
+    private volatile Executor executor;
+    private TimestampProvider timestampProvider;
+    private long epoch;
+    private long timestampUnit;
+    private int timestampShift;
+
+    /**
+     * Create a ring buffer.
+     *
+     * @param capacity     The number of values of the ring, rounded up to a power of two.
+     * @param lowWatermark The number of values left in the ring at which a refill starts, less than the capacity.
+     * @param maxAge       The maximum age of a value handed out, {@link Long#MAX_VALUE} for no maximum.
+     * @param unit         The unit of {@code maxAge}.
+     */
+    public SnowflakeRingBuffer(
+        @Range(from = 2, to = 1 << 30) int capacity,
+        @Range(from = 0, to = Integer.MAX_VALUE) int lowWatermark,
+        @Range(from = 1, to = Long.MAX_VALUE) long maxAge,
+        @NotNull TimeUnit unit
+    ) {
+        if (capacity < 2 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^30.");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        if (lowWatermark < 0 || lowWatermark >= size) {
+            throw new IllegalArgumentException("Low watermark must be less than the capacity.");
+        }
+        if (maxAge < 1) {
+            throw new IllegalArgumentException("Maximum age must be positive.");
+        }
+        this.slots = new long[size];
+        this.mask = size - 1;
+        this.lowWatermark = lowWatermark;
+        this.maxAge = maxAge == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(1L, unit.toMillis(maxAge));
+    }
+
+    /**
+     * Create a ring buffer that refills when half empty and hands out values at most
+     * {@value #DEFAULT_MAX_AGE_MILLIS} milliseconds old.
+     *
+     * @param capacity The number of values of the ring, rounded up to a power of two.
+     */
+    public SnowflakeRingBuffer(@Range(from = 2, to = 1 << 30) int capacity) {
+        this(capacity, capacity / 2, DEFAULT_MAX_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Create a ring buffer of {@value #DEFAULT_CAPACITY} values that refills when half empty and hands out values at
+     * most {@value #DEFAULT_MAX_AGE_MILLIS} milliseconds old.
+     */
+    public SnowflakeRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    // <editor-fold desc="Accessors" defaultstate="collapsed">
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    /**
+     * Gets the maximum age of a value handed out.
+     *
+     * @return The maximum age in milliseconds, {@link Long#MAX_VALUE} for no maximum.
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Gets the number of values currently in the ring.
+     *
+     * @return The number of values.
+     */
+    public int size() {
+        return (int) Math.max(0L, tail.value - head.value);
+    }
+
+    /**
+     * Gets the number of values discarded because they were older than the maximum age.
+     *
+     * @return The number of discarded values.
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+    // </editor-fold>
+
+    /**
+     * Binds the ring to the workers that fill it and starts the first refill.
+     */
+    synchronized void bind(Executor executor, SnowflakeGeneratorFactory factory) {
+        if (this.executor != null) {
+            throw new IllegalStateException("Ring buffer is already bound to a generator.");
+        }
+        this.timestampProvider = factory.getTimestampProvider();
+        this.epoch = factory.getEpoch();
+        this.timestampUnit = factory.getLayout().getTimestampUnit();
+        this.timestampShift = factory.getLayout().getTimestampShift();
+        this.executor = executor;
+        requestRefill();
+    }
+
+    /**
+     * Takes the next value of the ring.
+     *
+     * @return The value, or {@code -1} if the ring is empty.
+     */
+    long poll() {
+        Cursor head = this.head;
+        long min = -1L;
+        for (; ; ) {
+            long h = head.value;
+            long t = tail.value;
+            if (h >= t) {
+                requestRefill();
+                return -1L;
+            }
+            // the slot cannot be overwritten before the head moves past it, which fails the compare-and-set
+            long value = slots[(int) (h & mask)];
+            if (Cursor.VALUE.compareAndSet(head, h, h + 1)) {
+                if (t - h - 1 <= lowWatermark) {
+                    requestRefill();
+                }
+                if (maxAge != Long.MAX_VALUE) {
+                    if (min < 0) {
+                        min = minValue();
+                    }
+                    if (value < min) {
+                        discarded.increment();
+                        continue;
+                    }
+                }
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Gets the smallest value that is not older than the maximum age.
+     */
+    private long minValue() {
+        long timestamp = Math.floorDiv(timestampProvider.getTimestamp() - maxAge - epoch, timestampUnit);
+        return timestamp <= 0 ? 0L : timestamp << timestampShift;
+    }
+
+    private void requestRefill() {
+        if (refilling == 0 && executor != null && REFILLING.compareAndSet(this, 0, 1)) {
+            try {
+                executor.execute(this::refill);
+            } catch (RejectedExecutionException e) {
+                refilling = 0; // the generator is closed
+            }
+        }
+    }
+
+    /**
+     * Fills the free slots of the ring. Runs on a worker, one refill at a time.
+     */
+    private void refill() {
+        try {
+            SnowflakeGenerator generator = SnowflakeWorker.currentGenerator();
+            long t = tail.value;
+            int free = slots.length - (int) (t - head.value);
+            while (free > 0) {
+                int index = (int) (t & mask);
+                int length = Math.min(free, slots.length - index);
+                generator.generate(slots, index, length);
+                t += length;
+                free -= length;
+                Cursor.VALUE.lazySet(tail, t);
+            }
+        } finally {
+            refilling = 0;
+        }
+    }
+
+    // <editor-fold desc="Padded cursor" defaultstate="collapsed">
+    @SuppressWarnings("unused")
+    private static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class CursorValue extends LeftPadding {
+        volatile long value;
+    }
+
+    /**
+     * A cursor padded on both sides, so the head and the tail never share a cache line.
+     * Superclass fields are laid out before subclass fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class Cursor extends CursorValue {
+        private static final AtomicLongFieldUpdater<CursorValue> VALUE =
+            AtomicLongFieldUpdater.newUpdater(CursorValue.class, "value");
+
+        long p11, p12, p13, p14, p15, p16, p17;
+    }
+    // </editor-fold>
+
+    @Override
+    public String toString() {
+        return "SnowflakeRingBuffer[capacity=" + slots.length + ", size=" + size() + ", discarded=" + getDiscarded() + "]";
+    }
+}
@@ -0,0 +1,62 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Steers the requests of the workers of a {@link SnowflakeParallelGenerator} to generators that can serve them in the
+ * current millisecond.
+ * <p>
+ * A worker normally generates with its own generator, and waits for the next millisecond once that generator has
+ * exhausted its sequence, even though the generators of other worker IDs may have sequence numbers left. With a
+ * budget, a worker whose generator is exhausted generates with another generator of the pool instead. Generators are
+ * thread-safe, so a worker may borrow the generator of a busy worker. A worker only waits for the next millisecond
+ * once every generator of the pool has exhausted its sequence.
+ * </p>
+ *
+ * @see SnowflakeParallelGenerator.DispatchMode#SEQUENCE_BUDGET
+ */
+final class SnowflakeSequenceBudget {
+
+    private final SnowflakeGenerator[] generators;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    SnowflakeSequenceBudget(SnowflakeWorkerFactory workerFactory) {
+        this.generators = new SnowflakeGenerator[workerFactory.getWorkerIds()];
+        for (int i = 0; i < generators.length; i++) {
+            generators[i] = workerFactory.getGenerator(workerFactory.getWorkerIdOffset() + i);
+        }
+    }
+
+    /**
+     * Selects a generator for {@code count} snowflakes: the own generator of the worker if it can serve them right
+     * away, otherwise the first generator with enough sequence numbers left, scanning from a rotating start so that
+     * borrowing workers spread over the pool, otherwise the generator with the most sequence numbers left.
+     *
+     * @param own   The generator of the current worker.
+     * @param count The number of snowflakes.
+     * @return The generator.
+     */
+    SnowflakeGenerator select(SnowflakeGenerator own, int count) {
+        int best = own.getRemainingSequence();
+        if (best >= count) {
+            return own;
+        }
+        SnowflakeGenerator selected = own;
+        int length = generators.length;
+        int start = cursor.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < length; i++) {
+            SnowflakeGenerator generator = generators[(start + i) % length];
+            int remaining = generator.getRemainingSequence();
+            if (remaining >= count) {
+                return generator;
+            }
+            if (remaining > best) {
+                best = remaining;
+                selected = generator;
+            }
+        }
+        return selected;
+    }
+}
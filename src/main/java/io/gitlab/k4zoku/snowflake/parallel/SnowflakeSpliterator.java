@@ -0,0 +1,108 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator of the snowflakes of a {@link SnowflakeParallelGenerator} that splits across the worker IDs of the
+ * pool.
+ * <p>
+ * Every spliterator owns a disjoint range of worker IDs and generates with the generator of the first one, on the
+ * thread that traverses it. {@link #trySplit()} hands the upper half of the range to the new spliterator, so splits
+ * share no state with each other and never hand snowflakes through the executor of the pool. A spliterator left with a
+ * single worker ID does not split.
+ * </p>
+ * <p>
+ * The generators are those of the workers of the pool, which are thread-safe, so a stream can run while the pool
+ * generates. A bounded spliterator is {@link #SIZED} and {@link #SUBSIZED}. The snowflakes of a split are ordered,
+ * but those of different splits are not, so no spliterator reports {@link #ORDERED} or {@link #SORTED}.
+ * </p>
+ */
+final class SnowflakeSpliterator implements Spliterator<Snowflake> {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final SnowflakeWorkerFactory workerFactory;
+    private final int fromIndex; // index of the worker ID this spliterator generates with
+    private int toIndex; // index after the last worker ID owned by this spliterator
+    private long remaining; // Long.MAX_VALUE if unbounded
+    private final boolean sized;
+    private SnowflakeGenerator generator;
+
+    SnowflakeSpliterator(SnowflakeWorkerFactory workerFactory, int fromIndex, int toIndex, long remaining, boolean sized) {
+        this.workerFactory = workerFactory;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.remaining = remaining;
+        this.sized = sized;
+    }
+
+    private SnowflakeGenerator generator() {
+        SnowflakeGenerator g = generator;
+        if (g == null) {
+            generator = g = workerFactory.getGenerator(workerFactory.getWorkerIdOffset() + fromIndex);
+        }
+        return g;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Snowflake> action) {
+        if (remaining <= 0) {
+            return false;
+        }
+        if (sized) {
+            remaining--;
+        }
+        action.accept(generator().generate());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Snowflake> action) {
+        SnowflakeGenerator g = generator();
+        long[] values = new long[(int) Math.min(BATCH_SIZE, remaining)];
+        while (remaining > 0) {
+            int length = (int) Math.min(values.length, remaining);
+            if (sized) {
+                remaining -= length;
+            }
+            g.generate(values, 0, length);
+            for (int i = 0; i < length; i++) {
+                action.accept(Snowflake.of(values[i]));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<Snowflake> trySplit() {
+        int ids = toIndex - fromIndex;
+        if (ids < 2 || remaining < 2) {
+            return null;
+        }
+        int mid = fromIndex + (ids >>> 1);
+        long size = remaining;
+        if (sized) {
+            size = remaining <= Long.MAX_VALUE / ids
+                ? remaining * (toIndex - mid) / ids
+                : remaining / ids * (toIndex - mid);
+            remaining -= size;
+        }
+        SnowflakeSpliterator split = new SnowflakeSpliterator(workerFactory, mid, toIndex, size, sized);
+        toIndex = mid;
+        return split;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        int characteristics = IMMUTABLE | NONNULL | DISTINCT;
+        return sized ? characteristics | SIZED | SUBSIZED : characteristics;
+    }
+}
@@ -0,0 +1,205 @@
+package io.gitlab.k4zoku.snowflake.parallel;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Range;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Generates snowflakes on the caller thread from one of several {@link SnowflakeGenerator} stripes.
+ * <p>
+ * Every stripe is a generator with its own worker ID, created by a {@link SnowflakeGeneratorFactory}. A caller picks
+ * a stripe by the probe hash of its thread, so a thread keeps using the same stripe as long as no other thread
+ * competes for it. A thread that finds its stripe busy rehashes its probe and moves on to another stripe, which
+ * spreads contending threads over the stripes without any executor, task submission or hand-off between threads.
+ * </p>
+ * <p>
+ * Snowflakes are unique and increasing per stripe. Snowflakes of different stripes are not ordered, as with
+ * {@link SnowflakeParallelGenerator}.
+ * </p>
+ *
+ * @see SnowflakeParallelGenerator
+ */
+public class SnowflakeStripedGenerator implements Generator<Snowflake> {
+
+    private static final ThreadLocal<Probe> PROBE = ThreadLocal.withInitial(Probe::new);
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * Create a striped generator.
+     *
+     * @param factory        factory to create the generator of every stripe by providing worker ID.
+     * @param stripes        number of stripes, rounded up to a power of two and truncated to the number of worker IDs
+     *                       of the layout of the factory.
+     * @param workerIdOffset offset of worker ID. In other words, the worker ID of the first stripe is
+     *                       {@code workerIdOffset}.
+     */
+    public SnowflakeStripedGenerator(
+        @NotNull SnowflakeGeneratorFactory factory,
+        @Range(from = 1, to = Integer.MAX_VALUE) int stripes,
+        @Range(from = 0, to = Integer.MAX_VALUE) int workerIdOffset
+    ) {
+        int workerIds = factory.getLayout().getMaxWorkerId() + 1;
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of stripes must be positive.");
+        }
+        int count = Math.min(stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1, Integer.highestOneBit(workerIds));
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            // each padded stripe is allocated right after its generator, keeping the generators apart in memory
+            this.stripes[i] = new Stripe(factory.create((workerIdOffset + i) % workerIds));
+        }
+    }
+
+    /**
+     * Create a striped generator with a stripe per available processor.
+     *
+     * @param factory factory to create the generator of every stripe by providing worker ID.
+     */
+    public SnowflakeStripedGenerator(@NotNull SnowflakeGeneratorFactory factory) {
+        this(factory, Runtime.getRuntime().availableProcessors(), 0);
+    }
+
+    /**
+     * Gets the generators of the stripes.
+     *
+     * @return An unmodifiable list of the generators, indexed by stripe.
+     */
+    public List<SnowflakeGenerator> getGenerators() {
+        List<SnowflakeGenerator> generators = new ArrayList<>(stripes.length);
+        for (Stripe stripe : stripes) {
+            generators.add(stripe.generator);
+        }
+        return Collections.unmodifiableList(generators);
+    }
+
+    /**
+     * Generates a snowflake on the calling thread.
+     *
+     * @return The generated snowflake.
+     */
+    @Override
+    @Contract(value = "-> new")
+    public Snowflake generate() {
+        Stripe stripe = acquire();
+        if (stripe == null) {
+            return shared().generate();
+        }
+        try {
+            return stripe.generator.generate();
+        } finally {
+            stripe.busy = 0;
+        }
+    }
+
+    /**
+     * Generates {@code length} snowflakes of a single stripe into the given array, starting at {@code offset}.
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     * @see SnowflakeGenerator#generate(long[], int, int)
+     */
+    public void generate(long[] values, int offset, int length) {
+        Stripe stripe = acquire();
+        if (stripe == null) {
+            shared().generate(values, offset, length);
+            return;
+        }
+        try {
+            stripe.generator.generate(values, offset, length);
+        } finally {
+            stripe.busy = 0;
+        }
+    }
+
+    /**
+     * Marks the stripe of the calling thread busy, moving the thread to another stripe on contention.
+     *
+     * @return The stripe, or {@code null} if every stripe tried was busy.
+     */
+    private Stripe acquire() {
+        Probe probe = PROBE.get();
+        int hash = probe.hash;
+        for (int attempt = 0; attempt <= mask; attempt++) {
+            Stripe stripe = stripes[hash & mask];
+            if (stripe.busy == 0 && Stripe.BUSY.compareAndSet(stripe, 0, 1)) {
+                probe.hash = hash;
+                return stripe;
+            }
+            hash = Probe.rehash(hash);
+        }
+        probe.hash = hash;
+        return null;
+    }
+
+    /**
+     * Gets the generator of the stripe of the calling thread without marking it busy. The generator is thread-safe on
+     * its own, so a thread that found every stripe busy shares it.
+     */
+    private SnowflakeGenerator shared() {
+        return stripes[PROBE.get().hash & mask].generator;
+    }
+
+    @Override
+    public Spliterator<Snowflake> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.IMMUTABLE | Spliterator.NONNULL | Spliterator.DISTINCT);
+    }
+
+    private static final class Probe {
+        private int hash = ThreadLocalRandom.current().nextInt() | 1;
+
+        private static int rehash(int hash) {
+            hash ^= hash << 13;
+            hash ^= hash >>> 17;
+            hash ^= hash << 5;
+            return hash;
+        }
+    }
+
+    // <editor-fold desc="Padded stripe" defaultstate="collapsed">
+    @SuppressWarnings("unused")
+    private static class LeftPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    private static class StripeFields extends LeftPadding {
+        final SnowflakeGenerator generator;
+        volatile int busy;
+
+        StripeFields(SnowflakeGenerator generator) {
+            this.generator = generator;
+        }
+    }
+
+    /**
+     * A stripe padded on both sides, so the busy flags of stripes never share a cache line.
+     * Superclass fields are laid out before subclass fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class Stripe extends StripeFields {
+        private static final AtomicIntegerFieldUpdater<StripeFields> BUSY =
+            AtomicIntegerFieldUpdater.newUpdater(StripeFields.class, "busy");
+
+        long p11, p12, p13, p14, p15, p16, p17;
+
+        Stripe(SnowflakeGenerator generator) {
+            super(generator);
+        }
+    }
+    // </editor-fold>
+}
@@ -5,6 +5,8 @@ import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
 
 public class SnowflakeWorker extends Thread {
 
+    private static final ThreadLocal<SnowflakeGenerator> VIRTUAL_WORKER_GENERATOR = new ThreadLocal<>();
+
     private final SnowflakeGenerator generator;
 
     public SnowflakeWorker(SnowflakeGenerator generator, Runnable target) {
@@ -17,6 +19,55 @@ public class SnowflakeWorker extends Thread {
         return generator.generate();
     }
 
+    /**
+     * Generates {@code length} snowflakes with the generator of this worker into the given array.
+     *
+     * @param values The array to write the values of the snowflakes to.
+     * @param offset The index of the first value to write.
+     * @param length The number of snowflakes to generate.
+     * @see SnowflakeGenerator#generate(long[], int, int)
+     */
+    public void work(long[] values, int offset, int length) {
+        generator.generate(values, offset, length);
+    }
+
+    public SnowflakeGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Gets the generator of the current worker, which is either a {@link SnowflakeWorker} or a virtual thread
+     * created by a {@link SnowflakeWorkerFactory} with virtual threads.
+     *
+     * @return The generator.
+     * @throws IllegalStateException If the current thread is not a worker.
+     */
+    public static SnowflakeGenerator currentGenerator() {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof SnowflakeWorker) {
+            return ((SnowflakeWorker) thread).generator;
+        }
+        SnowflakeGenerator generator = VIRTUAL_WORKER_GENERATOR.get();
+        if (generator == null) {
+            throw new IllegalStateException("Current thread is not a SnowflakeWorker");
+        }
+        return generator;
+    }
+
+    /**
+     * Wraps the task of a virtual worker thread so that {@link #currentGenerator()} finds its generator.
+     */
+    static Runnable virtual(SnowflakeGenerator generator, Runnable target) {
+        return () -> {
+            VIRTUAL_WORKER_GENERATOR.set(generator);
+            try {
+                target.run();
+            } finally {
+                VIRTUAL_WORKER_GENERATOR.remove();
+            }
+        };
+    }
+
     public static SnowflakeWorker currentWorker() {
         Thread thread = Thread.currentThread();
         if (thread instanceof SnowflakeWorker) {
@@ -2,60 +2,211 @@ package io.gitlab.k4zoku.snowflake.parallel;
 
 import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
 import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.common.util.Threads;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
 
-import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.atomic.AtomicInteger;
-
-import static io.gitlab.k4zoku.snowflake.SnowflakeGenerator.MAX_WORKER_ID;
 
+/**
+ * Creates the workers of a {@link SnowflakeParallelGenerator}, each with the generator of a worker ID.
+ * <p>
+ * A new worker acquires the free worker ID with the lowest index, from {@code offset} on, and releases it when its
+ * thread terminates, so workers alive at the same time hold distinct worker IDs as long as there are enough of them.
+ * A worker ID keeps its generator for the lifetime of the factory: a worker that acquires a released worker ID
+ * continues the sequence of the previous worker instead of restarting it, so it never repeats a snowflake of the same
+ * millisecond.
+ * </p>
+ */
 public class SnowflakeWorkerFactory implements ThreadFactory {
     private final int maxWorkers;
-    private final AtomicInteger counter;
     private final int offset;
     private final int delta;
     private final SnowflakeGeneratorFactory generatorFactory;
-    private final Map<Integer, WeakReference<SnowflakeGenerator>> generators;
+    private final Map<Integer, SnowflakeGenerator> generators;
+    private final int[] holders; // live workers per worker ID - offset
+    private final boolean virtualThreads;
+    private volatile boolean metrics;
 
     public SnowflakeWorkerFactory(
-        @Range(from = 0, to = MAX_WORKER_ID) int offset,
-        @Range(from = 1, to = MAX_WORKER_ID + 1) int maxWorkers,
+        @Range(from = 0, to = Integer.MAX_VALUE) int offset,
+        @Range(from = 1, to = Integer.MAX_VALUE) int maxWorkers,
         @NotNull SnowflakeGeneratorFactory generatorFactory
     ) {
+        this(offset, maxWorkers, generatorFactory, false);
+    }
+
+    /**
+     * Create a worker factory.
+     *
+     * @param offset           The first worker ID.
+     * @param maxWorkers       The maximum number of workers.
+     * @param generatorFactory The factory of the generators of the workers.
+     * @param virtualThreads   Whether the workers are virtual threads instead of {@link SnowflakeWorker}s. A virtual
+     *                         worker waiting for the next timestamp leaves its carrier thread to other work.
+     * @throws UnsupportedOperationException If virtual threads are requested on a runtime without virtual threads.
+     */
+    public SnowflakeWorkerFactory(
+        @Range(from = 0, to = Integer.MAX_VALUE) int offset,
+        @Range(from = 1, to = Integer.MAX_VALUE) int maxWorkers,
+        @NotNull SnowflakeGeneratorFactory generatorFactory,
+        boolean virtualThreads
+    ) {
+        if (virtualThreads && !Threads.isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+        }
+        this.virtualThreads = virtualThreads;
         this.maxWorkers = maxWorkers;
-        this.counter = new AtomicInteger(0);
-        this.offset = (offset % (MAX_WORKER_ID + 1));
-        this.delta = (MAX_WORKER_ID - this.offset);
+        int maxWorkerId = generatorFactory.getLayout().getMaxWorkerId();
+        this.offset = (offset % (maxWorkerId + 1));
+        this.delta = (maxWorkerId - this.offset + 1);
         this.generatorFactory = generatorFactory;
         this.generators = new ConcurrentHashMap<>();
+        this.holders = new int[getWorkerIds()];
     }
 
+    /**
+     * Creates a worker with the next free worker ID, which it releases when its thread terminates.
+     *
+     * @param r The task of the worker.
+     * @return The worker.
+     */
     @Override
     public Thread newThread(@NotNull Runnable r) {
-        int id = nextId();
-        SnowflakeGenerator generator = Optional.ofNullable(generators.get(id))
-            .map(WeakReference::get)
-            .orElseGet(() -> {
-                SnowflakeGenerator g = generatorFactory.create(id);
-                generators.put(id, new WeakReference<>(g));
-                return g;
-            });
-        return new SnowflakeWorker(generator, r);
+        int workerId = nextId();
+        Runnable task = () -> {
+            try {
+                r.run();
+            } finally {
+                release(workerId);
+            }
+        };
+        try {
+            SnowflakeGenerator generator = getGenerator(workerId);
+            if (virtualThreads) {
+                String name = String.format("SnowflakeWorker[%02d/%02d]", generator.getDataCenterId(), generator.getWorkerId());
+                return Threads.newVirtualThread(name, SnowflakeWorker.virtual(generator, task));
+            }
+            return new SnowflakeWorker(generator, task);
+        } catch (RuntimeException | Error e) {
+            release(workerId);
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the generator of a worker ID, creating it on first use. Workers with the same ID, and every other caller,
+     * share the same generator, which the factory keeps after its workers terminate.
+     *
+     * @param workerId The worker ID.
+     * @return The generator.
+     */
+    public synchronized SnowflakeGenerator getGenerator(int workerId) {
+        return generators.computeIfAbsent(workerId, id -> {
+            SnowflakeGenerator g = generatorFactory.create(id);
+            if (metrics) {
+                g.enableMetrics();
+            }
+            return g;
+        });
+    }
+
+    public SnowflakeGeneratorFactory getGeneratorFactory() {
+        return generatorFactory;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
     }
 
     /**
-     * Returns the next worker ID in the interval of inclusive range from {@link #offset} to
-     * ({@link #offset} + {@link #maxWorkers}) or {@link SnowflakeGenerator#MAX_WORKER_ID}
-     * whichever is smaller.
+     * Gets the first worker ID of the workers created by this factory.
+     *
+     * @return The worker ID.
+     */
+    public int getWorkerIdOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the number of distinct worker IDs of the workers created by this factory, from {@link #getWorkerIdOffset()}
+     * on.
+     *
+     * @return The number of worker IDs.
+     */
+    public int getWorkerIds() {
+        return Math.min(maxWorkers, delta);
+    }
+
+    /**
+     * Gets the number of worker IDs held by live workers.
+     *
+     * @return The number of worker IDs in use.
+     */
+    public synchronized int getActiveWorkerIds() {
+        int count = 0;
+        for (int holder : holders) {
+            if (holder > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the generators created by this factory so far.
+     *
+     * @return A snapshot of the generators.
+     */
+    public Collection<SnowflakeGenerator> getGenerators() {
+        return new ArrayList<>(generators.values());
+    }
+
+    /**
+     * Enables metrics on the generators of the workers created so far and on those created later.
+     */
+    public void enableMetrics() {
+        metrics = true;
+        getGenerators().forEach(SnowflakeGenerator::enableMetrics);
+    }
+
+    /**
+     * Acquires the next worker ID in the interval of inclusive range from {@link #offset} to
+     * ({@link #offset} + {@link #maxWorkers}) or the maximum worker ID of the layout of the generator factory
+     * whichever is smaller: the lowest one no live worker holds, or the one with the fewest live workers if every
+     * worker ID is held.
      *
      * @return the next worker ID
+     * @see #release(int)
+     */
+    protected synchronized int nextId() {
+        int index = 0;
+        for (int i = 1; i < holders.length && holders[index] > 0; i++) {
+            if (holders[i] < holders[index]) {
+                index = i;
+            }
+        }
+        holders[index]++;
+        return offset + index;
+    }
+
+    /**
+     * Releases a worker ID acquired by {@link #nextId()}. Its generator is kept for the next worker that acquires it.
+     *
+     * @param workerId the worker ID
      */
-    protected int nextId() {
-        return offset + counter.getAndUpdate(c -> (c + 1) % maxWorkers) % delta;
+    protected synchronized void release(int workerId) {
+        int index = workerId - offset;
+        if (holders[index] > 0) {
+            holders[index]--;
+        }
     }
 }
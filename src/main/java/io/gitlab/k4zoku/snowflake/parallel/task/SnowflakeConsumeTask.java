@@ -15,7 +15,7 @@ public class SnowflakeConsumeTask implements Runnable {
 
     @Override
     public void run() {
-        action.accept(SnowflakeWorker.currentWorker().work());
+        action.accept(SnowflakeWorker.currentGenerator().generate());
     }
 
 }
@@ -9,7 +9,7 @@ public class SnowflakeGenerateTask implements Callable<Snowflake> {
 
     @Override
     public Snowflake call() {
-        return SnowflakeWorker.currentWorker().work();
+        return SnowflakeWorker.currentGenerator().generate();
     }
 
 }
@@ -0,0 +1,177 @@
+package io.gitlab.k4zoku.snowflake.time;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link TimestampProvider} that serves the timestamp published by a background ticker thread.
+ * <p>
+ * While running, a daemon ticker reads {@link System#currentTimeMillis()} every {@code resolution} and publishes it,
+ * so {@link #getTimestamp()} is a plain volatile read. Threads in {@link #waitUntilNextTimestamp(long)} are parked
+ * and woken by the ticker instead of spinning on the clock. The published timestamp lags the system clock by at most
+ * the resolution plus the scheduling delay of the ticker.
+ * </p>
+ * <p>
+ * A provider that is not running falls back to {@link System#currentTimeMillis()}, so it can be handed to a generator
+ * before it is started and after it is stopped.
+ * </p>
+ * <pre>{@code
+ * CachedTimestampProvider timestampProvider = new CachedTimestampProvider().start();
+ * SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder()
+ *     .timestampProvider(timestampProvider)
+ *     .build();
+ * }</pre>
+ */
+public class CachedTimestampProvider implements TimestampProvider, AutoCloseable {
+
+    private static final long serialVersionUID = 0L;
+
+    public static final long DEFAULT_RESOLUTION_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final long STOPPED = Long.MIN_VALUE;
+
+    private static final AtomicLongFieldUpdater<CachedTimestampProvider> TIMESTAMP =
+        AtomicLongFieldUpdater.newUpdater(CachedTimestampProvider.class, "timestamp");
+
+    private final long resolutionNanos;
+
+    private transient volatile long timestamp = STOPPED;
+    private transient volatile Thread ticker;
+    private final transient ReentrantLock lock = new ReentrantLock();
+    private final transient Condition ticked = lock.newCondition();
+    private final transient AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * Create a stopped cached timestamp provider.
+     *
+     * @param resolution The interval between two reads of the system clock.
+     * @param unit       The unit of {@code resolution}.
+     */
+    public CachedTimestampProvider(long resolution, TimeUnit unit) {
+        if (resolution <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive.");
+        }
+        this.resolutionNanos = unit.toNanos(resolution);
+    }
+
+    /**
+     * Create a stopped cached timestamp provider with a resolution of 100 microseconds.
+     */
+    public CachedTimestampProvider() {
+        this(DEFAULT_RESOLUTION_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts the ticker thread. Does nothing if the provider is already running.
+     *
+     * @return this provider
+     */
+    public synchronized CachedTimestampProvider start() {
+        if (ticker == null) {
+            timestamp = System.currentTimeMillis();
+            Thread thread = new Thread(this::tick, "SnowflakeTimestampTicker");
+            thread.setDaemon(true);
+            ticker = thread;
+            thread.start();
+        }
+        return this;
+    }
+
+    /**
+     * Stops the ticker thread and falls back to the system clock. Does nothing if the provider is not running.
+     */
+    public synchronized void stop() {
+        Thread thread = ticker;
+        if (thread != null) {
+            ticker = null;
+            timestamp = STOPPED;
+            LockSupport.unpark(thread);
+            signalWaiters();
+        }
+    }
+
+    /**
+     * Whether the ticker thread is running.
+     *
+     * @return {@code true} if timestamps are served from the ticker.
+     */
+    public boolean isRunning() {
+        return ticker != null;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    @Override
+    public long getTimestamp() {
+        long current = timestamp;
+        return current != STOPPED ? current : System.currentTimeMillis();
+    }
+
+    /**
+     * Parks the calling thread until the ticker publishes a timestamp different from {@code lastTimestamp}.
+     * Falls back to spinning on the system clock if the provider is not running.
+     *
+     * @param lastTimestamp The timestamp to wait past.
+     * @return The first published timestamp different from {@code lastTimestamp}.
+     */
+    @Override
+    public long waitUntilNextTimestamp(long lastTimestamp) {
+        long current = timestamp;
+        if (current == STOPPED) {
+            return TimestampProvider.super.waitUntilNextTimestamp(lastTimestamp);
+        }
+        if (current != lastTimestamp) {
+            return current;
+        }
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            while ((current = timestamp) == lastTimestamp) {
+                ticked.awaitNanos(resolutionNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TimestampProvider.super.waitUntilNextTimestamp(lastTimestamp);
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+        return current != STOPPED ? current : TimestampProvider.super.waitUntilNextTimestamp(lastTimestamp);
+    }
+
+    private void tick() {
+        Thread self = Thread.currentThread();
+        while (ticker == self) {
+            long now = System.currentTimeMillis();
+            long current = timestamp;
+            // compare-and-set so a concurrent stop() is never overwritten
+            if (now != current && current != STOPPED && TIMESTAMP.compareAndSet(this, current, now)) {
+                signalWaiters();
+            }
+            LockSupport.parkNanos(this, resolutionNanos);
+        }
+    }
+
+    private void signalWaiters() {
+        if (waiters.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            ticked.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object readResolve() {
+        return new CachedTimestampProvider(resolutionNanos, TimeUnit.NANOSECONDS);
+    }
+}
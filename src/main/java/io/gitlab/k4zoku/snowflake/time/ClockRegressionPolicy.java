@@ -0,0 +1,95 @@
+package io.gitlab.k4zoku.snowflake.time;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what a snowflake generator does when its {@link TimestampProvider} reports a timestamp older than the
+ * timestamp the generator has already issued snowflakes for, for example after NTP stepped the clock back.
+ */
+@FunctionalInterface
+public interface ClockRegressionPolicy extends Serializable {
+
+    /**
+     * Called when the clock is behind the smallest timestamp the generator can issue snowflakes from.
+     *
+     * @param timestampProvider The timestamp provider of the generator.
+     * @param required          The smallest timestamp the generator can issue snowflakes from.
+     * @param timestamp         The timestamp reported by the provider, smaller than {@code required}.
+     * @return The timestamp to issue snowflakes from, not smaller than {@code required}.
+     * @throws IllegalStateException If the generator must not issue a snowflake.
+     */
+    long onClockRegression(TimestampProvider timestampProvider, long required, long timestamp);
+
+    /**
+     * Fails the generation with an {@link IllegalStateException}. This is the default policy.
+     * <p>
+     * Worst-case latency: none, every regression is an error.
+     * </p>
+     *
+     * @return A policy that throws on every regression.
+     */
+    static ClockRegressionPolicy fail() {
+        return (timestampProvider, required, timestamp) -> {
+            throw new IllegalStateException("Clock moved backwards.");
+        };
+    }
+
+    /**
+     * Parks the generating thread until the clock catches up. Regressions larger than {@code maxWait} fail immediately
+     * with an {@link IllegalStateException}, as do clocks that have not caught up once {@code maxWait} has elapsed.
+     * <p>
+     * Worst-case latency: {@code maxWait} plus the parking granularity of the platform. A regression of {@code n}
+     * milliseconds costs about {@code n} milliseconds. Monitor-based generators keep their monitor while waiting, so
+     * concurrent callers see the same delay.
+     * </p>
+     *
+     * @param maxWait The maximum time to wait for the clock.
+     * @param unit    The unit of {@code maxWait}.
+     * @return A policy that waits for the clock to catch up.
+     */
+    static ClockRegressionPolicy await(long maxWait, TimeUnit unit) {
+        if (maxWait < 0) {
+            throw new IllegalArgumentException("Maximum wait cannot be negative.");
+        }
+        long maxWaitMillis = unit.toMillis(maxWait);
+        return (timestampProvider, required, timestamp) -> {
+            if (required - timestamp > maxWaitMillis) {
+                throw new IllegalStateException(String.format(
+                    "Clock moved backwards by %d ms, more than the maximum wait of %d ms.", required - timestamp, maxWaitMillis));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+            long current = timestamp;
+            while (current < required) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException(String.format(
+                        "Clock did not catch up within the maximum wait of %d ms.", maxWaitMillis));
+                }
+                LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(required - current)));
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the clock to catch up.");
+                }
+                current = timestampProvider.getTimestamp();
+            }
+            return current;
+        };
+    }
+
+    /**
+     * Keeps issuing snowflakes from the last issued timestamp as a logical clock, advancing it by one millisecond
+     * whenever its sequence is exhausted, until the clock catches up.
+     * <p>
+     * Worst-case latency: none, the generator never waits for a regressed clock. In exchange the timestamps of
+     * snowflakes run ahead of the clock by up to the size of the regression, plus one millisecond for every exhausted
+     * sequence while the clock is behind.
+     * </p>
+     *
+     * @return A policy that never waits and never fails.
+     */
+    static ClockRegressionPolicy logicalClock() {
+        return (timestampProvider, required, timestamp) -> required;
+    }
+}
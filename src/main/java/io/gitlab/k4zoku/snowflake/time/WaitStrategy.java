@@ -0,0 +1,171 @@
+package io.gitlab.k4zoku.snowflake.time;
+
+import io.gitlab.k4zoku.snowflake.common.util.Threads;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how a snowflake generator waits for the next timestamp once the sequence of the current timestamp is
+ * exhausted.
+ * <p>
+ * Spinning strategies react to the new timestamp fastest but burn a core while waiting, parking strategies give the
+ * core away at the cost of wake-up latency. {@link #hybrid()} spins briefly before yielding and finally parking.
+ * </p>
+ */
+@FunctionalInterface
+public interface WaitStrategy extends Serializable {
+
+    long DEFAULT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Waits until the timestamp provider reports a timestamp different from {@code lastTimestamp}.
+     *
+     * @param timestampProvider The timestamp provider of the generator.
+     * @param lastTimestamp     The timestamp whose sequence is exhausted.
+     * @return The first timestamp different from {@code lastTimestamp}.
+     */
+    long waitUntilNextTimestamp(TimestampProvider timestampProvider, long lastTimestamp);
+
+    /**
+     * Delegates to {@link TimestampProvider#waitUntilNextTimestamp(long)}, so providers that know when the next
+     * timestamp is published (such as {@link CachedTimestampProvider}) can wait accordingly.
+     *
+     * @return A strategy that lets the timestamp provider wait.
+     */
+    static WaitStrategy timestampProvider() {
+        return TimestampProvider::waitUntilNextTimestamp;
+    }
+
+    /**
+     * Parks virtual threads for 50 microseconds between two reads of the clock, so they leave their carrier thread
+     * while waiting, and lets the timestamp provider wait on platform threads. Behaves like
+     * {@link #timestampProvider()} before Java 21. This is the default.
+     *
+     * @return A strategy that parks virtual threads.
+     * @see #parking()
+     */
+    static WaitStrategy virtualThreadAware() {
+        WaitStrategy platform = timestampProvider();
+        WaitStrategy virtual = parking();
+        return (timestampProvider, lastTimestamp) -> Threads.isVirtual(Thread.currentThread())
+            ? virtual.waitUntilNextTimestamp(timestampProvider, lastTimestamp)
+            : platform.waitUntilNextTimestamp(timestampProvider, lastTimestamp);
+    }
+
+    /**
+     * Reads the clock in a tight loop. Lowest wake-up latency, burns a full core while waiting.
+     *
+     * @return A busy-spinning strategy.
+     */
+    static WaitStrategy busySpin() {
+        return (timestampProvider, lastTimestamp) -> {
+            long timestamp;
+            do {
+                timestamp = timestampProvider.getTimestamp();
+            } while (timestamp == lastTimestamp);
+            return timestamp;
+        };
+    }
+
+    /**
+     * Reads the clock in a loop with {@code Thread.onSpinWait()} hints, which lets the processor save power and
+     * yield execution resources to sibling hyper-threads. Behaves like {@link #busySpin()} on Java 8.
+     *
+     * @return A spinning strategy with spin-wait hints.
+     */
+    static WaitStrategy spinWait() {
+        return (timestampProvider, lastTimestamp) -> {
+            long timestamp;
+            while ((timestamp = timestampProvider.getTimestamp()) == lastTimestamp) {
+                Threads.onSpinWait();
+            }
+            return timestamp;
+        };
+    }
+
+    /**
+     * Yields the processor between two reads of the clock. Cheap when other threads are runnable,
+     * degrades to spinning on an idle machine.
+     *
+     * @return A yielding strategy.
+     */
+    static WaitStrategy yielding() {
+        return (timestampProvider, lastTimestamp) -> {
+            long timestamp;
+            while ((timestamp = timestampProvider.getTimestamp()) == lastTimestamp) {
+                Thread.yield();
+            }
+            return timestamp;
+        };
+    }
+
+    /**
+     * Parks the thread for {@code parkTime} between two reads of the clock. Burns almost no processor time,
+     * but the next timestamp is noticed up to {@code parkTime} plus the timer slack of the platform late.
+     *
+     * @param parkTime The time to park between two reads of the clock.
+     * @param unit     The unit of {@code parkTime}.
+     * @return A parking strategy.
+     */
+    static WaitStrategy parking(long parkTime, TimeUnit unit) {
+        long parkNanos = unit.toNanos(parkTime);
+        return (timestampProvider, lastTimestamp) -> {
+            long timestamp;
+            while ((timestamp = timestampProvider.getTimestamp()) == lastTimestamp) {
+                LockSupport.parkNanos(parkNanos);
+            }
+            return timestamp;
+        };
+    }
+
+    /**
+     * Parks the thread for 50 microseconds between two reads of the clock.
+     *
+     * @return A parking strategy.
+     * @see #parking(long, TimeUnit)
+     */
+    static WaitStrategy parking() {
+        return parking(DEFAULT_PARK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Spins with spin-wait hints {@code spins} times, then yields {@code yields} times, then parks for
+     * {@code parkTime} between two reads of the clock until the next timestamp.
+     *
+     * @param spins    The number of spins before yielding.
+     * @param yields   The number of yields before parking.
+     * @param parkTime The time to park between two reads of the clock once spinning and yielding are used up.
+     * @param unit     The unit of {@code parkTime}.
+     * @return An escalating strategy.
+     */
+    static WaitStrategy hybrid(int spins, int yields, long parkTime, TimeUnit unit) {
+        long parkNanos = unit.toNanos(parkTime);
+        return (timestampProvider, lastTimestamp) -> {
+            long timestamp;
+            int attempts = 0;
+            while ((timestamp = timestampProvider.getTimestamp()) == lastTimestamp) {
+                if (attempts < spins) {
+                    Threads.onSpinWait();
+                } else if (attempts < spins + yields) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(parkNanos);
+                }
+                attempts++;
+            }
+            return timestamp;
+        };
+    }
+
+    /**
+     * Spins 100 times, then yields 10 times, then parks for 50 microseconds between two reads of the clock.
+     *
+     * @return An escalating strategy.
+     * @see #hybrid(int, int, long, TimeUnit)
+     */
+    static WaitStrategy hybrid() {
+        return hybrid(100, 10, DEFAULT_PARK_NANOS, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,50 @@
+package io.gitlab.k4zoku.snowflake.common.util;
+
+/**
+ * Thread utilities that are not available on every supported Java version.
+ * <p>
+ * Java 21 version of the multi-release jar, which calls the methods directly.
+ * </p>
+ */
+public final class Threads {
+
+    private Threads() {
+    }
+
+    /**
+     * Indicates that the caller is busy-waiting.
+     */
+    public static void onSpinWait() {
+        Thread.onSpinWait();
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads.
+     *
+     * @return {@code true}.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return true;
+    }
+
+    /**
+     * Checks whether a thread is a virtual thread.
+     *
+     * @param thread The thread.
+     * @return {@code true} if the thread is virtual.
+     */
+    public static boolean isVirtual(Thread thread) {
+        return thread.isVirtual();
+    }
+
+    /**
+     * Creates an unstarted virtual thread.
+     *
+     * @param name The name of the thread.
+     * @param task The task the thread runs.
+     * @return The thread.
+     */
+    public static Thread newVirtualThread(String name, Runnable task) {
+        return Thread.ofVirtual().name(name).unstarted(task);
+    }
+}
@@ -0,0 +1,79 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.codec.SnowflakeCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.CharBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the round trip of {@link Snowflake#toString()} and {@link Snowflake#of(String)} with the
+ * {@link SnowflakeCodec} encodings into a reused buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeCodecBenchmark {
+
+    @Param({"hex", "base32", "base62"})
+    private String codecName;
+
+    private SnowflakeCodec codec;
+    private char[] chars;
+    private CharBuffer charBuffer;
+    private byte[] bytes;
+    private StringBuilder builder;
+    private long value;
+
+    @Setup
+    public void setup() {
+        switch (codecName) {
+            case "hex":
+                this.codec = SnowflakeCodec.HEX;
+                break;
+            case "base32":
+                this.codec = SnowflakeCodec.CROCKFORD_BASE32;
+                break;
+            default:
+                this.codec = SnowflakeCodec.BASE62;
+                break;
+        }
+        this.chars = new char[codec.getWidth()];
+        this.charBuffer = CharBuffer.wrap(chars);
+        this.bytes = new byte[codec.getWidth()];
+        this.builder = new StringBuilder(64);
+        this.value = 634804641493811201L;
+    }
+
+    @Benchmark
+    public long decimalRoundTrip() {
+        return Snowflake.of(Snowflake.of(value).toString()).longValue();
+    }
+
+    @Benchmark
+    public long charsRoundTrip() {
+        codec.encode(value, chars, 0);
+        return codec.decode(charBuffer);
+    }
+
+    @Benchmark
+    public long bytesRoundTrip() {
+        codec.encode(value, bytes, 0);
+        return codec.decode(bytes, 0, bytes.length);
+    }
+
+    @Benchmark
+    public StringBuilder appendToBuilder() {
+        builder.setLength(0);
+        return codec.encode(value, builder);
+    }
+
+    @Benchmark
+    public long stringRoundTrip() {
+        return Snowflake.of(Snowflake.of(value).toString(codec), codec).longValue();
+    }
+}
@@ -0,0 +1,63 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.collection.SnowflakeColumn;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares lookups in a {@link SnowflakeColumn} with a binary search of the uncompressed values.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeColumnBenchmark {
+
+    private static final int SIZE = 1 << 22;
+
+    private long[] values;
+    private SnowflakeColumn column;
+
+    @Setup
+    public void setup() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        // about a thousand snowflakes per millisecond
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, () -> clock.getAndIncrement() / 1000);
+        this.values = new long[SIZE];
+        generator.generate(values, 0, SIZE);
+        this.column = SnowflakeColumn.builder().epoch(0).addAll(values, 0, SIZE).build();
+        System.out.printf("%n%s, %.2f bytes per value%n", column, (double) column.getSizeInBytes() / SIZE);
+    }
+
+    @Benchmark
+    public long arrayGet() {
+        return values[ThreadLocalRandom.current().nextInt(SIZE)];
+    }
+
+    @Benchmark
+    public long columnGet() {
+        return column.get(ThreadLocalRandom.current().nextInt(SIZE));
+    }
+
+    @Benchmark
+    public int arrayBinarySearch() {
+        return Arrays.binarySearch(values, values[ThreadLocalRandom.current().nextInt(SIZE)] + 1);
+    }
+
+    @Benchmark
+    public int columnRank() {
+        return column.rank(values[ThreadLocalRandom.current().nextInt(SIZE)] + 1);
+    }
+
+    @Benchmark
+    public boolean columnContains() {
+        return column.contains(values[ThreadLocalRandom.current().nextInt(SIZE)]);
+    }
+}
@@ -0,0 +1,68 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.LockFreeSnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeStripedGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the monitor-based {@link SnowflakeGenerator} with the {@link LockFreeSnowflakeGenerator} and the
+ * {@link SnowflakeStripedGenerator} under an increasing number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeGeneratorContentionBenchmark {
+
+    @Param({"synchronized", "lock-free", "striped"})
+    private String mode;
+
+    private Generator<Snowflake> generator;
+
+    @Setup
+    public void setup() {
+        switch (mode) {
+            case "lock-free":
+                this.generator = new LockFreeSnowflakeGenerator(3, 0);
+                break;
+            case "striped":
+                this.generator = new SnowflakeStripedGenerator(SnowflakeGeneratorFactory.builder().dataCenterId(3).build(), 16, 0);
+                break;
+            default:
+                this.generator = new SnowflakeGenerator(3, 0);
+                break;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Snowflake threads01() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Snowflake threads04() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Snowflake threads16() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Snowflake threads64() {
+        return generator.generate();
+    }
+}
@@ -0,0 +1,63 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that generating with a {@link SnowflakeLayout} costs the same as with the constants of
+ * {@link SnowflakeGenerator}, and that decoding with {@link SnowflakeLayout#DEFAULT} costs the same as decoding with
+ * the constants, as before layouts existed. Decoding with a custom layout loads its shifts and masks.
+ * <p>
+ * The clock advances on every read, so generation never waits for an exhausted sequence.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeLayoutBenchmark {
+
+    @Param({"default", "custom"})
+    private String layoutName;
+
+    private SnowflakeLayout layout;
+    private SnowflakeGenerator generator;
+    private Snowflake snowflake;
+
+    @Setup
+    public void setup() {
+        this.layout = "custom".equals(layoutName) ? new SnowflakeLayout(40, 1, 8, 14) : SnowflakeLayout.DEFAULT;
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        this.generator = new SnowflakeGenerator(SnowflakeGenerator.AUTHOR_EPOCH, 1, 3, clock::incrementAndGet, layout);
+        this.snowflake = generator.generate();
+    }
+
+    @Benchmark
+    public Snowflake generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    public void decodeWithConstants(Blackhole blackhole) {
+        blackhole.consume(snowflake.getTimestamp(0));
+        blackhole.consume(snowflake.getDataCenterId());
+        blackhole.consume(snowflake.getWorkerId());
+        blackhole.consume(snowflake.getSequence());
+    }
+
+    @Benchmark
+    public void decodeWithLayout(Blackhole blackhole) {
+        blackhole.consume(snowflake.getTimestamp(layout, 0));
+        blackhole.consume(snowflake.getDataCenterId(layout));
+        blackhole.consume(snowflake.getWorkerId(layout));
+        blackhole.consume(snowflake.getSequence(layout));
+    }
+}
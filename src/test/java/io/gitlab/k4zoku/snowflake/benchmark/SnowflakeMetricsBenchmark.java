@@ -0,0 +1,48 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the overhead of metrics on generation, which should be close to nothing while they are disabled.
+ * <p>
+ * The clock advances on every read, so generation never waits for an exhausted sequence.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeMetricsBenchmark {
+
+    @Param({"disabled", "enabled"})
+    private String metrics;
+
+    private SnowflakeGenerator generator;
+
+    @Setup
+    public void setup() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        this.generator = new SnowflakeGenerator(0, 1, 3, clock::incrementAndGet);
+        if ("enabled".equals(metrics)) {
+            generator.enableMetrics();
+        }
+    }
+
+    @Benchmark
+    public Snowflake generate() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Snowflake generateContended() {
+        return generator.generate();
+    }
+}
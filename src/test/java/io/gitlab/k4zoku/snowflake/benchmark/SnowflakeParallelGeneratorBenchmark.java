@@ -1,10 +1,16 @@
 package io.gitlab.k4zoku.snowflake.benchmark;
 
+import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeForkJoinWorkerThreadFactory;
 import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeRingBuffer;
 import org.openjdk.jmh.annotations.*;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.Throughput)
@@ -14,12 +20,33 @@ import java.util.concurrent.TimeUnit;
 @Measurement(iterations = 1)
 public class SnowflakeParallelGeneratorBenchmark {
 
+    @Param({"task", "ring", "budget"})
+    public String mode;
+
+    @Param({"1"})
+    public int workers;
+
     private SnowflakeParallelGenerator generator;
+    private SnowflakeForkJoinWorkerThreadFactory forkJoinFactory;
+    private ForkJoinPool forkJoinPool;
 
     @Setup
     public void setup() {
         SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(2).build();
-        this.generator = new SnowflakeParallelGenerator(factory, 1);
+        SnowflakeRingBuffer ringBuffer = "ring".equals(mode) ? new SnowflakeRingBuffer() : null;
+        this.generator = new SnowflakeParallelGenerator(factory, workers, 0, ringBuffer);
+        if ("budget".equals(mode)) {
+            generator.setDispatchMode(SnowflakeParallelGenerator.DispatchMode.SEQUENCE_BUDGET);
+        }
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        this.forkJoinFactory = new SnowflakeForkJoinWorkerThreadFactory(1, parallelism, factory);
+        this.forkJoinPool = forkJoinFactory.newPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        generator.close();
+        forkJoinPool.shutdown();
     }
 
     @Benchmark
@@ -28,8 +55,27 @@ public class SnowflakeParallelGeneratorBenchmark {
         generator.generate();
     }
 
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Snowflake snowflakeGenerateAsyncBenchmarkMultiThread() {
+        return generator.generateAsync().join();
+    }
+
     @Benchmark
     public void snowflakeGenerateBenchmarkSingleThread() {
         generator.generate();
     }
+
+    @Benchmark
+    public long snowflakeParallelStreamBenchmark() {
+        return generator.stream(4096).mapToLong(Snowflake::longValue).sum();
+    }
+
+    @Benchmark
+    public long snowflakeForkJoinParallelStreamBenchmark() throws ExecutionException, InterruptedException {
+        return forkJoinPool.submit(() -> IntStream.range(0, 4096).parallel()
+            .mapToLong(i -> forkJoinFactory.generate().longValue())
+            .sum()
+        ).get();
+    }
 }
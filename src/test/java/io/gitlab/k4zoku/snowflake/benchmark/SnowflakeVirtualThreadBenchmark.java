@@ -0,0 +1,86 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.LockFreeSnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import io.gitlab.k4zoku.snowflake.common.util.Threads;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorkerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long {@code threads} virtual threads take to generate {@code snowflakes} snowflakes each, so the
+ * sequence is exhausted many times over and the generators wait for the next millisecond while contended.
+ * Requires Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+public class SnowflakeVirtualThreadBenchmark {
+
+    @Param({"synchronized", "lock-free", "parallel-virtual"})
+    private String mode;
+
+    @Param({"1000", "10000"})
+    private int threads;
+
+    @Param({"100"})
+    private int snowflakes;
+
+    private Generator<Snowflake> generator;
+
+    @Setup
+    public void setup() {
+        if (!Threads.isVirtualThreadSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later.");
+        }
+        switch (mode) {
+            case "lock-free":
+                this.generator = new LockFreeSnowflakeGenerator(3, 0);
+                break;
+            case "parallel-virtual":
+                SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(3).build();
+                this.generator = new SnowflakeParallelGenerator(new SnowflakeWorkerFactory(0, 4, factory, true), null);
+                break;
+            default:
+                this.generator = new SnowflakeGenerator(3, 0);
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (generator instanceof SnowflakeParallelGenerator) {
+            ((SnowflakeParallelGenerator) generator).close();
+        }
+    }
+
+    @Benchmark
+    public long generate() throws InterruptedException {
+        AtomicLong sum = new AtomicLong();
+        Runnable task = () -> {
+            long local = 0;
+            for (int i = 0; i < snowflakes; i++) {
+                local += generator.generate().longValue();
+            }
+            sum.addAndGet(local);
+        };
+        Thread[] started = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            started[i] = Threads.newVirtualThread("benchmark-" + i, task);
+            started[i].start();
+        }
+        for (Thread thread : started) {
+            thread.join();
+        }
+        return sum.get();
+    }
+}
@@ -0,0 +1,90 @@
+package io.gitlab.k4zoku.snowflake.benchmark;
+
+import io.gitlab.k4zoku.snowflake.LockFreeSnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.time.WaitStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link WaitStrategy}s while every millisecond exhausts the sequence.
+ * <p>
+ * Generating is far faster than 4096 snowflakes per millisecond, so callers spend most of the time waiting for the
+ * next millisecond. {@code exhaustedGenerate} reports the latency distribution of a single generation,
+ * {@code cpu} reports the processor time burned by every benchmark thread per iteration.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, warmups = 1)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Threads(4)
+public class SnowflakeWaitStrategyBenchmark {
+
+    @Param({"timestampProvider", "busySpin", "spinWait", "yielding", "parking", "hybrid"})
+    private String strategy;
+
+    @Param({"synchronized", "lock-free"})
+    private String mode;
+
+    private SnowflakeGenerator generator;
+
+    @Setup
+    public void setup() {
+        this.generator = "lock-free".equals(mode)
+            ? new LockFreeSnowflakeGenerator(3, 0)
+            : new SnowflakeGenerator(3, 0);
+        generator.setWaitStrategy(waitStrategy(strategy));
+    }
+
+    private static WaitStrategy waitStrategy(String name) {
+        switch (name) {
+            case "busySpin":
+                return WaitStrategy.busySpin();
+            case "spinWait":
+                return WaitStrategy.spinWait();
+            case "yielding":
+                return WaitStrategy.yielding();
+            case "parking":
+                return WaitStrategy.parking();
+            case "hybrid":
+                return WaitStrategy.hybrid();
+            default:
+                return WaitStrategy.timestampProvider();
+        }
+    }
+
+    @Benchmark
+    public Snowflake exhaustedGenerate(CpuTime cpu) {
+        return generator.generate();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuTime {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+        private long start;
+
+        /**
+         * Processor time burned by the benchmark thread, in microseconds.
+         */
+        public long cpu;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            start = THREADS.getCurrentThreadCpuTime();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            cpu = TimeUnit.NANOSECONDS.toMicros(THREADS.getCurrentThreadCpuTime() - start);
+        }
+    }
+}
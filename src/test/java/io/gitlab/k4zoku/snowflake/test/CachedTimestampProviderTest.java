@@ -0,0 +1,47 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.time.CachedTimestampProvider;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedTimestampProviderTest {
+
+    @Test
+    void testLifecycle() throws InterruptedException {
+        CachedTimestampProvider timestampProvider = new CachedTimestampProvider();
+        assertFalse(timestampProvider.isRunning());
+        assertTrue(Math.abs(System.currentTimeMillis() - timestampProvider.getTimestamp()) <= 1);
+
+        timestampProvider.start();
+        assertTrue(timestampProvider.isRunning());
+        long timestamp = timestampProvider.getTimestamp();
+        assertTrue(timestampProvider.waitUntilNextTimestamp(timestamp) > timestamp);
+        Thread.sleep(20);
+        assertTrue(timestampProvider.getTimestamp() >= timestamp + 10);
+
+        timestampProvider.stop();
+        assertFalse(timestampProvider.isRunning());
+        Thread.sleep(20);
+        assertTrue(Math.abs(System.currentTimeMillis() - timestampProvider.getTimestamp()) <= 1);
+    }
+
+    @Test
+    void testGenerate() {
+        try (CachedTimestampProvider timestampProvider = new CachedTimestampProvider().start()) {
+            SnowflakeGenerator generator = SnowflakeGeneratorFactory.builder()
+                .timestampProvider(timestampProvider)
+                .build()
+                .create(1);
+            long last = 0L;
+            for (int i = 0; i < 3 * (SnowflakeGenerator.MAX_SEQUENCE + 1); i++) {
+                Snowflake snowflake = generator.generate();
+                assertTrue(last < snowflake.longValue());
+                last = snowflake.longValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.LockFreeSnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClockRegressionPolicyTest {
+
+    @Test
+    void testFail() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        generator.generate();
+        clock.set(998L);
+        assertThrows(IllegalStateException.class, generator::generate);
+    }
+
+    @Test
+    void testAwait() {
+        long now = System.currentTimeMillis();
+        AtomicLong offset = new AtomicLong(0L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, () -> System.currentTimeMillis() - offset.get());
+        generator.setClockRegressionPolicy(ClockRegressionPolicy.await(100, TimeUnit.MILLISECONDS));
+        Snowflake first = generator.generate();
+        offset.set(20L);
+        Snowflake second = generator.generate();
+        assertTrue(first.longValue() < second.longValue());
+        assertTrue(System.currentTimeMillis() - now >= 20L);
+
+        offset.addAndGet(500L);
+        assertThrows(IllegalStateException.class, generator::generate);
+    }
+
+    @Test
+    void testLogicalClock() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new LockFreeSnowflakeGenerator(0, 0, 0, clock::get);
+        generator.setClockRegressionPolicy(ClockRegressionPolicy.logicalClock());
+        generator.generate();
+        clock.set(990L);
+        long last = 0L;
+        for (int i = 0; i < SnowflakeGenerator.MAX_SEQUENCE * 2; i++) {
+            Snowflake snowflake = generator.generate();
+            assertTrue(last < snowflake.longValue());
+            last = snowflake.longValue();
+        }
+        assertEquals(1001L, Snowflake.of(last).getTimestamp(0));
+        clock.set(1005L);
+        assertEquals(1005L, generator.generate().getTimestamp(0));
+    }
+}
@@ -0,0 +1,78 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.LockFreeSnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockFreeSnowflakeGeneratorTest {
+
+    @Test
+    void testUniqueAndMonotonicPerThread() throws InterruptedException {
+        SnowflakeGenerator generator = new LockFreeSnowflakeGenerator(1, 2);
+        int threads = 8;
+        int perThread = 20000;
+        long[] values = new long[threads * perThread];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    values[offset + i] = generator.generate().longValue();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i++) {
+                assertTrue(values[t * perThread + i - 1] < values[t * perThread + i]);
+            }
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            assertNotEquals(sorted[i - 1], sorted[i]);
+        }
+    }
+
+    @Test
+    void testSequenceExhaustion() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new LockFreeSnowflakeGenerator(0, 0, 0, clock::get);
+        for (int i = 0; i <= SnowflakeGenerator.MAX_SEQUENCE; i++) {
+            Snowflake snowflake = generator.generate();
+            assertEquals(1000L, snowflake.getTimestamp(0));
+            assertEquals(i, snowflake.getSequence());
+        }
+        Thread ticker = new Thread(() -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            clock.incrementAndGet();
+        });
+        ticker.start();
+        Snowflake snowflake = generator.generate();
+        assertEquals(1001L, snowflake.getTimestamp(0));
+        assertEquals(0, snowflake.getSequence());
+    }
+
+    @Test
+    void testClockMovedBackwards() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new LockFreeSnowflakeGenerator(0, 0, 0, clock::get);
+        generator.generate();
+        clock.set(999L);
+        assertThrows(IllegalStateException.class, generator::generate);
+    }
+}
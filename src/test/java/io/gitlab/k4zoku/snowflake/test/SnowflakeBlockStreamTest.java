@@ -0,0 +1,129 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.codec.SnowflakeBlockReader;
+import io.gitlab.k4zoku.snowflake.codec.SnowflakeBlockWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeBlockStreamTest {
+
+    @Test
+    void testRoundTrip() throws IOException {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 3, 7, () -> clock.getAndAdd(new Random().nextInt(2)));
+        long[] values = new long[100_000];
+        generator.generate(values, 0, values.length);
+        values[500] = 0L; // not monotonic
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SnowflakeBlockWriter writer = new SnowflakeBlockWriter(Channels.newChannel(out), SnowflakeLayout.DEFAULT, 0, 1000)) {
+            writer.write(values[0]);
+            writer.write(values, 1, values.length - 2);
+            writer.write(values[values.length - 1]);
+        }
+        byte[] bytes = out.toByteArray();
+        assertTrue(bytes.length < values.length * 3, "expected less than 3 bytes per value but got " + bytes.length);
+
+        long[] decoded = new long[values.length];
+        int n = 0;
+        int blocks = 0;
+        try (SnowflakeBlockReader reader = new SnowflakeBlockReader(Channels.newChannel(new ByteArrayInputStream(bytes)))) {
+            while (reader.nextBlock()) {
+                assertTrue(reader.getMinTimestamp() <= reader.getMaxTimestamp());
+                n += reader.readBlock(decoded, n);
+                blocks++;
+            }
+        }
+        assertEquals(100, blocks);
+        assertArrayEquals(values, decoded);
+    }
+
+    @Test
+    void testSkipByTimestamp(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("ids.bin");
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeBlockWriter writer = new SnowflakeBlockWriter(
+            FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE), SnowflakeLayout.DEFAULT, 0, 10)) {
+            for (int i = 0; i < 100; i++) {
+                clock.set(1000L + i);
+                writer.write(generator.generate());
+                if (i == 54) {
+                    writer.flush();
+                }
+            }
+        }
+
+        long[] values = new long[10];
+        int read = 0;
+        try (SnowflakeBlockReader reader = SnowflakeBlockReader.open(file)) {
+            while (reader.nextBlock()) {
+                if (reader.getMaxTimestamp() < 1050L || reader.getMinTimestamp() > 1060L) {
+                    continue;
+                }
+                int count = reader.readBlock(values, 0);
+                for (int i = 0; i < count; i++) {
+                    long timestamp = SnowflakeLayout.DEFAULT.getTimestamp(values[i], 0);
+                    assertTrue(timestamp >= 1050L && timestamp < 1065L);
+                    read++;
+                }
+            }
+        }
+        assertEquals(15, read);
+    }
+
+    @Test
+    void testMappedWindows(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("ids.bin");
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 3, 7, () -> clock.getAndAdd(new Random().nextInt(2)));
+        long[] values = new long[10_000];
+        generator.generate(values, 0, values.length);
+        try (SnowflakeBlockWriter writer = new SnowflakeBlockWriter(
+            FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE), SnowflakeLayout.DEFAULT, 0, 100)) {
+            writer.write(values, 0, values.length);
+        }
+
+        // windows smaller than a block, about a block, and spanning several blocks
+        for (int windowSize : new int[]{1, 150, 1000, SnowflakeBlockReader.DEFAULT_WINDOW_SIZE}) {
+            long[] decoded = new long[values.length];
+            int n = 0;
+            try (SnowflakeBlockReader reader = SnowflakeBlockReader.open(file, windowSize)) {
+                for (int block = 0; reader.nextBlock(); block++) {
+                    if (block % 3 == 2) {
+                        int count = reader.getCount();
+                        reader.skipBlock();
+                        System.arraycopy(values, n, decoded, n, count);
+                        n += count;
+                    } else {
+                        n += reader.readBlock(decoded, n);
+                    }
+                }
+            }
+            assertArrayEquals(values, decoded, "window size " + windowSize);
+        }
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeBlockReader.open(file, 0));
+    }
+
+    @Test
+    void testInvalidStream() {
+        assertThrows(StreamCorruptedException.class, () -> new SnowflakeBlockReader(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5})));
+        assertThrows(StreamCorruptedException.class, () -> new SnowflakeBlockReader(ByteBuffer.allocate(0)));
+    }
+}
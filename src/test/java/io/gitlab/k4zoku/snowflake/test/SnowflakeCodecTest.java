@@ -0,0 +1,117 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.codec.SnowflakeCodec;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeCodecTest {
+
+    static Stream<SnowflakeCodec> codecs() {
+        return Stream.of(SnowflakeCodec.HEX, SnowflakeCodec.CROCKFORD_BASE32, SnowflakeCodec.BASE62);
+    }
+
+    @Test
+    void testWidths() {
+        assertEquals(16, SnowflakeCodec.HEX.getWidth());
+        assertEquals(13, SnowflakeCodec.CROCKFORD_BASE32.getWidth());
+        assertEquals(11, SnowflakeCodec.BASE62.getWidth());
+        assertEquals("00000000000000ff", SnowflakeCodec.HEX.encode(255L));
+        assertEquals(Long.toHexString(-1L), SnowflakeCodec.HEX.encode(-1L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("codecs")
+    void testRoundTrip(SnowflakeCodec codec) {
+        Random random = new Random(7);
+        char[] chars = new char[codec.getWidth() + 2];
+        byte[] bytes = new byte[codec.getWidth() + 2];
+        ByteBuffer buffer = ByteBuffer.allocateDirect(codec.getWidth());
+        StringBuilder builder = new StringBuilder("id=");
+        long[] values = {0L, 1L, Long.MAX_VALUE, Long.MIN_VALUE, -1L};
+        for (int i = 0; i < 10_000; i++) {
+            long value = i < values.length ? values[i] : random.nextLong();
+            String text = codec.encode(value);
+            assertEquals(codec.getWidth(), text.length());
+            assertEquals(value, codec.decode(text));
+
+            assertEquals(codec.getWidth() + 1, codec.encode(value, chars, 1));
+            assertEquals(text, new String(chars, 1, codec.getWidth()));
+            assertEquals(codec.getWidth() + 2, codec.encode(value, bytes, 2));
+            assertEquals(value, codec.decode(bytes, 2, codec.getWidth()));
+
+            buffer.clear();
+            codec.encode(value, buffer);
+            assertFalse(buffer.hasRemaining());
+            assertEquals(value, codec.decode(buffer, 0, codec.getWidth()));
+
+            builder.setLength(3);
+            codec.encode(value, builder);
+            assertEquals(value, codec.decode(builder, 3, builder.length()));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("codecs")
+    void testSortOrder(SnowflakeCodec codec) {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            long a = random.nextLong() >>> random.nextInt(64);
+            long b = random.nextLong() >>> random.nextInt(64);
+            byte[] x = codec.encode(a).getBytes(StandardCharsets.US_ASCII);
+            byte[] y = codec.encode(b).getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Integer.signum(Long.compareUnsigned(a, b)), Integer.signum(codec.encode(a).compareTo(codec.encode(b))));
+            assertEquals(Integer.signum(Long.compareUnsigned(a, b)), Integer.signum(compare(x, y)));
+        }
+    }
+
+    @Test
+    void testLenientDecoding() {
+        assertEquals(255L, SnowflakeCodec.HEX.decode("FF"));
+        SnowflakeCodec base32 = SnowflakeCodec.CROCKFORD_BASE32;
+        assertEquals(base32.decode("1A0"), base32.decode("iaO"));
+        assertEquals(base32.decode("11"), base32.decode("Ll"));
+        assertNotEquals(SnowflakeCodec.BASE62.decode("a"), SnowflakeCodec.BASE62.decode("A"));
+    }
+
+    @Test
+    void testInvalid() {
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.HEX.decode(""));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.HEX.decode("0123456789abcdef0"));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.HEX.decode("xyz"));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.CROCKFORD_BASE32.decode("U"));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.CROCKFORD_BASE32.decode("G000000000000"));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.BASE62.decode("zzzzzzzzzzz"));
+        assertThrows(NumberFormatException.class, () -> SnowflakeCodec.BASE62.decode("\u00e9"));
+        assertThrows(IndexOutOfBoundsException.class, () -> SnowflakeCodec.BASE62.encode(1L, new char[10], 0));
+    }
+
+    @Test
+    void testSnowflake() {
+        Snowflake snowflake = Snowflake.of(634804641493811201L);
+        for (SnowflakeCodec codec : codecs().toArray(SnowflakeCodec[]::new)) {
+            assertEquals(snowflake, Snowflake.of(snowflake.toString(codec), codec));
+        }
+        assertEquals(String.format("%#s", snowflake), snowflake.toFormattedString());
+        assertTrue(snowflake.toFormattedString().matches("\\[ *\\S+] @\\d{2}\\^\\d{2} #\\d{4}"));
+        assertEquals("   634804641493811201", String.format("%21s", snowflake));
+    }
+
+    private static int compare(byte[] x, byte[] y) {
+        for (int i = 0; i < Math.min(x.length, y.length); i++) {
+            int c = Integer.compare(x[i] & 0xFF, y[i] & 0xFF);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.compare(x.length, y.length);
+    }
+}
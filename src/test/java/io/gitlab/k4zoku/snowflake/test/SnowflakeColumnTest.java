@@ -0,0 +1,101 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.collection.SnowflakeColumn;
+import io.gitlab.k4zoku.snowflake.collection.SnowflakeColumnBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeColumnTest {
+
+    private static long[] generate(int count, long epoch) {
+        Random random = new Random(42);
+        AtomicLong clock = new AtomicLong(epoch + 1_000_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(epoch, 3, 7, () -> clock.addAndGet(random.nextInt(3) == 0 ? 1 : 0));
+        long[] values = new long[count];
+        generator.generate(values, 0, count);
+        return values;
+    }
+
+    @Test
+    void testQueries() {
+        long[] values = generate(200_000, 0L);
+        SnowflakeColumn column = SnowflakeColumn.builder().epoch(0L).addAll(values, 0, values.length).build();
+        assertEquals(values.length, column.size());
+        assertTrue(column.getSizeInBytes() < values.length * 3L, "expected less than 3 bytes per value but got " + column);
+
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i], column.get(i));
+        }
+        assertArrayEquals(values, column.stream().toArray());
+        assertArrayEquals(Arrays.copyOfRange(values, 1000, 5000), column.stream(1000, 5000).toArray());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long value = values[0] - 10 + (long) (random.nextDouble() * (values[values.length - 1] - values[0] + 20));
+            int expected = Arrays.binarySearch(values, value);
+            assertEquals(expected >= 0 ? expected : -expected - 1, column.rank(value));
+            assertEquals(expected >= 0, column.contains(value));
+            assertEquals(Math.max(expected, -1), column.indexOf(value));
+        }
+        assertEquals(0, column.rank(Long.MIN_VALUE));
+        assertEquals(values.length, column.rank(Long.MAX_VALUE));
+        assertEquals(values.length - 1, column.indexOf(values[values.length - 1]));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(values.length));
+    }
+
+    @Test
+    void testBetween() {
+        long epoch = 1_600_000_000_000L;
+        long[] values = generate(50_000, epoch);
+        SnowflakeColumn column = SnowflakeColumn.builder().epoch(epoch).addAll(values, 0, values.length).build();
+        long first = SnowflakeLayout.DEFAULT.getTimestamp(values[0], epoch);
+        long last = SnowflakeLayout.DEFAULT.getTimestamp(values[values.length - 1], epoch);
+        for (long from = first - 2; from <= last + 2; from += 997) {
+            long to = from + 1500;
+            long f = from;
+            long[] expected = Arrays.stream(values).filter(value -> {
+                long timestamp = SnowflakeLayout.DEFAULT.getTimestamp(value, epoch);
+                return timestamp >= f && timestamp < to;
+            }).toArray();
+            assertArrayEquals(expected, column.between(Instant.ofEpochMilli(from), Instant.ofEpochMilli(to)).toArray());
+        }
+        assertEquals(values.length, column.between(0L, Long.MAX_VALUE).count());
+        assertEquals(0, column.between(last + 1, first).count());
+    }
+
+    @Test
+    void testEdgeCases() {
+        SnowflakeColumn empty = SnowflakeColumn.builder().build();
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.rank(100L));
+        assertFalse(empty.contains(0L));
+        assertEquals(0, empty.stream().count());
+
+        SnowflakeColumn dense = SnowflakeColumn.builder().add(0L).add(1L).add(2L).add(5L).build();
+        assertArrayEquals(new long[]{0L, 1L, 2L, 5L}, dense.stream().toArray());
+        assertTrue(dense.contains(0L));
+        assertFalse(dense.contains(3L));
+        assertEquals(3, dense.rank(4L));
+
+        SnowflakeColumn single = SnowflakeColumn.builder().add(Long.MAX_VALUE).build();
+        assertEquals(Long.MAX_VALUE, single.get(0));
+        assertTrue(single.contains(Long.MAX_VALUE));
+
+        SnowflakeColumn wide = SnowflakeColumn.builder().add(0L).add(1L).add(Long.MAX_VALUE).build();
+        assertArrayEquals(new long[]{0L, 1L, Long.MAX_VALUE}, wide.stream().toArray());
+
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeColumn.builder().add(2L).add(2L).build());
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeColumn.builder().add(-1L).build());
+        SnowflakeColumnBuilder builder = SnowflakeColumn.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.addAll(new long[]{1L, 3L, 2L}, 0, 3));
+        assertArrayEquals(new long[]{1L, 3L, 4L}, builder.add(4L).build().stream().toArray());
+    }
+}
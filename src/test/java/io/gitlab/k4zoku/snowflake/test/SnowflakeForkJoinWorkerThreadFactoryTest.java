@@ -0,0 +1,141 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeForkJoinWorkerThread;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeForkJoinWorkerThreadFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeForkJoinWorkerThreadFactoryTest {
+
+    private final SnowflakeGeneratorFactory generatorFactory = SnowflakeGeneratorFactory.builder().dataCenterId(7).build();
+
+    @Test
+    void parallelStreamTest() throws ExecutionException, InterruptedException {
+        SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(4, 4, generatorFactory);
+        ForkJoinPool pool = factory.newPool(4);
+        try {
+            List<Snowflake> snowflakes = pool.submit(() -> IntStream.range(0, 100000).parallel()
+                .mapToObj(i -> factory.generate())
+                .collect(Collectors.toList())
+            ).get();
+            assertEquals(100000, new HashSet<>(snowflakes).size());
+            for (Snowflake snowflake : snowflakes) {
+                long workerId = snowflake.getWorkerId();
+                assertTrue(workerId >= 4 && workerId < 8, "worker ID " + workerId);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void recursiveTaskTest() {
+        SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(0, 2, generatorFactory);
+        ForkJoinPool pool = factory.newPool(2);
+        try {
+            Set<Long> values = pool.invoke(new GenerateTask(factory.getFallbackGenerator(), 10000));
+            assertEquals(10000, values.size());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void fallbackTest() {
+        SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(0, 3, generatorFactory);
+        assertNull(SnowflakeForkJoinWorkerThread.current());
+        assertSame(factory.getFallbackGenerator(), factory.currentGenerator());
+        assertEquals(3, factory.generate().getWorkerId());
+        SnowflakeGenerator fallback = new SnowflakeGenerator(1, 1);
+        assertSame(fallback, SnowflakeForkJoinWorkerThread.currentGenerator(fallback));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeForkJoinWorkerThreadFactory(30, 2, generatorFactory));
+        assertThrows(IllegalArgumentException.class, () -> factory.newPool(4));
+    }
+
+    @Test
+    void workerIdRecyclingTest() throws InterruptedException, ExecutionException {
+        SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(0, 2, generatorFactory);
+        Set<Long> values = new HashSet<>();
+        for (int round = 0; round < 3; round++) {
+            ForkJoinPool pool = factory.newPool(2);
+            values.addAll(pool.submit(() -> IntStream.range(0, 10000).parallel()
+                .mapToObj(i -> factory.generate().longValue())
+                .collect(Collectors.toList())
+            ).get());
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(0, factory.getActiveWorkers());
+        }
+        assertEquals(30000, values.size());
+        assertTrue(factory.getGenerators().size() <= 2);
+
+        SnowflakeForkJoinWorkerThreadFactory exhausted = new SnowflakeForkJoinWorkerThreadFactory(0, 2, generatorFactory);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        List<SnowflakeForkJoinWorkerThread> threads = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            threads.add((SnowflakeForkJoinWorkerThread) exhausted.newThread(pool));
+        }
+        assertNull(exhausted.newThread(pool));
+        assertNotEquals(threads.get(0).getGenerator().getWorkerId(), threads.get(1).getGenerator().getWorkerId());
+        pool.shutdown();
+    }
+
+    @Test
+    void defaultWorkersTest() {
+        SnowflakeForkJoinWorkerThreadFactory factory = new SnowflakeForkJoinWorkerThreadFactory(generatorFactory);
+        assertEquals(Math.min(Runtime.getRuntime().availableProcessors(), 31), factory.getMaxWorkers());
+
+        // fewer worker IDs than processors, the last one is left to the fallback generator
+        SnowflakeGeneratorFactory narrow = SnowflakeGeneratorFactory.builder().layout(new SnowflakeLayout(51, 1, 1, 10)).build();
+        SnowflakeForkJoinWorkerThreadFactory capped = new SnowflakeForkJoinWorkerThreadFactory(narrow);
+        assertEquals(1, capped.getMaxWorkers());
+        assertEquals(1, capped.getFallbackGenerator().getWorkerId());
+    }
+
+    private static final class GenerateTask extends RecursiveTask<Set<Long>> {
+        private static final long serialVersionUID = 0L;
+
+        private final SnowflakeGenerator fallback;
+        private final int count;
+
+        GenerateTask(SnowflakeGenerator fallback, int count) {
+            this.fallback = fallback;
+            this.count = count;
+        }
+
+        @Override
+        protected Set<Long> compute() {
+            if (count <= 500) {
+                assertNotNull(SnowflakeForkJoinWorkerThread.current());
+                SnowflakeGenerator generator = SnowflakeForkJoinWorkerThread.currentGenerator(fallback);
+                assertNotSame(fallback, generator);
+                Set<Long> values = new HashSet<>();
+                for (int i = 0; i < count; i++) {
+                    values.add(generator.generate().longValue());
+                }
+                return values;
+            }
+            GenerateTask left = new GenerateTask(fallback, count / 2);
+            left.fork();
+            Set<Long> values = new GenerateTask(fallback, count - count / 2).compute();
+            values.addAll(left.join());
+            return values;
+        }
+    }
+}
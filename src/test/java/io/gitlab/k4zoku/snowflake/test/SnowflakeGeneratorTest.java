@@ -2,11 +2,15 @@ package io.gitlab.k4zoku.snowflake.test;
 
 import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
 import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
 import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,4 +42,77 @@ class SnowflakeGeneratorTest {
         Snowflake snowflake2 = generator.generate();
         assertTrue(snowflake1.compareTo(snowflake2) < 0);
     }
+
+    @Test
+    void testBulkGenerate() {
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 31);
+        long[] values = new long[10010];
+        generator.generate(values, 5, 10000);
+        assertEquals(0, values[4]);
+        assertEquals(0, values[10005]);
+        for (int i = 5; i < 10005; i++) {
+            Snowflake snowflake = Snowflake.of(values[i]);
+            assertEquals(generator.getDataCenterId(), snowflake.getDataCenterId());
+            assertEquals(generator.getWorkerId(), snowflake.getWorkerId());
+            if (i > 5) {
+                assertTrue(values[i - 1] < values[i]);
+            }
+        }
+        assertTrue(values[10004] < generator.generate().longValue());
+        assertThrows(IndexOutOfBoundsException.class, () -> generator.generate(values, 10000, 11));
+    }
+
+    @Test
+    void testRemainingSequence() {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get, new SnowflakeLayout(51, 5, 5, 2));
+        assertEquals(4, generator.getRemainingSequence());
+        generator.generate();
+        assertEquals(3, generator.getRemainingSequence());
+        generator.generate(new long[3], 0, 3);
+        assertEquals(0, generator.getRemainingSequence());
+        clock.incrementAndGet();
+        assertEquals(4, generator.getRemainingSequence());
+        generator.generate();
+        clock.addAndGet(-2);
+        assertEquals(0, generator.getRemainingSequence()); // clock behind the last timestamp
+    }
+
+    @Test
+    void testBulkGenerateWaitsOutsideMonitor() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get, new SnowflakeLayout(51, 5, 5, 2));
+        long[] values = new long[6];
+        Thread bulk = new Thread(() -> generator.generate(values, 0, values.length));
+        bulk.start();
+        while (generator.getRemainingSequence() != 0) {
+            Thread.yield();
+        }
+        // the bulk call waits for the next millisecond without holding the monitor
+        Thread probe = new Thread(generator::getWaitStrategy);
+        probe.start();
+        probe.join(5000);
+        assertFalse(probe.isAlive());
+        clock.incrementAndGet();
+        bulk.join(5000);
+        assertFalse(bulk.isAlive());
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(values[i - 1] < values[i]);
+        }
+    }
+
+    @Test
+    void testBulkGenerateBuffer() {
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 31);
+        LongBuffer buffer = ByteBuffer.allocateDirect(5000 * Long.BYTES).asLongBuffer();
+        generator.generate(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        long last = buffer.get();
+        while (buffer.hasRemaining()) {
+            long value = buffer.get();
+            assertTrue(last < value);
+            last = value;
+        }
+    }
 }
@@ -0,0 +1,86 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeKeySpreader;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.common.Generator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeKeySpreaderTest {
+
+    @Test
+    void testRoundTrip() {
+        Random random = new Random(42);
+        SnowflakeKeySpreader[] spreaders = {
+            SnowflakeKeySpreader.NONE,
+            SnowflakeKeySpreader.sequence(SnowflakeLayout.DEFAULT, 4),
+            SnowflakeKeySpreader.workerId(SnowflakeLayout.DEFAULT, 5),
+            new SnowflakeKeySpreader(33, 30)
+        };
+        for (SnowflakeKeySpreader spreader : spreaders) {
+            for (int i = 0; i < 10_000; i++) {
+                long value = random.nextLong() & Long.MAX_VALUE;
+                long key = spreader.toKey(value);
+                assertTrue(key >= 0);
+                assertEquals(value, spreader.toValue(key));
+            }
+            assertEquals(Long.MAX_VALUE, spreader.toValue(spreader.toKey(Long.MAX_VALUE)));
+        }
+        assertEquals(12345L, SnowflakeKeySpreader.NONE.toKey(12345L));
+    }
+
+    @Test
+    void testSequenceSpread() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 1, 2, clock::get);
+        SnowflakeKeySpreader spreader = SnowflakeKeySpreader.sequence(SnowflakeLayout.DEFAULT, 3);
+        assertEquals(8, spreader.getRanges());
+        Set<Integer> ranges = new HashSet<>();
+        long[] last = new long[spreader.getRanges()];
+        for (int i = 0; i < 64; i++) {
+            if (i == 32) {
+                clock.set(1001L);
+            }
+            Snowflake snowflake = generator.generate();
+            long key = snowflake.toKey(spreader);
+            int range = spreader.getRange(key);
+            ranges.add(range);
+            // keys grow within each range
+            assertTrue(key > last[range]);
+            last[range] = key;
+
+            Snowflake decoded = Snowflake.ofKey(key, spreader);
+            assertEquals(snowflake, decoded);
+            assertEquals(snowflake.getTimestamp(0), decoded.getTimestamp(0));
+        }
+        assertEquals(8, ranges.size());
+    }
+
+    @Test
+    void testWorkerIdSpread() {
+        SnowflakeKeySpreader spreader = SnowflakeKeySpreader.workerId(SnowflakeLayout.DEFAULT, 2);
+        AtomicLong clock = new AtomicLong(1000L);
+        for (int workerId = 0; workerId < 4; workerId++) {
+            Generator<Long> keys = spreader.keys(new SnowflakeGenerator(0, 0, workerId, clock::get));
+            long key = keys.generate();
+            assertEquals(workerId, spreader.getRange(key));
+            assertEquals(workerId, Snowflake.ofKey(key, spreader).getWorkerId());
+            assertEquals(1000L, Snowflake.ofKey(key, spreader).getTimestamp(0));
+        }
+    }
+
+    @Test
+    void testInvalidField() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeKeySpreader(40, 30));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeKeySpreader.sequence(SnowflakeLayout.DEFAULT, 13));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeKeySpreader.workerId(SnowflakeLayout.DEFAULT, 6));
+    }
+}
@@ -0,0 +1,100 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeLayoutTest {
+
+    @Test
+    void testDefaultLayoutMatchesConstants() {
+        SnowflakeLayout layout = SnowflakeLayout.DEFAULT;
+        assertEquals(SnowflakeGenerator.TIMESTAMP_MASK, layout.getTimestampMask());
+        assertEquals(SnowflakeGenerator.DATA_CENTER_ID_MASK, layout.getDataCenterIdMask());
+        assertEquals(SnowflakeGenerator.WORKER_ID_MASK, layout.getWorkerIdMask());
+        assertEquals(SnowflakeGenerator.SEQUENCE_MASK, layout.getSequenceMask());
+        assertEquals(SnowflakeGenerator.MAX_WORKER_ID, layout.getMaxWorkerId());
+        long value = SnowflakeLayout.DEFAULT.compose(123456789L, 17, 29, 4000);
+        Snowflake snowflake = Snowflake.of(value);
+        assertEquals(snowflake.getTimestamp(0), layout.getTimestamp(value, 0));
+        assertEquals(snowflake.getDataCenterId(), layout.getDataCenterId(value));
+        assertEquals(snowflake.getWorkerId(), layout.getWorkerId(value));
+        assertEquals(snowflake.getSequence(), layout.getSequence(value));
+        assertEquals(4000, new SnowflakeLayout(41, 5, 5, 12).getSequence(value)); // equal to the default, decoded from fields
+    }
+
+    @Test
+    void testCustomLayout() {
+        SnowflakeLayout layout = new SnowflakeLayout(40, 1, 8, 14);
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = SnowflakeGeneratorFactory.builder()
+            .epoch(0)
+            .dataCenterId(1)
+            .layout(layout)
+            .timestampProvider(clock::get)
+            .build()
+            .create(200);
+        assertEquals(200, generator.getWorkerId());
+        long[] values = new long[layout.getMaxSequence() + 1];
+        generator.generate(values, 0, values.length);
+        Snowflake last = Snowflake.of(values[values.length - 1]);
+        assertEquals(1000L, last.getTimestamp(layout, 0));
+        assertEquals(1, last.getDataCenterId(layout));
+        assertEquals(200, last.getWorkerId(layout));
+        assertEquals(layout.getMaxSequence(), last.getSequence(layout));
+    }
+
+    @Test
+    void testTimestampUnit() {
+        SnowflakeLayout layout = SnowflakeLayout.DEFAULT.withTimestampUnit(10, TimeUnit.MILLISECONDS);
+        AtomicLong clock = new AtomicLong(1005L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get, layout);
+        Snowflake first = generator.generate();
+        assertEquals(1000L, first.getTimestamp(layout, 0));
+        clock.set(1009L);
+        assertEquals(1, generator.generate().getSequence(layout));
+        clock.set(1010L);
+        Snowflake next = generator.generate();
+        assertEquals(1010L, next.getTimestamp(layout, 0));
+        assertEquals(0, next.getSequence(layout));
+    }
+
+    @Test
+    void testLayoutLifetime() {
+        SnowflakeLayout layout = new SnowflakeLayout(31, 5, 7, 20); // about 25 days of milliseconds
+        long last = layout.getMaxTimestamp();
+        AtomicLong clock = new AtomicLong(last - 1);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 1, 2, clock::get, layout);
+        generator.generate();
+        clock.set(last);
+        Snowflake snowflake = generator.generate();
+        assertTrue(snowflake.longValue() > 0);
+        assertEquals(last, snowflake.getTimestamp(layout, 0));
+        assertEquals(2, snowflake.getWorkerId(layout));
+        clock.set(last + 1);
+        assertThrows(IllegalStateException.class, generator::generate);
+
+        // already past the lifetime when built
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeGenerator(0, 1, 2, clock::get, layout));
+        assertThrows(IllegalArgumentException.class,
+            () -> new SnowflakeGenerator(SnowflakeGenerator.DISCORD_EPOCH, 1, 2, null, layout));
+    }
+
+    @Test
+    void testInvalidLayout() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeLayout(41, 5, 5, 11));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeLayout(20, 1, 1, 41));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeLayout(41, 5, 5, 12, 0));
+        // the largest timestamp in milliseconds overflows
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeLayout(62, 0, 0, 1, 3));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeLayout.DEFAULT.withTimestampUnit(1L << 23, TimeUnit.MILLISECONDS));
+        assertDoesNotThrow(() -> SnowflakeLayout.DEFAULT.withTimestampUnit(1L << 22, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,74 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLeasingGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeLeasingGeneratorTest {
+
+    @Test
+    void testUniqueAcrossThreads() throws InterruptedException {
+        SnowflakeLeasingGenerator generator = new SnowflakeLeasingGenerator(new SnowflakeGenerator(1, 2));
+        int threads = 4;
+        int perThread = 20000;
+        long[] values = new long[threads * perThread];
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int offset = t * perThread;
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    values[offset + i] = generator.generate().longValue();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        for (int t = 0; t < threads; t++) {
+            for (int i = 1; i < perThread; i++) {
+                assertTrue(values[t * perThread + i - 1] < values[t * perThread + i]);
+            }
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < sorted.length; i++) {
+            assertNotEquals(sorted[i - 1], sorted[i]);
+        }
+    }
+
+    @Test
+    void testBlockDiscardedOnNextMillisecond() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeLeasingGenerator generator = new SnowflakeLeasingGenerator(new SnowflakeGenerator(0, 0, 0, clock::get), 8);
+        assertEquals(0, generator.generate().getSequence());
+        assertEquals(1, generator.generate().getSequence());
+        clock.incrementAndGet();
+        Snowflake snowflake = generator.generate();
+        assertEquals(1001L, snowflake.getTimestamp(0));
+        assertEquals(0, snowflake.getSequence());
+    }
+
+    @Test
+    void testRelease() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator snowflakeGenerator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        SnowflakeLeasingGenerator generator = new SnowflakeLeasingGenerator(snowflakeGenerator, 8);
+        generator.generate();
+        generator.generate();
+        assertTrue(generator.release());
+        assertEquals(2, snowflakeGenerator.generate().getSequence());
+
+        generator.generate();
+        snowflakeGenerator.generate();
+        assertFalse(generator.release());
+        assertEquals(12, snowflakeGenerator.generate().getSequence());
+    }
+}
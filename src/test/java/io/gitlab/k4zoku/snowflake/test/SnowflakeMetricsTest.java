@@ -0,0 +1,115 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLeasingGenerator;
+import io.gitlab.k4zoku.snowflake.metrics.SnowflakeGeneratorMetrics;
+import io.gitlab.k4zoku.snowflake.metrics.SnowflakeMetrics;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeMetricsTest {
+
+    @Test
+    void testDisabledByDefault() {
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0);
+        generator.generate();
+        assertNull(generator.getMetrics());
+    }
+
+    @Test
+    void testGeneratorMetrics() {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, () -> {
+            // exhausted sequences move the clock forward
+            return clock.get();
+        });
+        generator.setClockRegressionPolicy(ClockRegressionPolicy.logicalClock());
+        SnowflakeGeneratorMetrics metrics = generator.enableMetrics();
+        assertSame(metrics, generator.enableMetrics());
+
+        long[] values = new long[SnowflakeGenerator.MAX_SEQUENCE + 1];
+        generator.generate(values, 0, values.length);
+        new Thread(() -> {
+            sleep(5);
+            clock.set(1001L);
+        }).start();
+        generator.generate();
+        clock.set(995L);
+        generator.generate();
+        new SnowflakeLeasingGenerator(generator, 8).generate();
+
+        assertEquals(values.length + 3L, metrics.getGenerated());
+        assertEquals(1, metrics.getSequenceExhaustions());
+        assertEquals(2, metrics.getClockRegressions()); // the leasing generator saw the regression, too
+        assertTrue(metrics.getWaitTimeNanos() > 0);
+        assertEquals(1, Arrays.stream(metrics.getWaitTimeHistogram()).sum());
+
+        metrics.reset();
+        assertEquals(0, metrics.getGenerated());
+        generator.disableMetrics();
+        generator.generate();
+        assertNull(generator.getMetrics());
+        assertEquals(0, metrics.getGenerated());
+    }
+
+    @Test
+    void testRegisterGenerator() throws Exception {
+        SnowflakeGenerator generator = SnowflakeGeneratorFactory.builder()
+            .dataCenterId(7)
+            .metrics(true)
+            .build()
+            .create(21);
+        assertNotNull(generator.getMetrics());
+        ObjectName name = SnowflakeMetrics.register(generator);
+        try {
+            generator.generate();
+            generator.generate();
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(2L, server.getAttribute(name, "Generated"));
+            assertEquals(21L, server.getAttribute(name, "WorkerId"));
+            assertThrows(IllegalStateException.class, () -> SnowflakeMetrics.register(generator));
+        } finally {
+            SnowflakeMetrics.unregister(name);
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    @Test
+    void testRegisterParallelGenerator() throws Exception {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(8).build();
+        try (SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(factory, 4)) {
+            ObjectName name = SnowflakeMetrics.register(pool);
+            try {
+                for (int i = 0; i < 100; i++) {
+                    pool.generate();
+                }
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                assertEquals(100L, server.getAttribute(name, "Generated"));
+                assertEquals(100L, pool.getMetrics().getWorkerThroughput().values().stream().mapToLong(Long::longValue).sum());
+                assertTrue(server.getAttribute(name, "WorkerThroughput") instanceof TabularData);
+                assertEquals(0, server.getAttribute(name, "QueueDepth"));
+            } finally {
+                SnowflakeMetrics.unregister(name);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
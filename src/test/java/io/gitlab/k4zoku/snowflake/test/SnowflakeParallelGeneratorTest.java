@@ -2,19 +2,36 @@ package io.gitlab.k4zoku.snowflake.test;
 
 import io.gitlab.k4zoku.snowflake.Snowflake;
 import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.common.util.Threads;
 import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakePipeline;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorker;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeWorkerFactory;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.parallel.Execution;
 import org.junit.jupiter.api.parallel.ExecutionMode;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import static org.junit.jupiter.api.Assertions.assertNotEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 class SnowflakeParallelGeneratorTest {
 
@@ -40,4 +57,254 @@ class SnowflakeParallelGeneratorTest {
         executor.shutdown();
         assertTrue(executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS));
     }
+
+    @Test
+    void parallelStreamTest() {
+        int n = 1 << 20;
+        long distinct = pool.stream(n).mapToLong(Snowflake::longValue).distinct().count();
+        assertEquals(n, distinct);
+        assertEquals(32, pool.stream(32).count());
+        assertEquals(5, pool.stream().limit(5).count());
+    }
+
+    @Test
+    void spliteratorTest() {
+        Spliterator<Snowflake> spliterator = pool.spliterator(1000);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.DISTINCT));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertFalse(spliterator.hasCharacteristics(Spliterator.ORDERED));
+        assertFalse(pool.spliterator().hasCharacteristics(Spliterator.SIZED));
+
+        Spliterator<Snowflake> split = spliterator.trySplit();
+        assertNotNull(split);
+        assertEquals(1000, spliterator.estimateSize() + split.estimateSize());
+        Set<Integer> left = new HashSet<>();
+        Set<Integer> right = new HashSet<>();
+        spliterator.forEachRemaining(snowflake -> left.add((int) snowflake.getWorkerId()));
+        split.forEachRemaining(snowflake -> right.add((int) snowflake.getWorkerId()));
+        assertEquals(1, left.size());
+        assertEquals(1, right.size());
+        assertNotEquals(left, right);
+        assertEquals(0, spliterator.estimateSize());
+
+        Spliterator<Snowflake> single = pool.spliterator(1);
+        assertNull(single.trySplit());
+    }
+
+    @Test
+    void pipelineTest() throws InterruptedException {
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        AtomicInteger maxQueueDepth = new AtomicInteger();
+        SnowflakePipeline[] holder = new SnowflakePipeline[1];
+        SnowflakePipeline pipeline = pool.forEachAsync(snowflake -> {
+            values.add(snowflake.longValue());
+            SnowflakePipeline p = holder[0];
+            if (p != null) {
+                maxQueueDepth.accumulateAndGet(p.getQueueDepth(), Math::max);
+            }
+        }, 64, 4);
+        holder[0] = pipeline;
+        while (pipeline.getConsumed() < 10000) {
+            Thread.sleep(1);
+        }
+        assertTrue(pipeline.cancel(false));
+        assertTrue(pipeline.isCancelled());
+        Thread.sleep(50);
+        long consumed = pipeline.getConsumed();
+        Thread.sleep(50);
+        assertEquals(consumed, pipeline.getConsumed());
+        assertEquals(consumed, values.size());
+        assertEquals(consumed, pipeline.getBatches() * 64);
+        assertTrue(maxQueueDepth.get() <= 4);
+        assertTrue(pipeline.getThroughput() > 0);
+        assertFalse(pool.isClosed());
+        assertNotNull(pool.generate());
+    }
+
+    @Test
+    void pipelineBatchTest() throws InterruptedException {
+        AtomicLong sum = new AtomicLong();
+        SnowflakePipeline pipeline = pool.forEachBatchAsync((values, offset, length) -> {
+            assertEquals(128, length);
+            sum.addAndGet(length);
+        }, 128, 2);
+        while (pipeline.getBatches() < 10) {
+            Thread.sleep(1);
+        }
+        pool.close();
+        assertDoesNotThrow(() -> pipeline.get(1, TimeUnit.MINUTES));
+        assertFalse(pipeline.isCancelled());
+        assertEquals(sum.get(), pipeline.getConsumed());
+    }
+
+    @Test
+    void pipelineFailureTest() {
+        SnowflakePipeline pipeline = pool.forEachAsync(snowflake -> {
+            throw new UnsupportedOperationException();
+        });
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pipeline.get(1, TimeUnit.MINUTES));
+        assertInstanceOf(UnsupportedOperationException.class, e.getCause());
+        assertThrows(UnsupportedOperationException.class, () -> pool.forEach(snowflake -> {
+            throw new UnsupportedOperationException();
+        }));
+    }
+
+    @Test
+    void virtualThreadWorkersTest() {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(27).build();
+        String version = System.getProperty("java.specification.version");
+        int feature = version.startsWith("1.") ? 8 : Integer.parseInt(version);
+        if (feature >= 21) {
+            assertTrue(Threads.isVirtualThreadSupported());
+        } else if (feature < 19) {
+            assertFalse(Threads.isVirtualThreadSupported());
+        }
+        if (!Threads.isVirtualThreadSupported()) {
+            assertThrows(UnsupportedOperationException.class, () -> new SnowflakeWorkerFactory(0, 4, factory, true));
+            return;
+        }
+        SnowflakeParallelGenerator virtualPool = new SnowflakeParallelGenerator(new SnowflakeWorkerFactory(0, 4, factory, true), null);
+        Set<Long> values = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            values.add(virtualPool.generate().longValue());
+        }
+        assertEquals(10000, values.size());
+        virtualPool.close();
+    }
+
+    @Test
+    void elasticPoolTest() throws InterruptedException {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(28).build();
+        SnowflakeWorkerFactory workerFactory = new SnowflakeWorkerFactory(0, 8, factory);
+        SnowflakeParallelGenerator elastic = new SnowflakeParallelGenerator(workerFactory, 1, 50, TimeUnit.MILLISECONDS, null);
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        values.add(elastic.generate().longValue());
+        assertEquals(1, elastic.getWorkers());
+
+        CountDownLatch release = new CountDownLatch(1);
+        SnowflakePipeline pipeline = elastic.forEachBatchAsync((batch, offset, length) -> {
+            for (int i = offset; i < offset + length; i++) {
+                values.add(batch[i]);
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 16, 8);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (elastic.getWorkers() < 8 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(8, elastic.getWorkers());
+        assertEquals(8, workerFactory.getActiveWorkerIds());
+        pipeline.cancel(false);
+        release.countDown();
+
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (elastic.getWorkers() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, elastic.getWorkers());
+        Thread.sleep(10);
+        assertEquals(1, workerFactory.getActiveWorkerIds());
+        long consumed = pipeline.getConsumed();
+        for (int i = 0; i < 1000; i++) {
+            values.add(elastic.generate().longValue());
+        }
+        assertEquals(consumed + 1001, values.size());
+        elastic.close();
+    }
+
+    @Test
+    void workerIdRecyclingTest() throws InterruptedException {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(29).build();
+        SnowflakeWorkerFactory workerFactory = new SnowflakeWorkerFactory(4, 2, factory);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable task = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        SnowflakeWorker first = (SnowflakeWorker) workerFactory.newThread(task);
+        SnowflakeWorker second = (SnowflakeWorker) workerFactory.newThread(task);
+        assertEquals(4, first.getGenerator().getWorkerId());
+        assertEquals(5, second.getGenerator().getWorkerId());
+        assertEquals(2, workerFactory.getActiveWorkerIds());
+        first.start();
+        second.start();
+        long last = first.work().longValue();
+        release.countDown();
+        first.join();
+        second.join();
+        assertEquals(0, workerFactory.getActiveWorkerIds());
+
+        SnowflakeWorker recycled = (SnowflakeWorker) workerFactory.newThread(() -> { });
+        assertSame(first.getGenerator(), recycled.getGenerator());
+        assertTrue(recycled.work().longValue() > last);
+    }
+
+    @Test
+    void generateAsyncTest() {
+        List<CompletableFuture<Snowflake>> futures = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            futures.add(pool.generateAsync());
+        }
+        List<CompletableFuture<long[]>> bulk = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            bulk.add(pool.generateAsync(100));
+        }
+        Set<Long> values = new HashSet<>();
+        for (CompletableFuture<Snowflake> future : futures) {
+            values.add(future.join().longValue());
+        }
+        for (CompletableFuture<long[]> future : bulk) {
+            long[] run = future.join();
+            assertEquals(100, run.length);
+            for (int i = 0; i < run.length; i++) {
+                assertTrue(i == 0 || run[i] > run[i - 1]);
+                values.add(run[i]);
+            }
+        }
+        assertEquals(20000, values.size());
+        assertEquals(0, pool.generateAsync(0).join().length);
+        assertThrows(IllegalArgumentException.class, () -> pool.generateAsync(-1));
+
+        pool.close();
+        ExecutionException e = assertThrows(ExecutionException.class, () -> pool.generateAsync().get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void sequenceBudgetDispatchTest() throws InterruptedException, ExecutionException {
+        AtomicLong clock = new AtomicLong(1_000_000L);
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder()
+            .epoch(0)
+            .layout(new SnowflakeLayout(51, 5, 5, 2)) // four snowflakes per millisecond and worker ID
+            .timestampProvider(clock::get)
+            .build();
+        SnowflakeParallelGenerator budgeted = new SnowflakeParallelGenerator(factory, 4);
+        assertEquals(SnowflakeParallelGenerator.DispatchMode.QUEUE, budgeted.getDispatchMode());
+        budgeted.setDispatchMode(SnowflakeParallelGenerator.DispatchMode.SEQUENCE_BUDGET);
+        assertEquals(SnowflakeParallelGenerator.DispatchMode.SEQUENCE_BUDGET, budgeted.getDispatchMode());
+
+        Set<Long> values = new HashSet<>();
+        Set<Integer> workerIds = new HashSet<>();
+        for (int i = 0; i < 16; i++) { // the whole budget of the pool, without the clock moving
+            Snowflake snowflake = budgeted.generate();
+            values.add(snowflake.longValue());
+            workerIds.add(factory.getLayout().getWorkerId(snowflake.longValue()));
+        }
+        assertEquals(16, values.size());
+        assertEquals(4, workerIds.size());
+
+        CompletableFuture<Snowflake> next = budgeted.generateAsync();
+        Thread.sleep(50);
+        assertFalse(next.isDone()); // waits once the pool has exhausted its budget
+        clock.incrementAndGet();
+        assertTrue(values.add(next.get().longValue()));
+        budgeted.close();
+    }
 }
@@ -0,0 +1,73 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeRingBufferTest {
+
+    @Test
+    void testUnique() throws InterruptedException {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(3).build();
+        SnowflakeRingBuffer ringBuffer = new SnowflakeRingBuffer(256);
+        SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(factory, 4, 0, ringBuffer);
+        assertSame(ringBuffer, pool.getRingBuffer());
+        int n = 200000;
+        Set<Long> values = ConcurrentHashMap.newKeySet(n);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < n; i++) {
+            executor.submit(() -> values.add(pool.generate().longValue()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        pool.close();
+        assertEquals(n, values.size());
+        assertEquals(0, ringBuffer.getDiscarded());
+    }
+
+    @Test
+    void testDiscardStale() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(10000L);
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder()
+            .epoch(0L)
+            .timestampProvider(clock::get)
+            .build();
+        SnowflakeRingBuffer ringBuffer = new SnowflakeRingBuffer(64, 0, 100, TimeUnit.MILLISECONDS);
+        SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(factory, 1, 0, ringBuffer);
+        while (ringBuffer.size() < ringBuffer.getCapacity()) {
+            Thread.sleep(1);
+        }
+        assertEquals(10000L, pool.generate().getTimestamp(0L));
+        assertEquals(63, ringBuffer.size());
+
+        clock.set(10500L);
+        Snowflake snowflake = pool.generate();
+        assertEquals(10500L, snowflake.getTimestamp(0L));
+        assertEquals(63, ringBuffer.getDiscarded());
+        pool.close();
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeRingBuffer(1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeRingBuffer(64, 64, 1, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeRingBuffer(64, 0, 0, TimeUnit.SECONDS));
+        assertEquals(128, new SnowflakeRingBuffer(100).getCapacity());
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().build();
+        SnowflakeRingBuffer ringBuffer = new SnowflakeRingBuffer();
+        SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(factory, 1, 0, ringBuffer);
+        assertThrows(IllegalStateException.class, () -> new SnowflakeParallelGenerator(factory, 1, 1, ringBuffer));
+        pool.close();
+    }
+}
@@ -0,0 +1,204 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakeSource;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakeSubscriber;
+import io.gitlab.k4zoku.snowflake.flow.SnowflakeSubscription;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeParallelGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeSourceTest {
+
+    @Test
+    void requestTest() throws InterruptedException {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 64);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 1);
+        assertSame(subscription, subscriber.subscription);
+        assertEquals(0, subscription.getGenerated());
+        subscription.request(10);
+        assertEquals(10, subscription.getGenerated());
+        assertEquals(10, subscriber.values.size());
+        assertEquals(0, subscription.getRequested());
+        subscription.request(1000); // served in batches
+        assertEquals(1010, subscription.getGenerated());
+        assertEquals(1010, subscriber.values.size());
+        assertTrue(subscriber.maxLength.get() <= 64);
+        subscription.cancel();
+        subscription.request(10);
+        assertEquals(1010, subscription.getGenerated());
+        assertEquals(1, subscriber.completed.getCount()); // cancelled, not completed
+    }
+
+    @Test
+    void sameThreadExecutorTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 64);
+        RecordingSubscriber subscriber = new RecordingSubscriber(0);
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 1);
+        subscription.request(1_000_000); // drained in place, not one nested drain per batch
+        assertEquals(1_000_000, subscription.getGenerated());
+        assertNull(subscriber.error.get());
+    }
+
+    @Test
+    void requestOnSubscribeTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 64);
+        AtomicInteger early = new AtomicInteger();
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            private boolean subscribing;
+
+            @Override
+            public void onSubscribe(SnowflakeSubscription subscription) {
+                subscribing = true;
+                subscription.request(100);
+                subscribing = false;
+            }
+
+            @Override
+            public void onNext(long[] values, int offset, int length) {
+                if (subscribing) {
+                    early.incrementAndGet();
+                }
+                super.onNext(values, offset, length);
+            }
+        };
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 1);
+        assertEquals(0, early.get());
+        assertEquals(100, subscription.getGenerated());
+        assertEquals(100, subscriber.values.size());
+    }
+
+    @Test
+    void rejectedTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), task -> {
+            throw new RejectedExecutionException();
+        }, 64);
+        AtomicInteger early = new AtomicInteger();
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onSubscribe(SnowflakeSubscription subscription) {
+                subscription.request(10);
+                early.set((int) completed.getCount());
+            }
+        };
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 1);
+        assertEquals(1, early.get()); // not completed within onSubscribe
+        assertEquals(0, subscriber.completed.getCount());
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, subscription.getGenerated());
+    }
+
+    @Test
+    void elementSizeTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 100);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 16);
+        subscription.request(20);
+        assertEquals(320, subscription.getGenerated());
+        assertEquals(320, subscriber.values.size());
+        assertEquals(96, subscriber.maxLength.get()); // 6 elements per batch
+        assertThrows(IllegalArgumentException.class, () -> source.subscribe(subscriber, 0));
+    }
+
+    @Test
+    void invalidRequestTest() {
+        SnowflakeSource source = SnowflakeSource.of(new SnowflakeGenerator(1, 1), Runnable::run, 64);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        SnowflakeSubscription subscription = source.subscribe(subscriber, 1);
+        subscription.request(0);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error.get());
+        assertTrue(subscription.isCancelled());
+        subscription.request(10);
+        assertEquals(0, subscription.getGenerated());
+    }
+
+    @Test
+    void poolTest() throws InterruptedException {
+        SnowflakeParallelGenerator pool = new SnowflakeParallelGenerator(SnowflakeGeneratorFactory.builder().build(), 4);
+        SnowflakeSource source = SnowflakeSource.of(pool, 128);
+        RecordingSubscriber[] subscribers = new RecordingSubscriber[16];
+        for (int i = 0; i < subscribers.length; i++) {
+            subscribers[i] = new RecordingSubscriber();
+            source.subscribe(subscribers[i], 1).request(2000);
+        }
+        Set<Long> all = ConcurrentHashMap.newKeySet();
+        for (RecordingSubscriber subscriber : subscribers) {
+            assertTrue(subscriber.awaitValues(2000));
+            all.addAll(subscriber.values);
+        }
+        assertEquals(16 * 2000, all.size());
+
+        RecordingSubscriber unbounded = new RecordingSubscriber(10000);
+        SnowflakeSubscription subscription = source.subscribe(unbounded, 1);
+        subscription.request(Long.MAX_VALUE);
+        assertTrue(unbounded.awaitValues(10000));
+        assertEquals(Long.MAX_VALUE, subscription.getRequested());
+        pool.close();
+        assertTrue(unbounded.completed.await(5, TimeUnit.SECONDS));
+        assertNull(unbounded.error.get());
+    }
+
+    private static class RecordingSubscriber implements SnowflakeSubscriber {
+        private final List<Long> values = new CopyOnWriteArrayList<>();
+        private final int limit;
+        private final AtomicInteger maxLength = new AtomicInteger();
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        private SnowflakeSubscription subscription;
+
+        RecordingSubscriber() {
+            this(Integer.MAX_VALUE);
+        }
+
+        RecordingSubscriber(int limit) {
+            this.limit = limit; // values kept, for unbounded demand
+        }
+
+        @Override
+        public void onSubscribe(SnowflakeSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(long[] values, int offset, int length) {
+            maxLength.accumulateAndGet(length, Math::max);
+            for (int i = offset; i < offset + length && this.values.size() < limit; i++) {
+                this.values.add(values[i]);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error.set(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+
+        boolean awaitValues(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (values.size() < count) {
+                if (System.nanoTime() > deadline) {
+                    return false;
+                }
+                Thread.sleep(1);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.SnowflakeStateFile;
+import io.gitlab.k4zoku.snowflake.time.ClockRegressionPolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeStateFileTest {
+
+    @Test
+    void testResumeWithinReserve(@TempDir Path directory) throws IOException {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 1, 2, clock::get);
+        long last;
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, directory, 100, TimeUnit.MILLISECONDS)) {
+            assertSame(stateFile, generator.getStateFile());
+            assertEquals(-1L, stateFile.getHighWater());
+            generator.generate();
+            assertEquals(1100L, stateFile.getHighWater());
+            clock.set(1049L);
+            generator.generate();
+            assertEquals(1100L, stateFile.getHighWater());
+            // past half the reserve, the mark is moved ahead in the background
+            clock.set(1099L);
+            generator.generate();
+            awaitHighWater(stateFile, 1199L);
+            clock.set(1150L);
+            last = generator.generate().longValue();
+            awaitHighWater(stateFile, 1250L);
+            assertTrue(Files.exists(directory.resolve("snowflake-1-2.state")));
+        }
+        assertNull(generator.getStateFile());
+
+        // restarted within the reserve, before the clock reached the high-water mark
+        clock.set(1200L);
+        SnowflakeGenerator restarted = new SnowflakeGenerator(0, 1, 2, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(restarted, directory, 100, TimeUnit.MILLISECONDS)) {
+            assertEquals(0L, stateFile.getClockRegressionOnAttach());
+            Snowflake first = restarted.generate();
+            assertTrue(first.longValue() > last);
+            assertEquals(1251L, first.getTimestamp(0));
+            assertEquals(1351L, stateFile.getHighWater());
+            assertTrue(restarted.generate().compareTo(first) > 0);
+        }
+    }
+
+    @Test
+    void testClockRegressionAcrossRestart(@TempDir Path directory) throws IOException {
+        AtomicLong clock = new AtomicLong(5000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        SnowflakeStateFile.attach(generator, directory).close();
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, directory)) {
+            generator.generate();
+            assertTrue(stateFile.getHighWater() > 5000L);
+        }
+
+        clock.set(4000L);
+        SnowflakeGenerator restarted = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(restarted, directory)) {
+            assertEquals(1000L, stateFile.getClockRegressionOnAttach());
+            assertThrows(IllegalStateException.class, restarted::generate);
+            restarted.setClockRegressionPolicy(ClockRegressionPolicy.logicalClock());
+            assertEquals(6001L, restarted.generate().getTimestamp(0));
+        }
+    }
+
+    @Test
+    void testClockRegressionAfterResume(@TempDir Path directory) throws IOException {
+        AtomicLong clock = new AtomicLong(10_000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, directory, 1000, TimeUnit.MILLISECONDS)) {
+            generator.generate();
+            assertEquals(11_000L, stateFile.getHighWater());
+        }
+
+        // restarted past the loaded mark, the clock steps back between the previous run and the current mark
+        clock.set(50_000L);
+        SnowflakeGenerator restarted = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(restarted, directory, 1000, TimeUnit.MILLISECONDS)) {
+            assertEquals(50_000L, restarted.generate().getTimestamp(0));
+            clock.set(20_000L);
+            assertThrows(IllegalStateException.class, restarted::generate);
+            clock.set(10_500L);
+            assertThrows(IllegalStateException.class, restarted::generate);
+        }
+
+        // restarted within the loaded mark, the clock catches up and then steps back into the old window
+        clock.set(50_500L);
+        restarted = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(restarted, directory, 1000, TimeUnit.MILLISECONDS)) {
+            long mark = stateFile.getHighWater();
+            assertEquals(mark + 1, restarted.generate().getTimestamp(0));
+            clock.set(mark + 10);
+            assertEquals(mark + 10, restarted.generate().getTimestamp(0));
+            clock.set(mark - 10);
+            assertThrows(IllegalStateException.class, restarted::generate);
+        }
+    }
+
+    @Test
+    void testGeneratePastLoadedMark(@TempDir Path directory) throws IOException {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, directory, 1000, TimeUnit.MILLISECONDS)) {
+            generator.generate();
+            assertEquals(2000L, stateFile.getHighWater());
+        }
+
+        // restarted before the loaded mark and exhausting enough sequences to move the logical clock past it
+        clock.set(1500L);
+        SnowflakeGenerator restarted = new SnowflakeGenerator(0, 0, 0, clock::get);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(restarted, directory, 1000, TimeUnit.MILLISECONDS)) {
+            Snowflake last = null;
+            for (int i = 0; i < 4 * 4096 + 1; i++) {
+                last = restarted.generate();
+            }
+            assertEquals(2005L, last.getTimestamp(0));
+            assertTrue(stateFile.getHighWater() >= 2005L);
+            clock.set(2001L);
+            assertTrue(restarted.generate().compareTo(last) > 0);
+        }
+    }
+
+    @Test
+    void testFactory(@TempDir Path directory) throws IOException {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(3).stateDirectory(directory).build();
+        SnowflakeGenerator generator = factory.create(4);
+        assertNotNull(generator.getStateFile());
+        generator.generate();
+        assertTrue(generator.getStateFile().getHighWater() > System.currentTimeMillis());
+        generator.getStateFile().close();
+    }
+
+    @Test
+    void testInvalidAttach(@TempDir Path directory) throws IOException {
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0);
+        try (SnowflakeStateFile stateFile = SnowflakeStateFile.attach(generator, directory)) {
+            assertSame(stateFile, generator.getStateFile());
+            assertThrows(IOException.class, () -> SnowflakeStateFile.attach(new SnowflakeGenerator(0, 0, 0), directory));
+            assertThrows(IllegalStateException.class, () -> SnowflakeStateFile.attach(generator, Files.createDirectory(directory.resolve("other"))));
+        }
+        SnowflakeGenerator used = new SnowflakeGenerator(0, 0, 1);
+        used.generate();
+        assertThrows(IllegalStateException.class, () -> SnowflakeStateFile.attach(used, directory));
+        SnowflakeGenerator otherLayout = new SnowflakeGenerator(0, 0, 0, null, new SnowflakeLayout(41, 5, 5, 12, 10));
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeStateFile.attach(otherLayout, directory));
+        SnowflakeGenerator otherEpoch = new SnowflakeGenerator(1, 0, 0);
+        assertThrows(IllegalArgumentException.class, () -> SnowflakeStateFile.attach(otherEpoch, directory));
+    }
+
+    private static void awaitHighWater(SnowflakeStateFile stateFile, long expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stateFile.getHighWater() != expected && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(expected, stateFile.getHighWater());
+    }
+}
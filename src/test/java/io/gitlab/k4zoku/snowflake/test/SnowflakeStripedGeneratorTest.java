@@ -0,0 +1,65 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeGeneratorFactory;
+import io.gitlab.k4zoku.snowflake.parallel.SnowflakeStripedGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeStripedGeneratorTest {
+
+    @Test
+    void testStripes() {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(4).build();
+        List<SnowflakeGenerator> generators = new SnowflakeStripedGenerator(factory, 3, 30).getGenerators();
+        assertEquals(4, generators.size());
+        Set<Long> workerIds = new HashSet<>();
+        for (SnowflakeGenerator generator : generators) {
+            workerIds.add(generator.getWorkerId());
+        }
+        assertEquals(new HashSet<>(java.util.Arrays.asList(30L, 31L, 0L, 1L)), workerIds);
+        assertEquals(32, new SnowflakeStripedGenerator(factory, 100, 0).getGenerators().size());
+    }
+
+    @Test
+    void testUniqueness() throws InterruptedException {
+        SnowflakeGeneratorFactory factory = SnowflakeGeneratorFactory.builder().dataCenterId(5).build();
+        SnowflakeStripedGenerator generator = new SnowflakeStripedGenerator(factory, 4, 0);
+        int threads = 8;
+        int perThread = 20_000;
+        Set<Long> values = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                long[] batch = new long[100];
+                for (int i = 0; i < perThread; i++) {
+                    Snowflake snowflake = generator.generate();
+                    assertTrue(values.add(snowflake.longValue()));
+                    assertEquals(5, snowflake.getDataCenterId());
+                }
+                generator.generate(batch, 0, batch.length);
+                for (long value : batch) {
+                    assertTrue(values.add(value));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(threads * (perThread + 100), values.size());
+    }
+}
@@ -0,0 +1,74 @@
+package io.gitlab.k4zoku.snowflake.test;
+
+import io.gitlab.k4zoku.snowflake.Snowflake;
+import io.gitlab.k4zoku.snowflake.SnowflakeGenerator;
+import io.gitlab.k4zoku.snowflake.SnowflakeLayout;
+import io.gitlab.k4zoku.snowflake.time.TimestampProvider;
+import io.gitlab.k4zoku.snowflake.time.WaitStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaitStrategyTest {
+
+    static Stream<WaitStrategy> strategies() {
+        return Stream.of(
+            WaitStrategy.timestampProvider(),
+            WaitStrategy.busySpin(),
+            WaitStrategy.spinWait(),
+            WaitStrategy.yielding(),
+            WaitStrategy.parking(),
+            WaitStrategy.hybrid(),
+            WaitStrategy.virtualThreadAware()
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    void testWaitUntilNextTimestamp(WaitStrategy strategy) {
+        AtomicLong reads = new AtomicLong();
+        TimestampProvider timestampProvider = () -> 1000L + reads.incrementAndGet() / 500;
+        assertEquals(1001L, strategy.waitUntilNextTimestamp(timestampProvider, 1000L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("strategies")
+    void testSequenceExhaustion(WaitStrategy strategy) {
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, TimestampProvider.system());
+        generator.setWaitStrategy(strategy);
+        long[] values = new long[3 * (SnowflakeGenerator.MAX_SEQUENCE + 1)];
+        generator.generate(values, 0, values.length);
+        long first = Snowflake.of(values[0]).getTimestamp(0);
+        long last = Snowflake.of(values[values.length - 1]).getTimestamp(0);
+        assertTrue(last - first >= 2);
+    }
+
+    @Test
+    void testMonitorReleasedWhileWaiting() throws InterruptedException {
+        AtomicLong clock = new AtomicLong(1000L);
+        SnowflakeLayout layout = new SnowflakeLayout(51, 5, 5, 2); // four snowflakes per millisecond
+        SnowflakeGenerator generator = new SnowflakeGenerator(0, 0, 0, clock::get, layout);
+        CountDownLatch waiting = new CountDownLatch(1);
+        generator.setWaitStrategy((timestampProvider, lastTimestamp) -> {
+            waiting.countDown();
+            return WaitStrategy.parking().waitUntilNextTimestamp(timestampProvider, lastTimestamp);
+        });
+        long[] values = new long[4];
+        generator.generate(values, 0, values.length);
+        Thread thread = new Thread(generator::generate);
+        thread.start();
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        // the waiting thread must not hold the monitor, or this call would block until the clock moves
+        assertNotNull(generator.getWaitStrategy());
+        clock.set(1001L);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse(thread.isAlive());
+    }
+}